@@ -0,0 +1,61 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import java.awt.image.BufferedImage;
+
+/*
+ A 1-bit collision mask of a raster image: a pixel is solid if it is at least half opaque. Each row is packed into
+ 64-bit long words, so that a row of the 125px falcon fits in two words and can be tested against another shape with a
+ couple of bitwise ANDs rather than 125 pixel lookups. Masks are built once per image by ImageLoader.
+ */
+public class AlphaMask {
+
+    private static final int ALPHA_THRESHOLD = 128;
+
+    private final int width, height;
+    private final int wordsPerRow;
+    private final long[] bits;
+
+    public AlphaMask(BufferedImage image) {
+
+        width = image.getWidth();
+        height = image.getHeight();
+        wordsPerRow = (width + 63) >>> 6;
+        bits = new long[wordsPerRow * height];
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                if ((image.getRGB(col, row) >>> 24) >= ALPHA_THRESHOLD) {
+                    bits[row * wordsPerRow + (col >>> 6)] |= 1L << (col & 63);
+                }
+            }
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    //true if any solid pixel of the row lies in the columns [col0, col1] (inclusive); the span is clipped to the mask
+    public boolean anySolid(int row, int col0, int col1) {
+
+        if (row < 0 || row >= height) return false;
+        col0 = Math.max(col0, 0);
+        col1 = Math.min(col1, width - 1);
+        if (col0 > col1) return false;
+
+        int offset = row * wordsPerRow;
+        int word0 = col0 >>> 6, word1 = col1 >>> 6;
+        for (int word = word0; word <= word1; word++) {
+            //build the span's bits for this word, then AND with the mask
+            long span = -1L;
+            if (word == word0) span &= -1L << (col0 & 63);
+            if (word == word1) span &= -1L >>> (63 - (col1 & 63));
+            if ((bits[offset + word] & span) != 0) return true;
+        }
+        return false;
+    }
+
+}
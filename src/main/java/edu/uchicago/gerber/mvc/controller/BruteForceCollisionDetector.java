@@ -0,0 +1,39 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import edu.uchicago.gerber.mvc.model.Movable;
+
+import java.util.List;
+
+//The reference implementation: every friend is tested against every foe. Order of growth of O(FOES * FRIENDS).
+public class BruteForceCollisionDetector implements CollisionDetector {
+
+    private long pairsTested;
+
+    @Override
+    public void detect(List<Movable> friends, List<Movable> foes, int universeWidth, int universeHeight,
+                       CollisionListener onCollision) {
+
+        pairsTested = (long) friends.size() * foes.size();
+
+        for (Movable movFriend : friends) {
+            for (Movable movFoe : foes) {
+
+                //detect collision; fast movers are swept along their path. See Collisions
+                double toi = Collisions.timeOfImpact(movFriend, movFoe);
+                if (toi != Collisions.NO_HIT) {
+                    onCollision.onCollision(movFriend, movFoe, toi);
+                }
+            }//end inner for
+        }//end outer for
+    }
+
+    @Override
+    public String getName() {
+        return "brute";
+    }
+
+    @Override
+    public long getPairsTested() {
+        return pairsTested;
+    }
+}
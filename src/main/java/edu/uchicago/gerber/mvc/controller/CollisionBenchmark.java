@@ -0,0 +1,129 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import edu.uchicago.gerber.mvc.model.Asteroid;
+import edu.uchicago.gerber.mvc.model.Movable;
+import edu.uchicago.gerber.mvc.model.MovableList;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/*
+ Development tool: compares the collision engines (see CollisionDetector) in the DARK (4x4) universe, and verifies
+ that every engine reports the same colliding pairs, in the same order, as the brute-force reference implementation.
+ Run the main() method of this class; it does not open a window. Pass engine names to time only those engines,
+ e.g. "grid sap". Each row doubles the number of foes, so a linear algorithm should roughly double its time per frame,
+ while the brute-force engine roughly quadruples.
+
+ The sprites drift a few pixels every frame, as they do in the game, which is what the incremental sweep-and-prune
+ engine relies upon.
+ */
+public class CollisionBenchmark {
+
+    private static final int UNI_WIDTH = 4 * Game.DIM.width;
+    private static final int UNI_HEIGHT = 4 * Game.DIM.height;
+    private static final int FRAMES = 20;
+    private static final int WARM_UP_FRAMES = 5;
+    //the same sprites every run
+    private static final Random R = new Random(42);
+
+    public static void main(String[] args) {
+
+        String[] engines = args.length > 0 ? args : new String[]{"brute", "grid", "sap"};
+        //the Asteroids draw their shapes from the rng of the bound world
+        CommandCenter.bind(new CommandCenter(42));
+
+        System.out.printf("%8s %8s %8s %10s %12s %8s%n", "engine", "foes", "friends", "pairs", "ms/frame", "same");
+        for (int numFoes = 625; numFoes <= 10_000; numFoes *= 2) {
+
+            //the foes are a mix of large, medium and small Asteroids
+            MovableList foes = new MovableList();
+            for (int i = 0; i < numFoes; i++) {
+                foes.add(place(new Asteroid(i % 3)));
+            }
+            //the friends are small and fast, like Bullets, so they exercise the swept (continuous) test
+            MovableList friends = new MovableList();
+            for (int i = 0; i < numFoes / 4; i++) {
+                Asteroid bullet = new Asteroid(2);
+                bullet.setRadius(6);
+                double angle = Math.toRadians(R.nextInt(360));
+                bullet.setDeltaX(Math.cos(angle) * 35);
+                bullet.setDeltaY(Math.sin(angle) * 35);
+                friends.add(place(bullet));
+            }
+            Point[] startCenters = saveCenters(friends, foes);
+
+            //the reference checksum of every frame
+            long[] expected = run(new BruteForceCollisionDetector(), friends, foes, startCenters);
+
+            for (String engine : engines) {
+                CollisionDetector detector = CollisionDetector.create(engine);
+                long start = System.nanoTime();
+                long[] actual = run(detector, friends, foes, startCenters);
+                double msPerFrame = (System.nanoTime() - start) / 1e6 / (FRAMES + WARM_UP_FRAMES);
+                System.out.printf("%8s %8d %8d %10d %12.3f %8b%n", detector.getName(), foes.size(), friends.size(),
+                        actual[FRAMES], msPerFrame, Arrays.equals(expected, actual));
+            }
+        }
+    }
+
+    //runs the detector over the same sequence of frames, and returns a checksum of the pairs reported in each timed
+    //frame, followed by the total number of pairs
+    private static long[] run(CollisionDetector detector, List<Movable> friends, List<Movable> foes,
+                              Point[] startCenters) {
+
+        restoreCenters(friends, foes, startCenters);
+        long[] checksums = new long[FRAMES + 1];
+        long[] frameChecksum = new long[1];
+        for (int frame = 0; frame < WARM_UP_FRAMES + FRAMES; frame++) {
+            drift(friends, foes);
+            frameChecksum[0] = 17;
+            detector.detect(friends, foes, UNI_WIDTH, UNI_HEIGHT, (friend, foe, toi) -> {
+                frameChecksum[0] = frameChecksum[0] * 31 + System.identityHashCode(friend);
+                frameChecksum[0] = frameChecksum[0] * 31 + System.identityHashCode(foe);
+            });
+            if (frame >= WARM_UP_FRAMES) {
+                checksums[frame - WARM_UP_FRAMES] = frameChecksum[0];
+            }
+        }
+        //count the pairs of the last frame
+        int[] pairs = new int[1];
+        detector.detect(friends, foes, UNI_WIDTH, UNI_HEIGHT, (friend, foe, toi) -> pairs[0]++);
+        checksums[FRAMES] = pairs[0];
+        return checksums;
+    }
+
+    //some centers land just beyond the edges of the universe, as they do in Sprite.move(), to exercise wrap-around
+    private static Movable place(Asteroid asteroid) {
+        final int OVERSHOOT = 20;
+        asteroid.setCenter(new Point(R.nextInt(UNI_WIDTH + 2 * OVERSHOOT) - OVERSHOOT,
+                R.nextInt(UNI_HEIGHT + 2 * OVERSHOOT) - OVERSHOOT));
+        return asteroid;
+    }
+
+    private static void drift(List<Movable> friends, List<Movable> foes) {
+        for (List<Movable> team : Arrays.asList(friends, foes)) {
+            for (Movable mov : team) {
+                Asteroid asteroid = (Asteroid) mov;
+                asteroid.getPrevCenter().setLocation(asteroid.getCenter());
+                asteroid.getCenter().translate((int) asteroid.getDeltaX(), (int) asteroid.getDeltaY());
+            }
+        }
+    }
+
+    private static Point[] saveCenters(List<Movable> friends, List<Movable> foes) {
+        Point[] centers = new Point[friends.size() + foes.size()];
+        int i = 0;
+        for (Movable mov : friends) centers[i++] = new Point(mov.getCenter());
+        for (Movable mov : foes) centers[i++] = new Point(mov.getCenter());
+        return centers;
+    }
+
+    private static void restoreCenters(List<Movable> friends, List<Movable> foes, Point[] centers) {
+        int i = 0;
+        for (Movable mov : friends) ((Asteroid) mov).setCenter(new Point(centers[i++]));
+        for (Movable mov : foes) ((Asteroid) mov).setCenter(new Point(centers[i++]));
+    }
+
+}
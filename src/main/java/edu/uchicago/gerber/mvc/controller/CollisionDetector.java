@@ -0,0 +1,43 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import edu.uchicago.gerber.mvc.model.Movable;
+
+import java.util.List;
+
+/*
+ TODO This interface is an example of the Strategy design pattern, which defines a family of interchangeable
+ algorithms behind a common interface, so that the algorithm can be selected at runtime independently of the clients
+ that use it. Here, Game (the client) asks a CollisionDetector for the friend/foe pairs that collide, and does not
+ care whether the pairs were found by brute-force, a spatial hash, or sweep-and-prune. The engine is chosen at startup
+ from the command line; see Game.main().
+
+ Every engine must report exactly the same pairs as BruteForceCollisionDetector (the reference implementation), in the
+ same order: friends in list order, and for each friend, foes in list order. This guarantees that the GameOpsQueue
+ contents, and therefore the game itself, are identical no matter which engine is used.
+ */
+public interface CollisionDetector {
+
+    //report each colliding (friend, foe) pair and its time of impact. The universe dimensions are measured in pixels.
+    void detect(List<Movable> friends, List<Movable> foes, int universeWidth, int universeHeight,
+                CollisionListener onCollision);
+
+    //the name used to select this engine from the command line, e.g. --collision=grid
+    String getName();
+
+    //the number of friend/foe pairs that the most recent detect() put to the exact test; the rest were pruned
+    long getPairsTested();
+
+    static CollisionDetector create(String name) {
+        switch (name.toLowerCase()) {
+            case "brute":
+                return new BruteForceCollisionDetector();
+            case "grid":
+                return new SpatialHashCollisionDetector();
+            case "sap":
+                return new SweepAndPruneCollisionDetector();
+            default:
+                throw new IllegalArgumentException("Unknown collision engine: " + name + " (use brute, grid, or sap)");
+        }
+    }
+
+}
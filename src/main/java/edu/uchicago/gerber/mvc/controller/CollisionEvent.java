@@ -0,0 +1,32 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import edu.uchicago.gerber.mvc.model.Movable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ A CollisionEvent records that two movables collided during this frame. Events are collected by a CollisionEventBuffer
+ while collision detection runs, and are resolved into GameOps only once detection is complete.
+ */
+
+//the lombok @Data gives us automatic getters and setters
+@Data
+//the lombok @AllArgsConstructor gives us an All-Args-Constructor :)
+@AllArgsConstructor
+public class CollisionEvent {
+
+    public enum Kind {
+        //a friend (Falcon, Bullet, Nuke) hit a foe; both are removed
+        FRIEND_FOE,
+        //the falcon picked up a floater; only the floater is removed
+        FALCON_FLOATER
+    }
+    //members
+    private Kind kind;
+    private Movable movFriend;
+    //the foe, or the floater
+    private Movable movOther;
+    //when during the frame the two collided, from 0.0 (start) to 1.0 (end). See Collisions.timeOfImpact()
+    private double timeOfImpact;
+
+}
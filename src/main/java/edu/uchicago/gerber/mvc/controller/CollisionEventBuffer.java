@@ -0,0 +1,90 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import edu.uchicago.gerber.mvc.model.Movable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/*
+ Collects the CollisionEvents of one frame, and then resolves them into GameOps.
+
+ A movable may collide with several others in the same frame: a Bullet may overlap three Asteroids, or an Asteroid may
+ overlap the Falcon and two Bullets. Enqueueing a REMOVE for every event would run removeFromGame() on the same movable
+ several times, which means repeated list scans, repeated sounds, and an Asteroid that splits more than once. Instead,
+ each movable is resolved at most once per frame, and the eliminated duplicates are counted.
+
+ Movables are compared by identity rather than equals(), since lombok's @Data equals() compares field values. The
+ events themselves are reused from frame to frame, so a busy frame does not allocate.
+ */
+public class CollisionEventBuffer implements CollisionListener {
+
+    private final List<CollisionEvent> events = new ArrayList<>();
+    private int size;
+
+    //the movables already resolved this frame
+    private final Set<Movable> resolved = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    //called by the CollisionDetector for each colliding friend/foe pair
+    @Override
+    public void onCollision(Movable movFriend, Movable movFoe, double timeOfImpact) {
+        add(CollisionEvent.Kind.FRIEND_FOE, movFriend, movFoe, timeOfImpact);
+    }
+
+    public void add(CollisionEvent.Kind kind, Movable movFriend, Movable movOther, double timeOfImpact) {
+        if (size == events.size()) {
+            events.add(new CollisionEvent(kind, movFriend, movOther, timeOfImpact));
+        } else {
+            CollisionEvent event = events.get(size);
+            event.setKind(kind);
+            event.setMovFriend(movFriend);
+            event.setMovOther(movOther);
+            event.setTimeOfImpact(timeOfImpact);
+        }
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public CollisionEvent get(int index) {
+        return events.get(index);
+    }
+
+    //Enqueue one REMOVE for each movable involved in this frame's events, in the order the events were added, then
+    //clear the buffer. Returns the number of redundant REMOVE ops that were eliminated.
+    public int resolve(GameOpsQueue opsQueue) {
+
+        int redundant = 0;
+        for (int i = 0; i < size; i++) {
+            CollisionEvent event = events.get(i);
+            if (event.getKind() == CollisionEvent.Kind.FRIEND_FOE) {
+                redundant += removeOnce(event.getMovFriend(), opsQueue);
+            }
+            redundant += removeOnce(event.getMovOther(), opsQueue);
+        }
+        clear();
+        return redundant;
+    }
+
+    private int removeOnce(Movable mov, GameOpsQueue opsQueue) {
+        if (!resolved.add(mov)) return 1;
+        opsQueue.enqueue(mov, GameOp.Action.REMOVE);
+        return 0;
+    }
+
+    //release references to the movables so that removed movables may be garbage-collected
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            CollisionEvent event = events.get(i);
+            event.setMovFriend(null);
+            event.setMovOther(null);
+        }
+        size = 0;
+        resolved.clear();
+    }
+
+}
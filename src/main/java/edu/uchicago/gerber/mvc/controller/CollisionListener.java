@@ -0,0 +1,12 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import edu.uchicago.gerber.mvc.model.Movable;
+
+//Receives each colliding (friend, foe) pair found by a CollisionDetector, along with the time of impact as a fraction
+//of the frame. See Collisions.timeOfImpact()
+@FunctionalInterface
+public interface CollisionListener {
+
+    void onCollision(Movable movFriend, Movable movFoe, double timeOfImpact);
+
+}
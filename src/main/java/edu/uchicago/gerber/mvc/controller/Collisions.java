@@ -0,0 +1,102 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import edu.uchicago.gerber.mvc.model.Movable;
+
+import java.awt.*;
+
+/*
+ The collision test shared by every CollisionDetector.
+
+ A Bullet travels 35+ pixels per frame but has a radius of only 6, so testing only the end-of-frame positions lets it
+ step right over a small Asteroid (radius 27) between frames. For fast movers we therefore sweep each circle from its
+ previous center to its current center (a capsule), and solve for the first moment within the frame when the two
+ circles overlap. Slow movers keep the simple end-of-frame test.
+
+ Bounding circles are only the first stage; see Narrowphase for the second.
+ */
+public class Collisions {
+
+    //returned by timeOfImpact() when the two movables do not collide during this frame
+    public static final double NO_HIT = -1.0;
+
+    private Collisions() {}
+
+    public static boolean collide(Movable movA, Movable movB) {
+        return timeOfImpact(movA, movB) != NO_HIT;
+    }
+
+    //A movable is fast if it travelled farther than its own radius during the last frame, i.e. far enough to skip
+    //over something its own size.
+    public static boolean isFastMover(Movable mov) {
+        Point center = mov.getCenter();
+        Point prevCenter = mov.getPrevCenter();
+        long dx = center.x - prevCenter.x;
+        long dy = center.y - prevCenter.y;
+        long radius = mov.getRadius();
+        return dx * dx + dy * dy > radius * radius;
+    }
+
+    /*
+     Returns the time of impact as a fraction of the frame: 0.0 means the movables already overlapped at the start of
+     the frame, and 1.0 means at the end of the frame (their current centers). Returns NO_HIT if they do not collide.
+     The bounding circles are tested first, and only pairs whose circles overlap are refined by their actual shapes.
+     See Narrowphase.
+     */
+    public static double timeOfImpact(Movable movA, Movable movB) {
+
+        boolean swept = isFastMover(movA) || isFastMover(movB);
+        double toi = swept ? sweptCircles(movA, movB) : endOfFrameCircles(movA, movB);
+        if (toi == NO_HIT) return NO_HIT;
+        return Narrowphase.overlap(movA, movB, swept) ? toi : NO_HIT;
+    }
+
+    //slow movers: the same end-of-frame test as the original nested loop
+    private static double endOfFrameCircles(Movable movA, Movable movB) {
+        return movA.getCenter().distance(movB.getCenter()) < (movA.getRadius() + movB.getRadius()) ? 1.0 : NO_HIT;
+    }
+
+    private static double sweptCircles(Movable movA, Movable movB) {
+
+        Point centerA = movA.getCenter();
+        Point centerB = movB.getCenter();
+        double radii = movA.getRadius() + movB.getRadius();
+
+        //Work in the frame of reference of B, so that only A moves: A starts at p (relative to B) and travels along d.
+        //The circles overlap when |p + t*d| < radii, which is a quadratic in t.
+        Point prevA = movA.getPrevCenter();
+        Point prevB = movB.getPrevCenter();
+        double px = prevA.x - prevB.x;
+        double py = prevA.y - prevB.y;
+        double dx = (centerA.x - prevA.x) - (centerB.x - prevB.x);
+        double dy = (centerA.y - prevA.y) - (centerB.y - prevB.y);
+
+        double c = px * px + py * py - radii * radii;
+        //already overlapping at the start of the frame
+        if (c < 0) return 0.0;
+
+        double a = dx * dx + dy * dy;
+        double b = 2 * (px * dx + py * dy);
+        double discriminant = b * b - 4 * a * c;
+        //no relative motion, or the paths never come within radii of each other
+        if (a == 0 || discriminant <= 0) return NO_HIT;
+
+        //the earlier root is the moment the circles first touch. Touching at the very end of the frame is not an overlap,
+        //consistent with the strict inequality of the end-of-frame test.
+        double t = (-b - Math.sqrt(discriminant)) / (2 * a);
+        return t >= 0 && t < 1 ? t : NO_HIT;
+    }
+
+    //Bounding-box of the swept circle, i.e. of the circle at both its previous and its current center, as
+    //{minX, minY, maxX, maxY}. Used by the broad-phase engines so that they never prune a swept hit.
+    public static void sweptBounds(Movable mov, int[] bounds) {
+        Point center = mov.getCenter();
+        Point prevCenter = mov.getPrevCenter();
+        //a shrinking Nuke may briefly report a negative radius; never let a bounding-box invert
+        int radius = Math.max(0, mov.getRadius());
+        bounds[0] = Math.min(center.x, prevCenter.x) - radius;
+        bounds[1] = Math.min(center.y, prevCenter.y) - radius;
+        bounds[2] = Math.max(center.x, prevCenter.x) + radius;
+        bounds[3] = Math.max(center.y, prevCenter.y) + radius;
+    }
+
+}
@@ -3,14 +3,16 @@ package edu.uchicago.gerber.mvc.controller;
 
 import edu.uchicago.gerber.mvc.model.MiniMap;
 import edu.uchicago.gerber.mvc.model.*;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 
 import java.awt.*;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.Map;
 
-//The CommandCenter is a singleton that manages the state of the game.
+//The CommandCenter manages the state of one game, i.e. one world. See getInstance()
 //the lombok @Data gives us automatic getters and setters on all members
 @Data
 public class CommandCenter {
@@ -34,17 +36,29 @@ public class CommandCenter {
 	private boolean radar; //to toggle on/off the mini-map
 	//this value is used to count the number of frames (full animation cycles) in the game
 	private long frame;
+	//the number of redundant REMOVE ops eliminated so far, e.g. a Bullet that hit two Asteroids in the same frame.
+	//See CollisionEventBuffer
+	private long redundantOps;
+
+	//every random choice in this world. See Rng
+	private final Rng rng;
+
+	//the frame of the FrameSnapshot that the render thread draws, if this world has one (see Game); Long.MAX_VALUE if
+	//no thread draws this world, e.g. in a HeadlessGame. See isReleasedByRenderer()
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private volatile long renderFrame = Long.MAX_VALUE;
 
 	//the falcon is located in the movFriends list, but since we use this reference a lot, we keep track of it in a
 	//separate reference. Use final to ensure that the falcon ref always points to the single falcon object on heap.
 	//Lombok will not provide setter methods on final members
-	private final Falcon falcon  = new Falcon();
+	private final Falcon falcon;
 	//miniDimHash associates dimension with the Universe.
 	private final Map<Universe, Dimension> miniDimHash = new HashMap<>();
-	private final MiniMap miniMap = new MiniMap();
+	private final MiniMap miniMap;
 
 	/*
-	 TODO The following LinkedList<Movable> are examples of the Composite design pattern which is used to allow
+	 TODO The following MovableList are examples of the Composite design pattern which is used to allow
 	 compositions of objects to be treated uniformly. Here are the elements of the Composite design pattern:
 
      Component: Movable serves as the component interface. It defines common methods (move(), draw(Graphics g), etc.)
@@ -53,42 +67,112 @@ public class CommandCenter {
      Leaf: Concrete classes that implement Movable (e.g., Bullet, Asteroid) are the leaf nodes. They implement the
      Movable interface and provide specific behavior.
 
-     Composite: The LinkedLists below that aggregate Movable objects (e.g., movFriends, movFoes) act as
+     Composite: The MovableLists below that aggregate Movable objects (e.g., movFriends, movFoes) act as
      composites. They manage collections of Movable objects and provide a way to iterate over and operate on them as a
      group.
 
 	 */
-	private final LinkedList<Movable> movDebris = new LinkedList<>();
-	private final LinkedList<Movable> movFriends = new LinkedList<>();
-	private final LinkedList<Movable> movFoes = new LinkedList<>();
-	private final LinkedList<Movable> movFloaters = new LinkedList<>();
+	private final MovableList movDebris;
+	private final MovableList movFriends;
+	private final MovableList movFoes;
+	private final MovableList movFloaters;
+	//the lists above in the order in which they are moved, drawn and hashed. The order within a list is not kept: removing
+	//a movable moves the last one into its slot. See MovableList
+	@Getter(AccessLevel.NONE)
+	private final MovableList[] teams;
+	//how many movables of each class, and Asteroids of each size, are in the lists above
+	private final EntityCensus census = new EntityCensus();
 
 	private final GameOpsQueue opsQueue = new GameOpsQueue();
 
+	//the short-lived sprites that leave the game are reused, so that steady play does not allocate. See Pool
+	private final Pool<Bullet> bulletPool = new Pool<>(64);
+	private final Pool<Asteroid> asteroidPool = new Pool<>(256);
+	private final Pool<WhiteCloudDebris> debrisPool = new Pool<>(128);
 
 
-	/* TODO This is an example of the Singleton design pattern. The Singleton ensures that a class has one (and only
+
+	/* TODO This is a variation of the Singleton design pattern. A Singleton ensures that a class has one (and only
 	one) instance on the heap and provides a global point of access at instance. This is useful when you need to
 	coordinate actions among objects in your system or manage state. CommandCenter manages the state of the game.
+
+	One JVM may run many independent games (worlds), e.g. in a SessionHost, so the point of access is per thread:
+	getInstance() returns the world bound to the current thread, which is the world that the thread is stepping. There
+	is no default world: a thread that steps a world without binding it is a bug, which would otherwise play a
+	different, unseeded game, so getInstance() fails fast instead. Game binds its world to its simulation thread.
 	 */
-	private static CommandCenter instance = null;
+	private static final ThreadLocal<CommandCenter> BOUND = new ThreadLocal<>();
 
-	// Constructor made private
-	private CommandCenter() {}
+	//true while the current thread works for a world that need not be its own, i.e. a Region of
+	//SpatialHashCollisionDetector on a ForkJoinPool worker. That worker may be bound to no world, or to another one
+	//(e.g. it also steps a session of a SessionHost), so such work may only use what Narrowphase.prepare() has
+	//prepared, and must never look up the world. Checked by an assert, i.e. only with -ea, e.g. in the tests
+	private static final ThreadLocal<Boolean> DETACHED = ThreadLocal.withInitial(() -> false);
+
+	//a new world; the seed decides every random choice in it. See Rng
+	public CommandCenter(long seed) {
+		this(seed, MovableList.Storage.OBJECTS);
+	}
+
+	//a new world whose sprites keep their motion state in the given storage; either plays the same game. See
+	//SpriteArrays
+	public CommandCenter(long seed, MovableList.Storage storage) {
+		rng = new Rng(seed);
+		movDebris = new MovableList(storage, census);
+		movFriends = new MovableList(storage, census);
+		movFoes = new MovableList(storage, census);
+		movFloaters = new MovableList(storage, census);
+		teams = new MovableList[]{movDebris, movFloaters, movFoes, movFriends};
+		//the aspect ratios never change, and are needed even before the first game, e.g. to restore a Keyframe
+		setDimHash();
+		//sprites draw from the rng of the world that is bound while they are constructed
+		CommandCenter previous = bind(this);
+		try {
+			falcon = new Falcon();
+			miniMap = new MiniMap();
+		} finally {
+			bind(previous);
+		}
+	}
+
+	//the team lists, debris, floaters, foes and friends, without allocating
+	public int getNumTeams() {
+		return teams.length;
+	}
+
+	public MovableList getTeam(int index) {
+		return teams[index];
+	}
 
-    //this class maintains game state - make this a singleton.
 	public static CommandCenter getInstance(){
-		if (instance == null){
-			instance = new CommandCenter();
+		assert !DETACHED.get() : "collision work on thread " + Thread.currentThread().getName() +
+				" must not look up the world; see Narrowphase.prepare()";
+		CommandCenter bound = BOUND.get();
+		if (bound == null) {
+			throw new IllegalStateException("no world is bound to thread " + Thread.currentThread().getName() +
+					"; see CommandCenter.bind()");
 		}
-		return instance;
+		return bound;
+	}
+
+	//Bind a world to the current thread, or unbind it with null. Returns the world bound before (or null), so that
+	//it can be bound again afterwards.
+	public static CommandCenter bind(CommandCenter world){
+		CommandCenter previous = BOUND.get();
+		if (world == null) BOUND.remove();
+		else BOUND.set(world);
+		return previous;
+	}
+
+	//mark the current thread's work as detached from its world, or no longer so. See DETACHED
+	static void setDetached(boolean detached){
+		DETACHED.set(detached);
 	}
 
 
 	public void initGame(){
 		clearAll();
 		generateStarField();
-		setDimHash();
 		setLevel(0);
 		setScore(0);
 		setPaused(false);
@@ -120,6 +204,10 @@ public class CommandCenter {
 		}
 	}
 
+	public void addRedundantOps(int num){
+		redundantOps += num;
+	}
+
 	public void incrementFrame(){
 		frame = frame < Long.MAX_VALUE ? frame + 1 : 0;
 	}
@@ -135,6 +223,17 @@ public class CommandCenter {
 		return numFalcons < 1;
 	}
 
+	//render thread only: it now draws the FrameSnapshot of this frame, and never again an earlier one
+	public void setRenderFrame(long frame) {
+		renderFrame = frame;
+	}
+
+	//whether the render thread is done with the FrameSnapshots of this frame and earlier, so that whatever they hold,
+	//e.g. the VectorGeometry of a sprite, may be written again. See Sprite.reshape()
+	public boolean isReleasedByRenderer(long frame) {
+		return frame < renderFrame;
+	}
+
 	public Dimension getUniDim(){
 		return miniDimHash.get(universe);
 	}
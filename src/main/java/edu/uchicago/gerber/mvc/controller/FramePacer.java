@@ -0,0 +1,106 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ Paces a loop to a fixed period on the System.nanoTime() clock, e.g. the ticks of the simulation thread or the
+ renders of the render thread. Frames are scheduled at fixed deadlines (start, start + period, start + 2 * period...)
+ rather than a period after the previous frame ended, so that the schedule does not drift under load.
+
+ Waiting is done with LockSupport.parkNanos() until shortly before the deadline, and then by spinning for the rest,
+ because parking (like Thread.sleep()) tends to oversleep by tens of microseconds or more. How far each interval was
+ from the period is recorded in a JitterHistogram.
+
+ When the loop falls behind, e.g. after a garbage collection, the CatchUp policy decides what happens to the frames
+ that are already overdue.
+ */
+public class FramePacer {
+
+    public enum CatchUp {
+        //skip the overdue frames; run one frame now, and keep to the original schedule
+        DROP,
+        //run the overdue frames back-to-back, up to maxBurst of them, and drop any beyond that
+        BURST,
+        //run one frame now, and restart the schedule from now, i.e. the game slows down rather than skip ahead
+        STRETCH
+    }
+
+    //park until this long before the deadline, then spin
+    private static final long SPIN_NANOS = 200_000;
+
+    private final long periodNanos;
+    private final CatchUp catchUp;
+    private final int maxBurst;
+    private final JitterHistogram jitter;
+
+    //when the next frame is due
+    private long deadline;
+    //when the previous awaitFrame() returned; 0 before the first frame
+    private long lastFrameTime;
+
+    public FramePacer(String name, long periodNanos, CatchUp catchUp, int maxBurst) {
+        if (periodNanos < 1) throw new IllegalArgumentException("period must be positive");
+        if (maxBurst < 1) throw new IllegalArgumentException("maxBurst must be at least 1");
+        this.periodNanos = periodNanos;
+        this.catchUp = catchUp;
+        this.maxBurst = maxBurst;
+        this.jitter = new JitterHistogram(name);
+        //the first frame is due right away
+        this.deadline = System.nanoTime();
+    }
+
+    //Wait until the next frame is due, and return the number of frames to run now: always 1, except for BURST
+    public int awaitFrame() {
+
+        parkUntil(deadline);
+        long now = System.nanoTime();
+        if (lastFrameTime != 0) jitter.record(now - lastFrameTime - periodNanos);
+        lastFrameTime = now;
+
+        //the frames due by now, including the one at deadline
+        long due = 1 + (now - deadline) / periodNanos;
+        switch (catchUp) {
+            case STRETCH:
+                deadline = now + periodNanos;
+                return 1;
+            case BURST:
+                deadline += due * periodNanos;
+                return (int) Math.min(due, maxBurst);
+            case DROP:
+            default:
+                deadline += due * periodNanos;
+                return 1;
+        }
+    }
+
+    //the time at which the most recent frame was due; e.g. the renderer interpolates from this moment
+    public long getFrameTime() {
+        return deadline - periodNanos;
+    }
+
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    public CatchUp getCatchUp() {
+        return catchUp;
+    }
+
+    //may be read from any thread
+    public JitterHistogram getJitter() {
+        return jitter;
+    }
+
+    private static void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > SPIN_NANOS) {
+            LockSupport.parkNanos(remaining - SPIN_NANOS);
+            //do nothing (bury the interrupt), and just continue; otherwise parkNanos() would no longer park
+            Thread.interrupted();
+        }
+        while (deadline - System.nanoTime() > 0) {
+            //spin for the last few microseconds
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+package edu.uchicago.gerber.mvc.controller;
+
+/*
+ Profiles the frames of the simulation thread: the time of each Simulation.Stage, of the whole tick, and of drawing
+ the movables into a FrameSnapshot, over the most recent RollingTimer.WINDOW ticks. The summary is captured into the
+ snapshot, from which GamePanel draws the profiler overlay.
+
+ Recording does not allocate, so the profiler does not disturb what it measures; it runs whether or not the overlay is
+ shown. Simulation thread only.
+ */
+public class FrameProfiler {
+
+    private static final Simulation.Stage[] STAGES = Simulation.Stage.values();
+
+    private final RollingTimer[] stageTimers = new RollingTimer[STAGES.length];
+    private final RollingTimer tickTimer = new RollingTimer();
+    private final RollingTimer drawTimer = new RollingTimer();
+    private final GcMonitor gcMonitor = GcMonitor.getInstance();
+
+    public FrameProfiler() {
+        for (int i = 0; i < stageTimers.length; i++) {
+            stageTimers[i] = new RollingTimer();
+        }
+    }
+
+    //after each tick
+    public void recordTick(Simulation simulation) {
+        for (Simulation.Stage stage : STAGES) {
+            stageTimers[stage.ordinal()].record(simulation.getLastStageStart(stage), simulation.getLastStageEnd(stage));
+        }
+        tickTimer.record(simulation.getLastStageStart(STAGES[0]),
+                simulation.getLastStageEnd(STAGES[STAGES.length - 1]));
+    }
+
+    //after the movables were drawn into a FrameSnapshot
+    public void recordDraw(long startNanos, long endNanos) {
+        drawTimer.record(startNanos, endNanos);
+    }
+
+    //summarize the timings into the snapshot, for the overlay
+    public void capture(FrameSnapshot frame) {
+        for (Simulation.Stage stage : STAGES) {
+            RollingTimer timer = stageTimers[stage.ordinal()];
+            frame.getStageMeanNanos()[stage.ordinal()] = timer.getMeanNanos();
+            frame.getStageP99Nanos()[stage.ordinal()] = timer.getPercentileNanos(0.99);
+        }
+        frame.setDrawMeanNanos(drawTimer.getMeanNanos());
+        frame.setDrawP99Nanos(drawTimer.getPercentileNanos(0.99));
+        frame.setTickMeanNanos(tickTimer.getMeanNanos());
+        frame.setTickP99Nanos(tickTimer.getPercentileNanos(0.99));
+        frame.setProfiledTicks(tickTimer.getCount());
+
+        long since = tickTimer.getOldestStartNanos();
+        frame.setGcPauses(gcMonitor.countPausesSince(since));
+        frame.setGcPauseNanos(gcMonitor.getPauseNanosSince(since));
+        frame.setGcOverlappedTicks(tickTimer.countGcOverlaps(gcMonitor));
+        frame.setProfiled(true);
+    }
+
+}
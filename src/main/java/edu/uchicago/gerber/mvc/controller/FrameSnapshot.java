@@ -0,0 +1,193 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import edu.uchicago.gerber.mvc.model.EntityCensus;
+import edu.uchicago.gerber.mvc.model.Falcon;
+import edu.uchicago.gerber.mvc.model.Movable;
+import edu.uchicago.gerber.mvc.model.MovableList;
+import edu.uchicago.gerber.mvc.model.prime.VectorGeometry;
+import lombok.Data;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ Everything the render thread needs to draw one frame, captured by the simulation thread at the end of a tick: the
+ values shown in the heads-up display, and a list of drawing instructions (Items) recorded by the draw() method of
+ each Movable. The render thread never touches the Movables themselves.
+
+ Snapshots are pooled: a TripleBuffer owns three of them, and they are reused along with their Items for the life of
+ the game, so capturing a frame does not allocate in steady-state. Once published, a snapshot is not written again
+ until the render thread has moved on to a newer one. Everything an Item refers to (geometries, images and colors) is
+ never modified by the simulation once created.
+
+ Positions are recorded as of both the previous tick and the current tick, so that the renderer can interpolate
+ between them. See GamePanel.render()
+ */
+@Data
+public class FrameSnapshot {
+
+    public enum Shape {POLYGON, IMAGE, OVAL, FILL_OVAL, RECT, FILL_RECT}
+
+    //one drawing instruction
+    @Data
+    public static class Item {
+        private Shape shape;
+        private Color color;
+        //the position at the current and at the previous tick, e.g. the center-point of a sprite
+        private int x, y, prevX, prevY;
+        //POLYGON and IMAGE: the orientation at the current and at the previous tick, and the radius to scale to
+        private int orientation, prevOrientation;
+        private int radius;
+        //OVAL and RECT: the bounding-box, relative to the position
+        private int offsetX, offsetY, width, height;
+        //POLYGON: the polygon of the sprite. IMAGE: the image.
+        private VectorGeometry geometry;
+        private BufferedImage image;
+    }
+
+    //false until the first tick has been captured
+    private boolean captured;
+    //the System.nanoTime() at which the tick was due; the renderer interpolates from this moment
+    private long tickTime;
+
+    //heads-up display
+    private long frame;
+    private long redundantOps;
+    private boolean gameOver;
+    private boolean paused;
+    private int level;
+    private CommandCenter.Universe universe;
+    private long score;
+    private int numFalcons;
+    private int shield;
+    private int nukeMeter;
+    private int showLevel;
+    private boolean maxSpeedAttained;
+    //the number of movables on each team
+    private int numDebris, numFloaters, numFoes, numFriends;
+    //the number of Asteroids of each size, from the EntityCensus
+    private int numLargeAsteroids, numMediumAsteroids, numSmallAsteroids;
+
+    //the profiler overlay, captured only while it is shown. See FrameProfiler
+    private boolean profiled;
+    //the mean and 99th-percentile nanos of each Simulation.Stage, indexed by ordinal, over the most recent ticks
+    private final long[] stageMeanNanos = new long[Simulation.Stage.values().length];
+    private final long[] stageP99Nanos = new long[Simulation.Stage.values().length];
+    //the same for drawing the movables into a snapshot, and for the whole tick
+    private long drawMeanNanos, drawP99Nanos;
+    private long tickMeanNanos, tickP99Nanos;
+    private int profiledTicks;
+    //the GC pauses during those ticks, and the number of ticks that a pause overlapped. See GcMonitor
+    private int gcPauses;
+    private long gcPauseNanos;
+    private int gcOverlappedTicks;
+
+    //Items in use are items.get(0) through items.get(numItems - 1); the rest are spares for the next capture
+    private final List<Item> items = new ArrayList<>();
+    private int numItems;
+
+    //simulation thread only
+    public void capture(CommandCenter commandCenter, long tickTime) {
+
+        numItems = 0;
+        this.tickTime = tickTime;
+        profiled = false;
+
+        frame = commandCenter.getFrame();
+        redundantOps = commandCenter.getRedundantOps();
+        gameOver = commandCenter.isGameOver();
+        paused = commandCenter.isPaused();
+        level = commandCenter.getLevel();
+        universe = commandCenter.getUniverse();
+        score = commandCenter.getScore();
+        numFalcons = commandCenter.getNumFalcons();
+        Falcon falcon = commandCenter.getFalcon();
+        shield = falcon.getShield();
+        nukeMeter = falcon.getNukeMeter();
+        showLevel = falcon.getShowLevel();
+        maxSpeedAttained = falcon.isMaxSpeedAttained();
+        numDebris = commandCenter.getMovDebris().size();
+        numFloaters = commandCenter.getMovFloaters().size();
+        numFoes = commandCenter.getMovFoes().size();
+        numFriends = commandCenter.getMovFriends().size();
+        EntityCensus census = commandCenter.getCensus();
+        numLargeAsteroids = census.getAsteroids(EntityCensus.LARGE);
+        numMediumAsteroids = census.getAsteroids(EntityCensus.MEDIUM);
+        numSmallAsteroids = census.getAsteroids(EntityCensus.SMALL);
+
+        //movables are drawn only while playing and not paused
+        if (!gameOver && !paused) {
+            for (int t = 0; t < commandCenter.getNumTeams(); t++) {
+                MovableList team = commandCenter.getTeam(t);
+                for (Movable mov : team) {
+                    mov.draw(this);
+                }
+            }
+        }
+        captured = true;
+    }
+
+    //a polygon, rotated by orientation, scaled to radius, and translated to center. See Sprite
+    public void addPolygon(Point center, Point prevCenter, int orientation, int prevOrientation, int radius,
+                           VectorGeometry geometry, Color color) {
+        Item item = nextItem(Shape.POLYGON, color, center.x, center.y, prevCenter.x, prevCenter.y);
+        item.orientation = orientation;
+        item.prevOrientation = prevOrientation;
+        item.radius = radius;
+        item.geometry = geometry;
+    }
+
+    //an image, rotated by orientation, scaled to a square of radius * 2, and centered on center. See Sprite
+    public void addImage(Point center, Point prevCenter, int orientation, int prevOrientation, int radius,
+                         BufferedImage image) {
+        if (image == null) return;
+        Item item = nextItem(Shape.IMAGE, null, center.x, center.y, prevCenter.x, prevCenter.y);
+        item.orientation = orientation;
+        item.prevOrientation = prevOrientation;
+        item.radius = radius;
+        item.image = image;
+    }
+
+    //an oval (or, if fill, a filled oval) whose bounding-box is (offsetX, offsetY, width, height) relative to position
+    public void addOval(Point position, Point prevPosition, int offsetX, int offsetY, int width, int height,
+                        Color color, boolean fill) {
+        Item item = nextItem(fill ? Shape.FILL_OVAL : Shape.OVAL, color, position.x, position.y, prevPosition.x,
+                prevPosition.y);
+        setBox(item, offsetX, offsetY, width, height);
+    }
+
+    //a rectangle (or, if fill, a filled rectangle) at a fixed position on the screen, e.g. in the mini-map
+    public void addRect(int x, int y, int width, int height, Color color, boolean fill) {
+        Item item = nextItem(fill ? Shape.FILL_RECT : Shape.RECT, color, x, y, x, y);
+        setBox(item, 0, 0, width, height);
+    }
+
+    public Item getItem(int index) {
+        return items.get(index);
+    }
+
+    private static void setBox(Item item, int offsetX, int offsetY, int width, int height) {
+        item.offsetX = offsetX;
+        item.offsetY = offsetY;
+        item.width = width;
+        item.height = height;
+    }
+
+    private Item nextItem(Shape shape, Color color, int x, int y, int prevX, int prevY) {
+        if (numItems == items.size()) items.add(new Item());
+        Item item = items.get(numItems++);
+        item.shape = shape;
+        item.color = color;
+        item.x = x;
+        item.y = y;
+        item.prevX = prevX;
+        item.prevY = prevY;
+        //release references left over from the item's previous use
+        item.geometry = null;
+        item.image = null;
+        return item;
+    }
+
+}
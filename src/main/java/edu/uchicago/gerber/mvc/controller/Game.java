@@ -1,13 +1,16 @@
 package edu.uchicago.gerber.mvc.controller;
 
-import edu.uchicago.gerber.mvc.model.*;
+import edu.uchicago.gerber.mvc.model.MovableList;
 import edu.uchicago.gerber.mvc.view.GamePanel;
 
 import java.awt.*;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
-import java.util.LinkedList;
-import java.util.Random;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 
 
 // ===============================================
@@ -25,14 +28,42 @@ public class Game implements Runnable, KeyListener {
 
 
     private final GamePanel gamePanel;
-    //this is used throughout many classes.
-    public static final Random R = new Random();
 
-    public final static int ANIMATION_DELAY = 40; // milliseconds between frames
+    public final static int ANIMATION_DELAY = 40; // milliseconds between frames (ticks) of the simulation
 
     public final static int FRAMES_PER_SECOND = 1000 / ANIMATION_DELAY;
 
-    private final Thread animationThread;
+    //renders per second, unless given on the command line, e.g. --fps=120. See render()
+    public final static int DEFAULT_RENDER_FPS = 60;
+    //after a stall of more than this many ticks (e.g. the machine was suspended), drop the rest rather than catch up
+    private final static int MAX_CATCH_UP_TICKS = 5;
+    //how the simulation catches up after a stall, unless given on the command line, e.g. --catch-up=stretch
+    public final static FramePacer.CatchUp DEFAULT_CATCH_UP = FramePacer.CatchUp.BURST;
+
+    //wake the simulation and render threads when their next tick or render is due. See run() and render()
+    private final FramePacer tickPacer;
+    private final FramePacer renderPacer;
+
+    //the simulation thread runs the game; the render thread draws the FrameSnapshots that it publishes
+    private final Thread simulationThread;
+    private final Thread renderThread;
+    private final TripleBuffer<FrameSnapshot> frames = new TripleBuffer<>(FrameSnapshot::new);
+
+    //records the session, if given on the command line, e.g. --record=game.replay; otherwise null. See ReplayWriter
+    private final ReplayWriter replayWriter;
+    //served to Prometheus, if given on the command line, e.g. --metrics=9400; otherwise null. See MetricsServer
+    private final GameMetrics metrics;
+
+    //Key events arrive on the EDT, but all game state belongs to the simulation thread. Each key event is therefore
+    //queued, and handled at the start of the next tick. See processInputs()
+    private final Queue<Runnable> inputs = new ConcurrentLinkedQueue<>();
+
+    //the state of the game, and the game model that advances it one tick at a time on the simulation thread. See tick()
+    private final CommandCenter world;
+    private final Simulation simulation;
+    //the timings of the most recent ticks, shown in an overlay that the PROFILER key toggles. Simulation thread only
+    private final FrameProfiler profiler = new FrameProfiler();
+    private boolean profilerShown;
 
 
     //key-codes
@@ -46,22 +77,44 @@ public class Game implements Runnable, KeyListener {
             FIRE = 32, // space key
             MUTE = 77, // m-key mute
             NUKE = 70, // f-key
-            RADAR = 65; // a-key
+            RADAR = 65, // a-key
+            PROFILER = 79; // o-key
 
 
     // ===============================================
     // ==CONSTRUCTOR
     // ===============================================
 
-    public Game() {
-
+    public Game(CollisionDetector collisionDetector, int renderFps, FramePacer.CatchUp catchUp, CommandCenter world,
+                ReplayWriter replayWriter, GameMetrics metrics) {
+
+        this.world = world;
+        //nothing is drawn yet, and a FrameSnapshot may be drawn as soon as it is published
+        world.setRenderFrame(-1);
+        this.simulation = new Simulation(collisionDetector);
+        this.replayWriter = replayWriter;
+        this.metrics = metrics;
+        tickPacer = new FramePacer("tick", TimeUnit.MILLISECONDS.toNanos(ANIMATION_DELAY), catchUp,
+                MAX_CATCH_UP_TICKS);
+        renderPacer = new FramePacer("render", TimeUnit.SECONDS.toNanos(1) / renderFps, FramePacer.CatchUp.DROP, 1);
+        //show how steadily the threads were paced when the game exits, e.g. on 'Q'
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            tickPacer.getJitter().dump(System.out);
+            renderPacer.getJitter().dump(System.out);
+            if (replayWriter != null) replayWriter.close();
+        }));
         gamePanel = new GamePanel(DIM);
         gamePanel.addKeyListener(this); //Game object implements KeyListener
-        //fire up the animation thread
-        animationThread = new Thread(this); // pass the animation thread a runnable object, the Game object
+        //fire up the simulation thread
+        simulationThread = new Thread(this); // pass the simulation thread a runnable object, the Game object
         //set as daemon so as not to block the main thread from exiting
-        animationThread.setDaemon(true);
-        animationThread.start();
+        simulationThread.setDaemon(true);
+        simulationThread.start();
+
+        //fire up the render thread
+        renderThread = new Thread(this::render);
+        renderThread.setDaemon(true);
+        renderThread.start();
 
 
     }
@@ -72,223 +125,146 @@ public class Game implements Runnable, KeyListener {
 
     public static void main(String[] args) {
 
+        //the collision engine may be selected from the command line, e.g. --collision=sap
+        //see CollisionDetector.create() for the available engines
+        String engine = "grid";
+        int renderFps = DEFAULT_RENDER_FPS;
+        FramePacer.CatchUp catchUp = DEFAULT_CATCH_UP;
+        String record = null;
+        int metricsPort = -1;
+        //seeded from the clock, unless given on the command line, e.g. --seed=42
+        long seed = System.nanoTime();
+        MovableList.Storage storage = MovableList.Storage.OBJECTS;
+        for (String arg : args) {
+            if (arg.startsWith("--collision=")) engine = arg.substring("--collision=".length());
+            //e.g. match the refresh rate of the display
+            if (arg.startsWith("--fps=")) renderFps = Integer.parseInt(arg.substring("--fps=".length()));
+            //e.g. to play the same game again
+            if (arg.startsWith("--seed=")) seed = Long.parseLong(arg.substring("--seed=".length()));
+            //record the session, e.g. to play it back with HeadlessGame --replay=
+            if (arg.startsWith("--record=")) record = arg.substring("--record=".length());
+            //keep the motion state of sprites in objects or arrays; see SpriteArrays
+            if (arg.startsWith("--storage="))
+                storage = MovableList.Storage.valueOf(arg.substring("--storage=".length()).toUpperCase());
+            //serve metrics to Prometheus on localhost, e.g. --metrics=9400
+            if (arg.startsWith("--metrics=")) metricsPort = Integer.parseInt(arg.substring("--metrics=".length()));
+            //drop, burst or stretch; see FramePacer.CatchUp
+            if (arg.startsWith("--catch-up="))
+                catchUp = FramePacer.CatchUp.valueOf(arg.substring("--catch-up=".length()).toUpperCase());
+        }
+        if (renderFps < 1) throw new IllegalArgumentException("--fps must be at least 1");
+        CollisionDetector collisionDetector = CollisionDetector.create(engine);
+        System.out.println("collision engine: " + collisionDetector.getName());
+        System.out.println("seed: " + seed);
+        ReplayWriter replayWriter = null;
+        if (record != null) {
+            try {
+                replayWriter = new ReplayWriter(Paths.get(record), seed);
+                System.out.println("recording: " + record);
+            } catch (IOException e) {
+                System.err.println("cannot record " + record + ": " + e.getMessage());
+            }
+        }
+
+        GameMetrics metrics = null;
+        if (metricsPort >= 0) {
+            try {
+                metrics = new GameMetrics();
+                MetricsServer metricsServer = MetricsServer.start(metricsPort, metrics);
+                System.out.println("metrics: http://localhost:" + metricsServer.getPort() + "/metrics");
+            } catch (IOException e) {
+                metrics = null;
+                System.err.println("cannot serve metrics on port " + metricsPort + ": " + e.getMessage());
+            }
+        }
 
         //typical Swing application start; we pass EventQueue a Runnable object.
-        EventQueue.invokeLater(Game::new);
+        final int fps = renderFps;
+        final FramePacer.CatchUp policy = catchUp;
+        final ReplayWriter writer = replayWriter;
+        final CommandCenter world = new CommandCenter(seed, storage);
+        final GameMetrics gameMetrics = metrics;
+        EventQueue.invokeLater(() -> new Game(collisionDetector, fps, policy, world, writer, gameMetrics));
     }
 
-    // Game implements runnable, and must have run method
+    // Game implements runnable, and must have run method. This is the simulation thread.
     @Override
     public void run() {
 
-        // lower animation thread's priority, thereby yielding to the 'Event Dispatch Thread' or EDT
+        // lower simulation thread's priority, thereby yielding to the 'Event Dispatch Thread' or EDT
         // thread which listens to keystrokes
-        animationThread.setPriority(Thread.MIN_PRIORITY);
-
-        // and get the current time
-        long startTime = System.currentTimeMillis();
-
+        simulationThread.setPriority(Thread.MIN_PRIORITY);
+        //from now on, CommandCenter.getInstance() is this game's world on this thread
+        CommandCenter.bind(world);
+
+        /*
+        The simulation advances in fixed ticks of ANIMATION_DELAY, so the game plays at the same speed on every
+        machine. The tickPacer wakes this thread when the next tick is due; if the thread has fallen behind, the
+        pacer's CatchUp policy decides how many ticks to run back-to-back. After the last of them, the state of the
+        game is captured in a FrameSnapshot and published to the render thread; see render().
+         */
         // this thread animates the scene
-        while (Thread.currentThread() == animationThread) {
-
-
-            //this call will cause all movables to move() and draw() themselves every ~40ms
-            // see GamePanel class for details
-            gamePanel.update(gamePanel.getGraphics());
+        while (Thread.currentThread() == simulationThread) {
 
-            checkCollisions();
-            checkNewLevel();
-            checkFloaters();
-            //this method will execute addToGame() and removeFromGame() callbacks on Movable objects
-            processGameOpsQueue();
-            //keep track of the frame for development purposes
-            CommandCenter.getInstance().incrementFrame();
-
-            // surround the sleep() in a try/catch block
-            // this simply controls delay time between
-            // the frames of the animation
-            try {
-                // The total amount of time is guaranteed to be at least ANIMATION_DELAY long.  If processing (update)
-                // between frames takes longer than ANIMATION_DELAY, then the difference between startTime -
-                // System.currentTimeMillis() will be negative, then zero will be the sleep time
-                startTime += ANIMATION_DELAY;
-
-                Thread.sleep(Math.max(0,
-                        startTime - System.currentTimeMillis()));
-            } catch (InterruptedException e) {
-                // do nothing (bury the exception), and just continue, e.g. skip this frame -- no big deal
+            int ticks = tickPacer.awaitFrame();
+            GameEvents.Frame event = GameEvents.beginFrame();
+            for (int i = 0; i < ticks; i++) {
+                tick();
+            }
+            //the renderer interpolates from the moment the last tick was due
+            FrameSnapshot frame = frames.getBack();
+            long drawStart = System.nanoTime();
+            frame.capture(world, tickPacer.getFrameTime());
+            profiler.recordDraw(drawStart, System.nanoTime());
+            if (profilerShown) profiler.capture(frame);
+            if (event != null && event.shouldCommit()) {
+                event.frame = frame.getFrame();
+                event.ticks = ticks;
+                event.items = frame.getNumItems();
+                event.debris = frame.getNumDebris();
+                event.floaters = frame.getNumFloaters();
+                event.foes = frame.getNumFoes();
+                event.friends = frame.getNumFriends();
+                event.level = frame.getLevel();
+                event.universe = frame.getUniverse() == null ? null : frame.getUniverse().name();
+                event.commit();
             }
+            frames.publish();
         } // end while
     } // end run
 
-    private void checkFloaters() {
-
-        spawnShieldFloater();
-        spawnNukeFloater();
-    }
-
-    /*
-    TODO The following two methods are an example of the Command design pattern. This approach involves deferring
-    mutations to collections (linked lists of Movables) while iterating over them, and then processing the mutations
-    later (in the processGameOpsQueue() method below). The Command design pattern decouples the request for an
-    operation from the  execution of the operation itself. We do this because mutating a data structure while iterating it
-    is dangerous and may lead to null-pointer or array-index-out-of-bounds exceptions, or other erroneous behavior.
-     */
-
-    private void checkCollisions() {
-
-        //This has order-of-growth of O(FOES * FRIENDS)
-        Point pntFriendCenter, pntFoeCenter;
-        int radFriend, radFoe;
-        for (Movable movFriend : CommandCenter.getInstance().getMovFriends()) {
-            for (Movable movFoe : CommandCenter.getInstance().getMovFoes()) {
-
-                pntFriendCenter = movFriend.getCenter();
-                pntFoeCenter = movFoe.getCenter();
-                radFriend = movFriend.getRadius();
-                radFoe = movFoe.getRadius();
-
-                //detect collision
-                if (pntFriendCenter.distance(pntFoeCenter) < (radFriend + radFoe)) {
-                    //enqueue the friend
-                    CommandCenter.getInstance().getOpsQueue().enqueue(movFriend, GameOp.Action.REMOVE);
-                    //enqueue the foe
-                    CommandCenter.getInstance().getOpsQueue().enqueue(movFoe, GameOp.Action.REMOVE);
-                }
-            }//end inner for
-        }//end outer for
-
-        //check for collisions between falcon and floaters. Order of growth of O(FLOATERS)
-        Point pntFalCenter = CommandCenter.getInstance().getFalcon().getCenter();
-        int radFalcon = CommandCenter.getInstance().getFalcon().getRadius();
-
-        Point pntFloaterCenter;
-        int radFloater;
-        for (Movable movFloater : CommandCenter.getInstance().getMovFloaters()) {
-            pntFloaterCenter = movFloater.getCenter();
-            radFloater = movFloater.getRadius();
-            //detect collision
-            if (pntFalCenter.distance(pntFloaterCenter) < (radFalcon + radFloater)) {
-                //enqueue the floater
-                CommandCenter.getInstance().getOpsQueue().enqueue(movFloater, GameOp.Action.REMOVE);
-            }//end if
-        }//end for
-
-    }//end meth
-
-
-    //This method adds and removes movables to/from their respective linked-lists.
-    private void processGameOpsQueue() {
-
-        //deferred mutation: these operations are done AFTER we have completed our collision detection to avoid
-        // mutating the movable linkedlists while iterating them above.
-        while (!CommandCenter.getInstance().getOpsQueue().isEmpty()) {
-
-            GameOp gameOp = CommandCenter.getInstance().getOpsQueue().dequeue();
-
-            //given team, determine which linked-list this object will be added-to or removed-from
-            LinkedList<Movable> list;
-            Movable mov = gameOp.getMovable();
-            switch (mov.getTeam()) {
-                case FOE:
-                    list = CommandCenter.getInstance().getMovFoes();
-                    break;
-                case FRIEND:
-                    list = CommandCenter.getInstance().getMovFriends();
-                    break;
-                case FLOATER:
-                    list = CommandCenter.getInstance().getMovFloaters();
-                    break;
-                case DEBRIS:
-                default:
-                    list = CommandCenter.getInstance().getMovDebris();
+    //The render thread draws the most recent FrameSnapshot as often as renderFps allows, while the simulation thread
+    //is already working on the next tick. Between ticks, each sprite is drawn part of the way from its previous to its
+    //current position, according to how much time has passed since the tick was due.
+    private void render() {
+
+        while (Thread.currentThread() == renderThread) {
+
+            // If rendering falls behind, then don't try to make up the lost renders by rendering faster; renderPacer
+            // drops them
+            renderPacer.awaitFrame();
+
+            FrameSnapshot frame = frames.getFront();
+            if (frame.isCaptured()) {
+                world.setRenderFrame(frame.getFrame());
+                double alpha = (double) (System.nanoTime() - frame.getTickTime()) / tickPacer.getPeriodNanos();
+                //this call will cause all movables to be drawn between their previous and current positions
+                // see GamePanel class for details
+                long renderStart = System.nanoTime();
+                gamePanel.render(frame, Math.max(0.0, Math.min(1.0, alpha)));
+                if (metrics != null) metrics.recordFrameRendered(System.nanoTime() - renderStart);
             }
-
-            //pass the appropriate linked-list from above
-            //this block will execute the addToGame() or removeFromGame() callbacks in the Movable models.
-            GameOp.Action action = gameOp.getAction();
-            if (action == GameOp.Action.ADD)
-                mov.addToGame(list);
-            else //REMOVE
-                mov.removeFromGame(list);
-
-        }//end while
-    }
-
-
-    private void spawnShieldFloater() {
-
-        if (CommandCenter.getInstance().getFrame() % ShieldFloater.SPAWN_SHIELD_FLOATER == 0) {
-            CommandCenter.getInstance().getOpsQueue().enqueue(new ShieldFloater(), GameOp.Action.ADD);
         }
     }
 
-    private void spawnNukeFloater() {
-
-        if (CommandCenter.getInstance().getFrame() % NukeFloater.SPAWN_NUKE_FLOATER == 0) {
-            CommandCenter.getInstance().getOpsQueue().enqueue(new NukeFloater(), GameOp.Action.ADD);
-        }
-    }
-
-
-    //this method spawns new Large (0) Asteroids
-    private void spawnBigAsteroids(int num) {
-
-        while (num-- > 0) {
-            //Asteroids with size of zero are big
-            CommandCenter.getInstance().getOpsQueue().enqueue(new Asteroid(0), GameOp.Action.ADD);
-
-        }
-    }
-
-
-
-
-
-    private boolean isLevelClear() {
-        //if there are no more Asteroids on the screen
-        boolean asteroidFree = true;
-        for (Movable movFoe : CommandCenter.getInstance().getMovFoes()) {
-            if (movFoe instanceof Asteroid) {
-                asteroidFree = false;
-                break;
-            }
-        }
-        return asteroidFree;
-    }
-
-    private void checkNewLevel() {
-
-        //short-circuit if level not yet cleared
-        if (!isLevelClear()) return;
-
-        //currentLevel will be zero at beginning of game
-        int level = CommandCenter.getInstance().getLevel();
-        //award some points for having cleared the previous level
-        CommandCenter.getInstance().setScore(CommandCenter.getInstance().getScore() + (10_000L * level));
-
-        //center the falcon at each level-clear
-        CommandCenter.getInstance().getFalcon().setCenter(new Point(Game.DIM.width / 2, Game.DIM.height / 2));
-
-        //Set universe according to mod of level - cycle through universes
-        int ordinal = level % CommandCenter.Universe.values().length;
-        CommandCenter.Universe key = CommandCenter.Universe.values()[ordinal];
-        CommandCenter.getInstance().setUniverse(key);
-        //players will need radar in the big universes, but they can still toggle it off
-        CommandCenter.getInstance().setRadar(ordinal > 1);
-
-        //bump the level up
-        level = level + 1;
-        CommandCenter.getInstance().setLevel(level);
-        //spawn some big new asteroids
-        spawnBigAsteroids(level);
-        //make falcon invincible momentarily in case new asteroids spawn on top of him, and give player
-        //time to adjust to new universe and new asteroids in game space.
-        CommandCenter.getInstance().getFalcon().setShield(Falcon.INITIAL_SPAWN_TIME);
-        //show "Level: [X] UNIVERSE" in middle of screen
-        CommandCenter.getInstance().getFalcon().setShowLevel(Falcon.INITIAL_SPAWN_TIME);
-
+    //one fixed step of the simulation
+    private void tick() {
 
+        processInputs();
+        simulation.tick();
+        profiler.recordTick(simulation);
+        if (metrics != null) metrics.recordTick(world, simulation);
+        if (replayWriter != null) replayWriter.tick(world, simulation.getStateHash());
     }
 
     // ===============================================
@@ -297,57 +273,41 @@ public class Game implements Runnable, KeyListener {
 
     @Override
     public void keyPressed(KeyEvent e) {
-        Falcon falcon = CommandCenter.getInstance().getFalcon();
         int keyCode = e.getKeyCode();
-        switch (keyCode) {
-            case FIRE:
-                CommandCenter.getInstance().getOpsQueue().enqueue(new Bullet(falcon), GameOp.Action.ADD);
-                break;
-            case NUKE:
-                CommandCenter.getInstance().getOpsQueue().enqueue(new Nuke(falcon), GameOp.Action.ADD);
-                break;
-            case UP:
-                falcon.setThrusting(true);
-                SoundLoader.playSound("whitenoise_loop.wav");
-                break;
-            case LEFT:
-                falcon.setTurnState(Falcon.TurnState.LEFT);
-                break;
-            case RIGHT:
-                falcon.setTurnState(Falcon.TurnState.RIGHT);
-                break;
-            default:
-                break;
-        }
-
+        inputs.add(() -> onKeyPressed(keyCode));
     }
 
     @Override
     public void keyReleased(KeyEvent e) {
-        Falcon falcon = CommandCenter.getInstance().getFalcon();
         int keyCode = e.getKeyCode();
         //show the key-code in the console
         System.out.println(keyCode);
+        inputs.add(() -> onKeyReleased(keyCode));
+    }
 
-        if (keyCode == START && CommandCenter.getInstance().isGameOver()) {
-            CommandCenter.getInstance().initGame();
+    //simulation thread only; handle the key events queued since the last tick, in the order they arrived
+    private void processInputs() {
+        Runnable input;
+        while ((input = inputs.poll()) != null) {
+            input.run();
+        }
+    }
+
+    private void onKeyPressed(int keyCode) {
+        Simulation.Key key = toKey(keyCode);
+        if (key != null) play(key, true);
+    }
+
+    private void onKeyReleased(int keyCode) {
+        Simulation.Key key = toKey(keyCode);
+        if (key != null) {
+            play(key, false);
             return;
         }
 
+        //the rest of the keys control the game itself, rather than play it
         switch (keyCode) {
 
-            //releasing either the LEFT or RIGHT arrow key will set the TurnState to IDLE
-            case LEFT:
-            case RIGHT:
-                falcon.setTurnState(Falcon.TurnState.IDLE);
-                break;
-            case UP:
-                falcon.setThrusting(false);
-                SoundLoader.stopSound("whitenoise_loop.wav");
-                break;
-            case PAUSE:
-                CommandCenter.getInstance().setPaused(!CommandCenter.getInstance().isPaused());
-                break;
             case QUIT:
                 System.exit(0);
                 break;
@@ -365,6 +325,9 @@ public class Game implements Runnable, KeyListener {
                 //toggle the boolean switch
                 CommandCenter.getInstance().setThemeMusic(!CommandCenter.getInstance().isThemeMusic());
                 break;
+            case PROFILER:
+                profilerShown = !profilerShown;
+                break;
             default:
                 break;
 
@@ -372,6 +335,33 @@ public class Game implements Runnable, KeyListener {
 
     }
 
+    //the keys that play the game are recorded (if recording) in the frame that they take effect. See ReplayWriter
+    private void play(Simulation.Key key, boolean pressed) {
+        if (replayWriter != null) replayWriter.input(CommandCenter.getInstance().getFrame(), key, pressed);
+        simulation.input(key, pressed);
+    }
+
+    private static Simulation.Key toKey(int keyCode) {
+        switch (keyCode) {
+            case FIRE:
+                return Simulation.Key.FIRE;
+            case NUKE:
+                return Simulation.Key.NUKE;
+            case UP:
+                return Simulation.Key.UP;
+            case LEFT:
+                return Simulation.Key.LEFT;
+            case RIGHT:
+                return Simulation.Key.RIGHT;
+            case PAUSE:
+                return Simulation.Key.PAUSE;
+            case START:
+                return Simulation.Key.START;
+            default:
+                return null;
+        }
+    }
+
     @Override
     // does nothing, but we need it b/c of KeyListener contract
     public void keyTyped(KeyEvent e) {
@@ -0,0 +1,176 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ JDK Flight Recorder events for the game loop, so that a production session can be recorded at next to no cost and
+ its frame spikes lined up with GC, allocation and lock events in JDK Mission Control, e.g.
+
+   java -XX:StartFlightRecording=filename=game.jfr,settings=profile ...
+
+ Events are committed only while a recording that enables them is running. Each one times the work it describes,
+ between begin() and commit(). The begin methods below create an event only if its type is enabled, and return null
+ otherwise, so that the game loop allocates nothing while no recording is running; an event instance is not reused, as
+ JFR does not support committing one twice. The fields are filled in only if shouldCommit(), so that an event that
+ will not be recorded does no extra work.
+ */
+public class GameEvents {
+
+    private static final String CATEGORY = "Asteroids";
+
+    //one event of each type, never committed, to ask whether the type is enabled without allocating
+    private static final Frame FRAME = new Frame();
+    private static final CollisionPass COLLISION_PASS = new CollisionPass();
+    private static final OpsQueueDrain OPS_QUEUE_DRAIN = new OpsQueueDrain();
+    private static final LevelTransition LEVEL_TRANSITION = new LevelTransition();
+    private static final SoundDispatch SOUND_DISPATCH = new SoundDispatch();
+
+    private GameEvents() {}
+
+    public static Frame beginFrame() {
+        if (!FRAME.isEnabled()) return null;
+        Frame event = new Frame();
+        event.begin();
+        return event;
+    }
+
+    public static CollisionPass beginCollisionPass() {
+        if (!COLLISION_PASS.isEnabled()) return null;
+        CollisionPass event = new CollisionPass();
+        event.begin();
+        return event;
+    }
+
+    public static OpsQueueDrain beginOpsQueueDrain() {
+        if (!OPS_QUEUE_DRAIN.isEnabled()) return null;
+        OpsQueueDrain event = new OpsQueueDrain();
+        event.begin();
+        return event;
+    }
+
+    public static LevelTransition beginLevelTransition() {
+        if (!LEVEL_TRANSITION.isEnabled()) return null;
+        LevelTransition event = new LevelTransition();
+        event.begin();
+        return event;
+    }
+
+    public static SoundDispatch beginSoundDispatch() {
+        if (!SOUND_DISPATCH.isEnabled()) return null;
+        SoundDispatch event = new SoundDispatch();
+        event.begin();
+        return event;
+    }
+
+    @Name("asteroids.Frame")
+    @Label("Frame")
+    @Category(CATEGORY)
+    @Description("The ticks run by one pass of the simulation loop, and the FrameSnapshot captured after them")
+    @StackTrace(false)
+    public static class Frame extends Event {
+        @Label("Frame")
+        public long frame;
+        @Label("Ticks")
+        @Description("More than one when the simulation is catching up after a stall")
+        public int ticks;
+        @Label("Draw Items")
+        public int items;
+        @Label("Debris")
+        public int debris;
+        @Label("Floaters")
+        public int floaters;
+        @Label("Foes")
+        public int foes;
+        @Label("Friends")
+        public int friends;
+        @Label("Level")
+        public int level;
+        @Label("Universe")
+        public String universe;
+    }
+
+    @Name("asteroids.CollisionPass")
+    @Label("Collision Pass")
+    @Category(CATEGORY)
+    @Description("Collision detection and resolution for one tick")
+    @StackTrace(false)
+    public static class CollisionPass extends Event {
+        @Label("Frame")
+        public long frame;
+        @Label("Engine")
+        public String engine;
+        @Label("Friends")
+        public int friends;
+        @Label("Foes")
+        public int foes;
+        @Label("Floaters")
+        public int floaters;
+        @Label("Pairs Tested")
+        @Description("Friend/foe pairs that the broad phase passed to the exact test")
+        public long pairsTested;
+        @Label("Collisions")
+        public int collisions;
+        @Label("Redundant Removes")
+        public int redundantRemoves;
+        @Label("Universe")
+        public String universe;
+    }
+
+    @Name("asteroids.OpsQueueDrain")
+    @Label("Ops Queue Drain")
+    @Category(CATEGORY)
+    @Description("The GameOps of one tick applied to the movables")
+    @StackTrace(false)
+    public static class OpsQueueDrain extends Event {
+        @Label("Frame")
+        public long frame;
+        @Label("Ops Applied")
+        public int opsApplied;
+        @Label("Adds")
+        public int adds;
+        @Label("Removes")
+        public int removes;
+        @Label("Redundant Removes")
+        public int redundantRemoves;
+    }
+
+    @Name("asteroids.LevelTransition")
+    @Label("Level Transition")
+    @Category(CATEGORY)
+    @Description("A level was cleared, and the next one set up")
+    @StackTrace(false)
+    public static class LevelTransition extends Event {
+        @Label("Frame")
+        public long frame;
+        @Label("Cleared Level")
+        public int clearedLevel;
+        @Label("Level")
+        public int level;
+        @Label("Universe")
+        public String universe;
+        @Label("Asteroids Spawned")
+        public int asteroidsSpawned;
+        @Label("Score")
+        public long score;
+    }
+
+    @Name("asteroids.SoundDispatch")
+    @Label("Sound Dispatch")
+    @Category(CATEGORY)
+    @Description("A sound started from the game loop; non-looped clips are then loaded and played on a sound thread")
+    @StackTrace(false)
+    public static class SoundDispatch extends Event {
+        @Label("Sound")
+        public String sound;
+        @Label("Looped")
+        public boolean looped;
+        @Label("Muted")
+        public boolean muted;
+    }
+
+}
@@ -0,0 +1,161 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import edu.uchicago.gerber.mvc.model.EntityCensus;
+
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ The metrics of one running game, served in the Prometheus text format by a MetricsServer: ticks and frames rendered,
+ tick and frame time quantiles, the movables on each team and of each class, the GameOps enqueued and dequeued, the
+ sound tasks waiting for the SoundLoader executor, and the score and level.
+
+ The simulation and render threads record without locks (LongAdders, and ordered writes of the gauges), so a scrape,
+ which reads on the server's own thread, never blocks the game. Tick and frame (render) times are counted in
+ power-of-two buckets of microseconds, like a JitterHistogram; the quantiles are read from the buckets, so each is the
+ upper bound of its bucket.
+ */
+public class GameMetrics {
+
+    private static final int BUCKETS = 22;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+    private static final Simulation.Stage[] STAGES = Simulation.Stage.values();
+
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder framesRendered = new LongAdder();
+    private final LongAdder[] tickBuckets = new LongAdder[BUCKETS];
+    private final LongAdder tickNanos = new LongAdder();
+    private final LongAdder[] frameBuckets = new LongAdder[BUCKETS];
+    private final LongAdder frameNanos = new LongAdder();
+
+    //gauges, written by the simulation thread after each tick
+    private static final int DEBRIS = 0, FLOATERS = 1, FOES = 2, FRIENDS = 3, SCORE = 4, LEVEL = 5;
+    private final AtomicLongArray gauges = new AtomicLongArray(6);
+
+    //the world's queue and census, whose counters are read at scrape time
+    private volatile GameOpsQueue opsQueue;
+    private volatile EntityCensus census;
+
+    public GameMetrics() {
+        for (int i = 0; i < BUCKETS; i++) {
+            tickBuckets[i] = new LongAdder();
+            frameBuckets[i] = new LongAdder();
+        }
+    }
+
+    //simulation thread, after each tick
+    public void recordTick(CommandCenter commandCenter, Simulation simulation) {
+        long tickNanos = simulation.getLastStageEnd(STAGES[STAGES.length - 1])
+                - simulation.getLastStageStart(STAGES[0]);
+        ticks.increment();
+        this.tickNanos.add(tickNanos);
+        tickBuckets[bucketOf(tickNanos / 1_000)].increment();
+
+        opsQueue = commandCenter.getOpsQueue();
+        census = commandCenter.getCensus();
+        gauges.lazySet(DEBRIS, commandCenter.getMovDebris().size());
+        gauges.lazySet(FLOATERS, commandCenter.getMovFloaters().size());
+        gauges.lazySet(FOES, commandCenter.getMovFoes().size());
+        gauges.lazySet(FRIENDS, commandCenter.getMovFriends().size());
+        gauges.lazySet(SCORE, commandCenter.getScore());
+        gauges.lazySet(LEVEL, commandCenter.getLevel());
+    }
+
+    //render thread, after each frame; frameNanos is the time it took to render
+    public void recordFrameRendered(long frameNanos) {
+        framesRendered.increment();
+        this.frameNanos.add(frameNanos);
+        frameBuckets[bucketOf(frameNanos / 1_000)].increment();
+    }
+
+    private static int bucketOf(long micros) {
+        //0 for 0 us, 1 for 1 us, 2 for 2-3 us, 3 for 4-7 us, etc.
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+
+    //the time, in seconds, that the given fraction of the ticks or frames did not exceed
+    private double quantileSeconds(long[] counts, long total, double fraction) {
+        long rank = (long) Math.ceil(fraction * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return (1L << i) / 1e6;
+        }
+        return (1L << (BUCKETS - 1)) / 1e6;
+    }
+
+    //write the metrics in the Prometheus text exposition format, whose lines end in '\n' on every platform
+    public void write(PrintWriter out) {
+
+        counter(out, "asteroids_ticks_total", "Ticks of the simulation", ticks.sum());
+        counter(out, "asteroids_frames_rendered_total", "Frames drawn by the render thread", framesRendered.sum());
+
+        summary(out, "asteroids_tick_seconds", "Time to run one tick of the simulation", tickBuckets, tickNanos);
+        summary(out, "asteroids_frame_seconds", "Time to render one frame", frameBuckets, frameNanos);
+
+        out.print("# HELP asteroids_movables Movables on each team\n");
+        out.print("# TYPE asteroids_movables gauge\n");
+        out.printf("asteroids_movables{team=\"debris\"} %d\n", gauges.get(DEBRIS));
+        out.printf("asteroids_movables{team=\"floaters\"} %d\n", gauges.get(FLOATERS));
+        out.printf("asteroids_movables{team=\"foes\"} %d\n", gauges.get(FOES));
+        out.printf("asteroids_movables{team=\"friends\"} %d\n", gauges.get(FRIENDS));
+
+        EntityCensus census = this.census;
+        if (census != null) {
+            out.print("# HELP asteroids_entities Movables in the game of each class\n");
+            out.print("# TYPE asteroids_entities gauge\n");
+            for (Map.Entry<String, Integer> count : census.getCounts().entrySet()) {
+                out.printf("asteroids_entities{type=\"%s\"} %d\n", count.getKey(), count.getValue());
+            }
+            out.print("# HELP asteroids_asteroids Asteroids in the game of each size\n");
+            out.print("# TYPE asteroids_asteroids gauge\n");
+            out.printf("asteroids_asteroids{size=\"large\"} %d\n", census.getAsteroids(EntityCensus.LARGE));
+            out.printf("asteroids_asteroids{size=\"medium\"} %d\n", census.getAsteroids(EntityCensus.MEDIUM));
+            out.printf("asteroids_asteroids{size=\"small\"} %d\n", census.getAsteroids(EntityCensus.SMALL));
+        }
+
+        GameOpsQueue opsQueue = this.opsQueue;
+        counter(out, "asteroids_ops_enqueued_total", "GameOps enqueued",
+                opsQueue == null ? 0 : opsQueue.getEnqueuedCount());
+        counter(out, "asteroids_ops_dequeued_total", "GameOps dequeued and applied",
+                opsQueue == null ? 0 : opsQueue.getDequeuedCount());
+        gauge(out, "asteroids_ops_queue_high_water", "Most GameOps pending at once, out of the queue's capacity",
+                opsQueue == null ? 0 : opsQueue.getHighWater());
+        gauge(out, "asteroids_ops_queue_capacity", "GameOps the queue can hold",
+                opsQueue == null ? 0 : opsQueue.getCapacity());
+        counter(out, "asteroids_ops_queue_spills_total", "GameOps spilled to the overflow of a full queue",
+                opsQueue == null ? 0 : opsQueue.getSpills());
+
+        gauge(out, "asteroids_sound_tasks_queued", "Sounds waiting for a thread of the SoundLoader executor",
+                SoundLoader.getQueuedSounds());
+        gauge(out, "asteroids_score", "Score of the current game", gauges.get(SCORE));
+        gauge(out, "asteroids_level", "Level of the current game", gauges.get(LEVEL));
+    }
+
+    private void summary(PrintWriter out, String name, String help, LongAdder[] buckets, LongAdder nanos) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        out.printf("# HELP %s %s\n# TYPE %s summary\n", name, help, name);
+        for (double quantile : QUANTILES) {
+            out.printf("%s{quantile=\"%s\"} %s\n", name, quantile,
+                    total == 0 ? "NaN" : String.valueOf(quantileSeconds(counts, total, quantile)));
+        }
+        out.printf("%s_sum %s\n", name, nanos.sum() / 1e9);
+        out.printf("%s_count %d\n", name, total);
+    }
+
+    private static void counter(PrintWriter out, String name, String help, long value) {
+        out.printf("# HELP %s %s\n# TYPE %s counter\n%s %d\n", name, help, name, name, value);
+    }
+
+    private static void gauge(PrintWriter out, String name, String help, long value) {
+        out.printf("# HELP %s %s\n# TYPE %s gauge\n%s %d\n", name, help, name, name, value);
+    }
+
+}
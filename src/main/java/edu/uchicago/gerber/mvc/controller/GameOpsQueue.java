@@ -2,22 +2,159 @@ package edu.uchicago.gerber.mvc.controller;
 
 import edu.uchicago.gerber.mvc.model.Movable;
 
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 
 
 /**
  * Effectively a Queue that enqueues and dequeues Game Operations (add/remove).
- * enqueue() may be called by main and animation threads simultaneously, therefore we
- * use a data structure from the java.util.concurrent package.
+ *
+ * A bounded ring of preallocated op slots, for many producers and a single consumer (the simulation thread of its
+ * world, which also enqueues most ops, e.g. while colliding and while applying the ops themselves). An op is a
+ * position in the ring: a producer claims the next position with a single compareAndSet on the tail, writes the
+ * movable and action into the slot, and publishes it by advancing the slot's sequence. The consumer copies published
+ * ops out in batches with drainTo(), oldest first, and frees their slots by advancing their sequences a lap ahead.
+ * Nothing is locked and nothing is allocated per op.
+ *
+ * The ring does not grow. When capacity ops are pending, enqueue() spills the op to an unbounded overflow queue
+ * instead, since the consumer may itself be the producer and could never make room; failing would stop the game. The
+ * overflow allocates a GameOp per op, and while it holds any op, every new op is spilled behind it, so that ops are
+ * still drained in the order they were enqueued: the ring first, then the overflow. The capacity is many times the ops
+ * of the busiest frame (a nuke through a full level); getHighWater() tells how close a game has come, and getSpills()
+ * how many ops did not fit.
  */
-public class GameOpsQueue extends LinkedBlockingDeque<GameOp> {
+public class GameOpsQueue {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    //the slots, indexed by position & mask
+    private final Movable[] movables;
+    private final GameOp.Action[] actions;
+    //the position a slot is free for, or that position + 1 once its op is published. Starts at the slot's index
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    //the next position to claim, i.e. the number of ops ever enqueued
+    private final AtomicLong tail = new AtomicLong();
+    //the next position to drain, i.e. the number of ops ever dequeued; written by the consumer only
+    private volatile long head;
+    //the most ops that drainTo() has found pending at once; written by the consumer only
+    private volatile int highWater;
+
+    //the ops that did not fit in the ring, oldest first
+    private final ConcurrentLinkedQueue<GameOp> overflow = new ConcurrentLinkedQueue<>();
+    //the number of ops ever spilled to the overflow, counted before the op is offered to it
+    private final AtomicLong spills = new AtomicLong();
+    //the number of ops ever drained from the overflow; written by the consumer only
+    private volatile long overflowDrained;
+
+    public GameOpsQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    //capacity is rounded up to a power of two
+    public GameOpsQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        movables = new Movable[size];
+        actions = new GameOp.Action[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+    }
 
     public void enqueue(Movable mov, GameOp.Action action) {
-        addLast(new GameOp(mov, action));
+        //behind ops that are already in the overflow
+        if (spills.get() != overflowDrained) {
+            spill(mov, action);
+            return;
+        }
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) position & mask;
+            long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) break;
+            } else if (sequence < position) {
+                //the slot still holds the op of the previous lap, i.e. the ring is full
+                spill(mov, action);
+                return;
+            }
+            //else another producer claimed the position first; try the next one
+        }
+        movables[index] = mov;
+        actions[index] = action;
+        sequences.lazySet(index, position + 1);
+    }
+
+    private void spill(Movable mov, GameOp.Action action) {
+        spills.incrementAndGet();
+        overflow.offer(new GameOp(mov, action));
+    }
+
+    //Copy up to batch.length of the pending ops, oldest first, into the given GameOps, and free their slots. Returns
+    //the number copied; 0 once the queue is empty. Ops enqueued meanwhile are returned by the next call. Consumer only
+    public int drainTo(GameOp[] batch) {
+        long position = head;
+        long drained = overflowDrained;
+        int pending = (int) (tail.get() - position + spills.get() - drained);
+        if (pending > highWater) highWater = pending;
+
+        int count = 0;
+        while (count < batch.length) {
+            int index = (int) position & mask;
+            //stop at the first op not yet published, so that ops are always applied in the order they were claimed
+            if (sequences.get(index) != position + 1) break;
+            GameOp op = batch[count++];
+            op.setMovable(movables[index]);
+            op.setAction(actions[index]);
+            movables[index] = null;
+            sequences.lazySet(index, position + movables.length);
+            position++;
+        }
+        head = position;
+
+        //the overflow only once the ring is empty, as every op in the ring was enqueued before any op in the overflow
+        if (position == tail.get()) {
+            GameOp spilled;
+            while (count < batch.length && (spilled = overflow.poll()) != null) {
+                GameOp op = batch[count++];
+                op.setMovable(spilled.getMovable());
+                op.setAction(spilled.getAction());
+                drained++;
+            }
+            overflowDrained = drained;
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return head == tail.get() && spills.get() == overflowDrained;
+    }
+
+    public int getCapacity() {
+        return movables.length;
+    }
+
+    public int getHighWater() {
+        return highWater;
+    }
+
+    //the number of ops ever enqueued that did not fit in the ring
+    public long getSpills() {
+        return spills.get();
+    }
+
+    public long getEnqueuedCount() {
+        return tail.get() + spills.get();
     }
 
-    public GameOp dequeue() {
-        return removeFirst();
+    public long getDequeuedCount() {
+        return head + overflowDrained;
     }
 }
@@ -0,0 +1,97 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/*
+ The most recent garbage collection pauses of the JVM, as reported by the GarbageCollectorMXBean notifications, kept
+ as System.nanoTime() intervals so that they can be matched against frame timings; see RollingTimer. A notification
+ arrives just after its collection ends, so the pause is taken to end at that moment. Concurrent collection cycles,
+ which do not stop the game, are not counted.
+
+ The notifications arrive on a JMX thread, while the simulation thread reads the pauses, so access is synchronized.
+ Neither side allocates while holding the lock.
+ */
+public class GcMonitor {
+
+    //the number of most recent pauses kept
+    private static final int CAPACITY = 64;
+
+    private static GcMonitor instance;
+
+    private final long[] starts = new long[CAPACITY];
+    private final long[] ends = new long[CAPACITY];
+    private int next;
+    private int count;
+
+    private GcMonitor() {
+        NotificationListener listener = (notification, handback) -> {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                return;
+            }
+            GarbageCollectionNotificationInfo info =
+                    GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            //e.g. "end of concurrent GC pause" for G1, or the "ZGC Cycles" collector
+            if (info.getGcAction().contains("concurrent") || info.getGcName().endsWith("Cycles")) return;
+            long end = System.nanoTime();
+            add(end - TimeUnit.MILLISECONDS.toNanos(info.getGcInfo().getDuration()), end);
+        };
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                ((NotificationEmitter) collector).addNotificationListener(listener, null, null);
+            }
+        }
+    }
+
+    //the pauses are the same for every world in the JVM, so there is one monitor, which is installed on first use
+    public static synchronized GcMonitor getInstance() {
+        if (instance == null) instance = new GcMonitor();
+        return instance;
+    }
+
+    private synchronized void add(long startNanos, long endNanos) {
+        starts[next] = startNanos;
+        ends[next] = endNanos;
+        next = (next + 1) % CAPACITY;
+        if (count < CAPACITY) count++;
+    }
+
+    //the number of the given intervals that overlap a pause
+    public synchronized int countOverlaps(long[] intervalStarts, long[] intervalEnds, int numIntervals) {
+        int overlaps = 0;
+        for (int i = 0; i < numIntervals; i++) {
+            for (int j = 0; j < count; j++) {
+                if (starts[j] < intervalEnds[i] && intervalStarts[i] < ends[j]) {
+                    overlaps++;
+                    break;
+                }
+            }
+        }
+        return overlaps;
+    }
+
+    //the number of pauses that ended since the given System.nanoTime()
+    public synchronized int countPausesSince(long sinceNanos) {
+        int pauses = 0;
+        for (int j = 0; j < count; j++) {
+            if (ends[j] - sinceNanos > 0) pauses++;
+        }
+        return pauses;
+    }
+
+    //the total time paused since the given System.nanoTime()
+    public synchronized long getPauseNanosSince(long sinceNanos) {
+        long nanos = 0;
+        for (int j = 0; j < count; j++) {
+            if (ends[j] - sinceNanos > 0) nanos += ends[j] - Math.max(starts[j], sinceNanos);
+        }
+        return nanos;
+    }
+
+}
@@ -0,0 +1,204 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import edu.uchicago.gerber.mvc.model.MovableList;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/*
+ Runs the game model without a window, sound or pacing: the Simulation ticks as fast as the CPU allows, running the
+ very same stages as the interactive Game, so that benchmarks, CI and soak tests measure the real hot paths on
+ machines with no display. Whenever the falcons run out, a new game is started.
+
+ Run the main() method of this class, e.g. with --ticks=100000 --collision=sap. On exit (including Ctrl-C), it
+ reports ticks per second, the number of movables on each team, and the time spent in each stage of the tick.
+
+ Given the same --seed, two runs are identical, which the rolling StateHash in the report proves. To find the tick at
+ which two runs diverge, print the hashes along the way with e.g. --hash-every=1 and diff the output.
+
+ With --replay=game.replay, a session recorded by Game --record= is played back instead, e.g. as a workload for
+ performance regression tests, and the final state is checked against the recording. --seek=N starts the playback
+ from the last keyframe at or before frame N. See Replay
+ */
+public class HeadlessGame {
+
+    //ticks to run, unless given on the command line, e.g. --ticks=100000
+    public static final long DEFAULT_TICKS = 10_000;
+
+    private final CommandCenter world;
+    private final Simulation simulation;
+    private final long maxTicks;
+    //print the state hash every this many ticks; 0 for never
+    private final long hashEvery;
+    //the recording played back, or null to play without input. See ReplayReader
+    private final ReplayReader replay;
+    //served to Prometheus, if given on the command line, e.g. --metrics=9400; otherwise null. See MetricsServer
+    private GameMetrics metrics;
+    //cleared by the shutdown hook, e.g. on Ctrl-C, to end the run after the current tick
+    private volatile boolean running = true;
+
+    private long elapsedNanos;
+    private long games;
+    //the most movables seen on each team at the end of any tick: debris, floaters, foes, friends
+    private int peakDebris, peakFloaters, peakFoes, peakFriends;
+
+    public HeadlessGame(CommandCenter world, CollisionDetector collisionDetector, long maxTicks, long hashEvery,
+                        ReplayReader replay) {
+        this.world = world;
+        this.simulation = new Simulation(collisionDetector);
+        this.maxTicks = maxTicks;
+        this.hashEvery = hashEvery;
+        this.replay = replay;
+    }
+
+    public static void main(String[] args) throws IOException {
+
+        String engine = "grid";
+        long maxTicks = DEFAULT_TICKS;
+        long hashEvery = 0;
+        String replayPath = null;
+        long seek = 0;
+        Long seed = null;
+        int metricsPort = -1;
+        MovableList.Storage storage = MovableList.Storage.OBJECTS;
+        for (String arg : args) {
+            if (arg.startsWith("--collision=")) engine = arg.substring("--collision=".length());
+            if (arg.startsWith("--ticks=")) maxTicks = Long.parseLong(arg.substring("--ticks=".length()));
+            if (arg.startsWith("--seed=")) seed = Long.parseLong(arg.substring("--seed=".length()));
+            if (arg.startsWith("--hash-every=")) hashEvery = Long.parseLong(arg.substring("--hash-every=".length()));
+            if (arg.startsWith("--replay=")) replayPath = arg.substring("--replay=".length());
+            if (arg.startsWith("--seek=")) seek = Long.parseLong(arg.substring("--seek=".length()));
+            if (arg.startsWith("--storage="))
+                storage = MovableList.Storage.valueOf(arg.substring("--storage=".length()).toUpperCase());
+            if (arg.startsWith("--metrics=")) metricsPort = Integer.parseInt(arg.substring("--metrics=".length()));
+        }
+        if (maxTicks < 1) throw new IllegalArgumentException("--ticks must be at least 1");
+        if (seek < 0) throw new IllegalArgumentException("--seek must not be negative");
+        if (hashEvery < 0) throw new IllegalArgumentException("--hash-every must not be negative");
+
+        //no display and no audio device are needed
+        System.setProperty("java.awt.headless", "true");
+        SoundLoader.setMuted(true);
+
+        CollisionDetector collisionDetector = CollisionDetector.create(engine);
+        System.out.println("collision engine: " + collisionDetector.getName());
+        System.out.println("storage: " + storage.name().toLowerCase());
+
+        ReplayReader replay = null;
+        if (replayPath != null) {
+            replay = ReplayReader.open(Paths.get(replayPath));
+            seed = replay.getSeed();
+            System.out.printf("replay: %s, %,d frames, %d keyframes%s%n", replayPath, replay.getLastFrame(),
+                    replay.getNumKeyframes(), replay.isComplete() ? "" : " (incomplete)");
+        }
+        //seeded from the clock, unless given on the command line or by the replay
+        CommandCenter world = new CommandCenter(seed == null ? System.nanoTime() : seed, storage);
+        if (replay != null) {
+            if (seek > 0) {
+                long keyframe = replay.seek(seek, world);
+                System.out.println(keyframe < 0 ? "no keyframe before frame " + seek + "; playing from frame 0"
+                        : "playing from the keyframe at frame " + keyframe);
+            }
+            //play to the end of the recording
+            maxTicks = replay.getLastFrame() - world.getFrame();
+        }
+        System.out.println("seed: " + world.getRng().getSeed());
+        HeadlessGame headlessGame = new HeadlessGame(world, collisionDetector, maxTicks, hashEvery, replay);
+        MetricsServer metricsServer = null;
+        if (metricsPort >= 0) {
+            headlessGame.metrics = new GameMetrics();
+            metricsServer = MetricsServer.start(metricsPort, headlessGame.metrics);
+            System.out.println("metrics: http://localhost:" + metricsServer.getPort() + "/metrics");
+        }
+
+        //if the run is interrupted, e.g. by Ctrl-C, stop after the current tick and report what we have
+        Thread mainThread = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (!headlessGame.running) return;
+            headlessGame.running = false;
+            try {
+                mainThread.join(TimeUnit.SECONDS.toMillis(1));
+            } catch (InterruptedException e) {
+                // do nothing (bury the exception), and just report what we have
+            }
+            headlessGame.report();
+        }));
+
+        headlessGame.run();
+        if (headlessGame.running) {
+            headlessGame.running = false;
+            headlessGame.report();
+        }
+        if (metricsServer != null) metricsServer.stop();
+    }
+
+    public void run() {
+
+        CommandCenter previous = CommandCenter.bind(world);
+        long start = System.nanoTime();
+        while (running && simulation.getTicks() < maxTicks) {
+            if (replay != null) {
+                //the recorded keys, including 'S' to start each game
+                replay.play(world.getFrame(), simulation);
+            } else if (world.isGameOver()) {
+                world.initGame();
+                games++;
+            }
+            simulation.tick();
+            if (metrics != null) metrics.recordTick(world, simulation);
+            updatePeaks();
+            if (hashEvery > 0 && simulation.getTicks() % hashEvery == 0) {
+                System.out.printf("tick %d state %016x rolling %016x%n", simulation.getTicks(),
+                        simulation.getStateHash(), simulation.getRollingHash());
+            }
+            //kept up to date, so that an interrupted run reports correctly
+            elapsedNanos = System.nanoTime() - start;
+        }
+        CommandCenter.bind(previous);
+    }
+
+    private void updatePeaks() {
+        peakDebris = Math.max(peakDebris, world.getMovDebris().size());
+        peakFloaters = Math.max(peakFloaters, world.getMovFloaters().size());
+        peakFoes = Math.max(peakFoes, world.getMovFoes().size());
+        peakFriends = Math.max(peakFriends, world.getMovFriends().size());
+    }
+
+    public void report() {
+
+        long ticks = simulation.getTicks();
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("ticks: %,d in %.3f s = %,.0f ticks/sec (%.1fx real time)%n", ticks, seconds,
+                ticks / seconds, ticks / seconds / Game.FRAMES_PER_SECOND);
+        System.out.printf("games: %,d  level: %d  score: %,d%n", games, world.getLevel(),
+                world.getScore());
+        System.out.printf("seed: %d  rolling state hash: %016x%n", world.getRng().getSeed(), simulation.getRollingHash());
+        if (replay != null && replay.isComplete() && world.getFrame() == replay.getLastFrame()) {
+            System.out.println(simulation.getStateHash() == replay.getEndStateHash()
+                    ? "replay verified: the final state matches the recording"
+                    : "REPLAY DIVERGED: the final state differs from the recording");
+        }
+
+        System.out.printf("%10s %8s %8s%n", "team", "final", "peak");
+        System.out.printf("%10s %8d %8d%n", "debris", world.getMovDebris().size(), peakDebris);
+        System.out.printf("%10s %8d %8d%n", "floaters", world.getMovFloaters().size(), peakFloaters);
+        System.out.printf("%10s %8d %8d%n", "foes", world.getMovFoes().size(), peakFoes);
+        System.out.printf("%10s %8d %8d%n", "friends", world.getMovFriends().size(), peakFriends);
+        System.out.printf("ops: %,d  most pending at once: %d of %d  spilled: %,d%n",
+                world.getOpsQueue().getDequeuedCount(), world.getOpsQueue().getHighWater(),
+                world.getOpsQueue().getCapacity(), world.getOpsQueue().getSpills());
+
+        long totalNanos = 0;
+        for (Simulation.Stage stage : Simulation.Stage.values()) {
+            totalNanos += simulation.getStageNanos(stage);
+        }
+        System.out.printf("%10s %10s %10s %8s%n", "stage", "total ms", "us/tick", "share");
+        for (Simulation.Stage stage : Simulation.Stage.values()) {
+            long nanos = simulation.getStageNanos(stage);
+            System.out.printf("%10s %10.1f %10.2f %7.1f%%%n", stage, TimeUnit.NANOSECONDS.toMicros(nanos) / 1e3,
+                    ticks == 0 ? 0.0 : nanos / 1e3 / ticks, totalNanos == 0 ? 0.0 : 100.0 * nanos / totalNanos);
+        }
+    }
+
+}
@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 /*
@@ -15,6 +16,8 @@ All raster images loaded in static context prior to runtime.
 public class ImageLoader {
 
     private static Map<String, BufferedImage> IMAGE_MAP = null;
+    //1-bit collision masks, built once per image. Keyed by identity, as sprites hold references to the images.
+    private static final Map<BufferedImage, AlphaMask> MASK_MAP = new IdentityHashMap<>();
     static {
             Path rootDirectory = Paths.get("src/main/resources/imgs");
             Map<String, BufferedImage> localMap = null;
@@ -24,6 +27,11 @@ public class ImageLoader {
                 e.fillInStackTrace();
             }
             IMAGE_MAP = localMap;
+            if (IMAGE_MAP != null) {
+                for (BufferedImage bufferedImage : IMAGE_MAP.values()) {
+                    MASK_MAP.put(bufferedImage, new AlphaMask(bufferedImage));
+                }
+            }
     }
 
     /*
@@ -65,5 +73,10 @@ public class ImageLoader {
 
     }
 
+    //fetch the collision mask of an image returned by getImage(), or null if there is none
+    public static AlphaMask getMask(BufferedImage bufferedImage) {
+            return MASK_MAP.get(bufferedImage);
+    }
+
 
 }
@@ -0,0 +1,89 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ A histogram of frame-to-frame interval errors, i.e. how far the time between two frames was from the period that
+ a FramePacer aims for, in either direction. The errors are counted in power-of-two buckets of microseconds: bucket
+ 0 counts errors below 1 us, and bucket i counts errors from 2^(i-1) up to 2^i us; the last bucket counts everything
+ beyond.
+
+ One thread records (the thread being paced), while any other thread may read the histogram at runtime.
+ */
+public class JitterHistogram {
+
+    private static final int BUCKETS = 22;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    //intervals that were longer than the period, e.g. the thread woke up late
+    private final AtomicLong late = new AtomicLong();
+    private final AtomicLong sumMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public JitterHistogram(String name) {
+        this.name = name;
+    }
+
+    //errorNanos is the measured interval minus the period; negative if the frame came early
+    public void record(long errorNanos) {
+        long micros = Math.abs(errorNanos) / 1_000;
+        counts.incrementAndGet(bucketOf(micros));
+        count.incrementAndGet();
+        if (errorNanos > 0) late.incrementAndGet();
+        sumMicros.addAndGet(micros);
+        if (micros > maxMicros.get()) maxMicros.set(micros);
+    }
+
+    private static int bucketOf(long micros) {
+        //0 for 0 us, 1 for 1 us, 2 for 2-3 us, 3 for 4-7 us, etc.
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+
+    //the exclusive upper bound, in microseconds, of the errors counted in the bucket
+    private static long upperMicros(int bucket) {
+        return 1L << bucket;
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    public double getMeanMicros() {
+        long n = count.get();
+        return n == 0 ? 0.0 : (double) sumMicros.get() / n;
+    }
+
+    //an upper bound on the error, in microseconds, of the given fraction of frames, e.g. 0.99 for the p99
+    public long getPercentileMicros(double fraction) {
+        long n = count.get();
+        if (n == 0) return 0;
+        long target = (long) Math.ceil(fraction * n);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS - 1; i++) {
+            seen += counts.get(i);
+            if (seen >= target) return upperMicros(i);
+        }
+        return getMaxMicros();
+    }
+
+    public void dump(PrintStream out) {
+        out.printf("%s frame jitter: %,d intervals (%,d late), mean %.1f us, p50 < %,d us, p99 < %,d us, max %,d us%n",
+                name, getCount(), late.get(), getMeanMicros(), getPercentileMicros(0.50),
+                getPercentileMicros(0.99), getMaxMicros());
+        for (int i = 0; i < BUCKETS; i++) {
+            long bucketCount = counts.get(i);
+            if (bucketCount == 0) continue;
+            String range = i == BUCKETS - 1 ? ">= " + upperMicros(i - 1) : "< " + upperMicros(i);
+            out.printf("%14s us %10d%n", range, bucketCount);
+        }
+    }
+
+}
@@ -0,0 +1,279 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import edu.uchicago.gerber.mvc.model.*;
+
+import java.awt.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ The full state of the world between two ticks, as written in a replay (see Replay): the streams of the Rng, the
+ game values of the CommandCenter, and every field of every movable that can change during a game. Fields that a
+ constructor always sets the same way (e.g. images, and the shapes of everything but asteroids) are not written.
+
+ To restore a movable, it is constructed anew, and then its fields are overwritten. Constructors draw random numbers,
+ so the Rng streams are restored last. The StateHash of the world is written too, and checked after restoring; if it
+ differs, a field that matters is missing here.
+ */
+public class Keyframe {
+
+    //the concrete classes of movables, as written in a keyframe. Every class of movable in the game must be listed
+    private enum Kind {FALCON, MINI_MAP, STAR, ASTEROID, BULLET, NUKE, SHIELD_FLOATER, NUKE_FLOATER, WHITE_CLOUD_DEBRIS}
+
+    private Keyframe() {}
+
+    public static byte[] capture(CommandCenter commandCenter) {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            Replay.writeLong(out, StateHash.of(commandCenter));
+
+            long[] streams = commandCenter.getRng().getStreams();
+            Replay.writeVarLong(out, streams.length);
+            for (long stream : streams) {
+                Replay.writeLong(out, stream);
+            }
+
+            writeInt(out, commandCenter.getUniverse() == null ? -1 : commandCenter.getUniverse().ordinal());
+            writeInt(out, commandCenter.getNumFalcons());
+            writeInt(out, commandCenter.getLevel());
+            Replay.writeSignedVarLong(out, commandCenter.getScore());
+            writeBoolean(out, commandCenter.isPaused());
+            writeBoolean(out, commandCenter.isRadar());
+            Replay.writeVarLong(out, commandCenter.getRedundantOps());
+            //the falcon keeps its state even while it is not in play, e.g. its position between games
+            writeFalcon(out, commandCenter.getFalcon());
+
+            for (MovableList team : teams(commandCenter)) {
+                Replay.writeVarLong(out, team.size());
+                for (Movable mov : team) {
+                    writeMovable(out, mov);
+                }
+            }
+        } catch (IOException e) {
+            //a ByteArrayOutputStream does not throw
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    //Replace the world with the one in the keyframe; the frame is restored by the caller
+    public static void restore(ByteBuffer in, CommandCenter commandCenter) {
+
+        long stateHash = in.getLong();
+
+        long[] streams = new long[(int) Replay.readVarLong(in)];
+        for (int i = 0; i < streams.length; i++) {
+            streams[i] = in.getLong();
+        }
+
+        int universe = readInt(in);
+        commandCenter.setUniverse(universe < 0 ? null : CommandCenter.Universe.values()[universe]);
+        commandCenter.setNumFalcons(readInt(in));
+        commandCenter.setLevel(readInt(in));
+        commandCenter.setScore(Replay.readSignedVarLong(in));
+        commandCenter.setPaused(readBoolean(in));
+        commandCenter.setRadar(readBoolean(in));
+        commandCenter.setRedundantOps(Replay.readVarLong(in));
+        readFalcon(in, commandCenter.getFalcon());
+
+        //the movables are constructed in the world, which must be bound to this thread. Bullets kick back the falcon
+        //that fires them, so they are constructed with a stand-in
+        CommandCenter previous = CommandCenter.bind(commandCenter);
+        Falcon standIn = new Falcon();
+        for (MovableList team : teams(commandCenter)) {
+            team.clear();
+            long size = Replay.readVarLong(in);
+            for (long i = 0; i < size; i++) {
+                team.add(readMovable(in, commandCenter, standIn));
+            }
+        }
+        CommandCenter.bind(previous);
+        //the constructors above drew random numbers; now put the streams where they were
+        commandCenter.getRng().setStreams(streams);
+
+        if (StateHash.of(commandCenter) != stateHash) {
+            throw new IllegalStateException("keyframe at frame " + commandCenter.getFrame() + " did not restore the" +
+                    " same world; see Keyframe");
+        }
+    }
+
+    private static List<MovableList> teams(CommandCenter commandCenter) {
+        return Arrays.asList(
+                commandCenter.getMovDebris(),
+                commandCenter.getMovFloaters(),
+                commandCenter.getMovFoes(),
+                commandCenter.getMovFriends());
+    }
+
+    private static void writeMovable(OutputStream out, Movable mov) throws IOException {
+
+        Kind kind = kindOf(mov);
+        Replay.writeVarLong(out, kind.ordinal());
+        switch (kind) {
+            case FALCON:
+            case MINI_MAP:
+                //the one and only, whose state is written once. See capture()
+                break;
+            case STAR:
+                Star star = (Star) mov;
+                writePoint(out, star.getCenter());
+                writePoint(out, star.getPrevCenter());
+                writeInt(out, star.getColor().getRGB());
+                break;
+            case ASTEROID:
+                writeSprite(out, (Sprite) mov);
+                //every asteroid has a random shape
+                Point[] cartesians = ((Sprite) mov).getCartesians();
+                Replay.writeVarLong(out, cartesians.length);
+                for (Point point : cartesians) {
+                    writePoint(out, point);
+                }
+                break;
+            case NUKE:
+                writeSprite(out, (Sprite) mov);
+                writeInt(out, ((Nuke) mov).getNukeState());
+                break;
+            case WHITE_CLOUD_DEBRIS:
+                writeSprite(out, (Sprite) mov);
+                writeInt(out, ((WhiteCloudDebris) mov).getIndex());
+                break;
+            default:
+                writeSprite(out, (Sprite) mov);
+                break;
+        }
+    }
+
+    private static Movable readMovable(ByteBuffer in, CommandCenter commandCenter, Falcon standIn) {
+
+        Kind kind = Kind.values()[(int) Replay.readVarLong(in)];
+        switch (kind) {
+            case FALCON:
+                return commandCenter.getFalcon();
+            case MINI_MAP:
+                return commandCenter.getMiniMap();
+            case STAR:
+                Star star = new Star();
+                star.setCenter(readPoint(in));
+                star.setPrevCenter(readPoint(in));
+                star.setColor(new Color(readInt(in)));
+                return star;
+            case ASTEROID:
+                Asteroid asteroid = new Asteroid(0);
+                readSprite(in, asteroid);
+                Point[] cartesians = new Point[(int) Replay.readVarLong(in)];
+                for (int i = 0; i < cartesians.length; i++) {
+                    cartesians[i] = readPoint(in);
+                }
+                asteroid.setCartesians(cartesians);
+                return asteroid;
+            case BULLET:
+                return readSprite(in, new Bullet(standIn));
+            case NUKE:
+                Nuke nuke = readSprite(in, new Nuke(standIn));
+                nuke.setNukeState(readInt(in));
+                return nuke;
+            case SHIELD_FLOATER:
+                return readSprite(in, new ShieldFloater());
+            case NUKE_FLOATER:
+                return readSprite(in, new NukeFloater());
+            case WHITE_CLOUD_DEBRIS:
+            default:
+                WhiteCloudDebris debris = readSprite(in, new WhiteCloudDebris(standIn));
+                debris.setIndex(readInt(in));
+                return debris;
+        }
+    }
+
+    private static Kind kindOf(Movable mov) {
+        if (mov instanceof Falcon) return Kind.FALCON;
+        if (mov instanceof MiniMap) return Kind.MINI_MAP;
+        if (mov instanceof Star) return Kind.STAR;
+        if (mov instanceof Asteroid) return Kind.ASTEROID;
+        if (mov instanceof Bullet) return Kind.BULLET;
+        if (mov instanceof Nuke) return Kind.NUKE;
+        if (mov instanceof ShieldFloater) return Kind.SHIELD_FLOATER;
+        if (mov instanceof NukeFloater) return Kind.NUKE_FLOATER;
+        if (mov instanceof WhiteCloudDebris) return Kind.WHITE_CLOUD_DEBRIS;
+        throw new IllegalArgumentException(mov.getClass().getSimpleName() + " is not supported; see Keyframe.Kind");
+    }
+
+    private static void writeFalcon(OutputStream out, Falcon falcon) throws IOException {
+        writeSprite(out, falcon);
+        writeInt(out, falcon.getShield());
+        writeInt(out, falcon.getNukeMeter());
+        writeInt(out, falcon.getInvisible());
+        writeBoolean(out, falcon.isMaxSpeedAttained());
+        writeInt(out, falcon.getShowLevel());
+        writeInt(out, falcon.getTurnState().ordinal());
+        writeBoolean(out, falcon.isThrusting());
+    }
+
+    private static void readFalcon(ByteBuffer in, Falcon falcon) {
+        readSprite(in, falcon);
+        falcon.setShield(readInt(in));
+        falcon.setNukeMeter(readInt(in));
+        falcon.setInvisible(readInt(in));
+        falcon.setMaxSpeedAttained(readBoolean(in));
+        falcon.setShowLevel(readInt(in));
+        falcon.setTurnState(Falcon.TurnState.values()[readInt(in)]);
+        falcon.setThrusting(readBoolean(in));
+    }
+
+    //the fields of a Sprite that change during a game
+    private static void writeSprite(OutputStream out, Sprite sprite) throws IOException {
+        writePoint(out, sprite.getCenter());
+        writePoint(out, sprite.getPrevCenter());
+        Replay.writeLong(out, Double.doubleToLongBits(sprite.getDeltaX()));
+        Replay.writeLong(out, Double.doubleToLongBits(sprite.getDeltaY()));
+        writeInt(out, sprite.getRadius());
+        writeInt(out, sprite.getOrientation());
+        writeInt(out, sprite.getPrevOrientation());
+        writeInt(out, sprite.getExpiry());
+        writeInt(out, sprite.getSpin());
+    }
+
+    private static <T extends Sprite> T readSprite(ByteBuffer in, T sprite) {
+        sprite.setCenter(readPoint(in));
+        sprite.setPrevCenter(readPoint(in));
+        sprite.setDeltaX(Double.longBitsToDouble(in.getLong()));
+        sprite.setDeltaY(Double.longBitsToDouble(in.getLong()));
+        sprite.setRadius(readInt(in));
+        sprite.setOrientation(readInt(in));
+        sprite.setPrevOrientation(readInt(in));
+        sprite.setExpiry(readInt(in));
+        sprite.setSpin(readInt(in));
+        return sprite;
+    }
+
+    private static void writePoint(OutputStream out, Point point) throws IOException {
+        writeInt(out, point.x);
+        writeInt(out, point.y);
+    }
+
+    private static Point readPoint(ByteBuffer in) {
+        int x = readInt(in);
+        return new Point(x, readInt(in));
+    }
+
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        Replay.writeSignedVarLong(out, value);
+    }
+
+    private static int readInt(ByteBuffer in) {
+        return (int) Replay.readSignedVarLong(in);
+    }
+
+    private static void writeBoolean(OutputStream out, boolean value) throws IOException {
+        out.write(value ? 1 : 0);
+    }
+
+    private static boolean readBoolean(ByteBuffer in) {
+        return in.get() != 0;
+    }
+
+}
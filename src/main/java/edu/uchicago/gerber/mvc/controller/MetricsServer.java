@@ -0,0 +1,76 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+/*
+ Serves the GameMetrics of a running game at http://localhost:PORT/metrics in the Prometheus text format, using the
+ HTTP server built into the JDK, e.g. started with --metrics=9400 and scraped with
+
+   curl localhost:9400/metrics
+
+ The server listens on the loopback address only, and handles scrapes on its own daemon thread, which reads the
+ metrics without taking any lock that the game holds.
+ */
+public class MetricsServer {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+
+    private MetricsServer(HttpServer server) {
+        this.server = server;
+    }
+
+    public static MetricsServer start(int port, GameMetrics metrics) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> serve(exchange, metrics));
+        server.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+        return new MetricsServer(server);
+    }
+
+    private static void serve(HttpExchange exchange, GameMetrics metrics) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            try (PrintWriter out = new PrintWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8))) {
+                metrics.write(out);
+            }
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.size());
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                body.writeTo(responseBody);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    //the server's dispatcher thread would otherwise keep the JVM alive
+    public void stop() {
+        server.stop(0);
+    }
+
+}
@@ -0,0 +1,65 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import edu.uchicago.gerber.mvc.model.Asteroid;
+import edu.uchicago.gerber.mvc.model.Movable;
+import edu.uchicago.gerber.mvc.model.MovableList;
+
+import java.awt.*;
+
+/*
+ Development tool: compares the storages of a MovableList (see SpriteArrays) by moving a field of Asteroids in the DARK
+ (4x4) universe, with the falcon fixed at the center as in the game, and verifies that both storages leave every
+ Asteroid in the same place. Run the main() method of this class; it does not open a window. Pass the number of
+ Asteroids, e.g. 100000 (the default), and the number of ticks. The budget of one tick is Game.ANIMATION_DELAY.
+ */
+public class MoveBenchmark {
+
+    private static final int WARM_UP_TICKS = 200;
+
+    public static void main(String[] args) {
+
+        int numAsteroids = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        System.setProperty("java.awt.headless", "true");
+        SoundLoader.setMuted(true);
+
+        System.out.printf("%8s %10s %8s %12s %10s %16s%n", "storage", "asteroids", "ticks", "ms/tick", "budget",
+                "checksum");
+        long expected = 0;
+        for (MovableList.Storage storage : MovableList.Storage.values()) {
+            //the same Asteroids every run
+            CommandCenter world = new CommandCenter(42, storage);
+            CommandCenter previous = CommandCenter.bind(world);
+            world.setUniverse(CommandCenter.Universe.DARK);
+            world.getFalcon().setDeltaX(3.5);
+            world.getFalcon().setDeltaY(-2.25);
+            MovableList foes = world.getMovFoes();
+            for (int i = 0; i < numAsteroids; i++) {
+                foes.add(new Asteroid(i % 3));
+            }
+
+            for (int tick = 0; tick < WARM_UP_TICKS; tick++) {
+                foes.moveAll();
+            }
+            long start = System.nanoTime();
+            for (int tick = 0; tick < ticks; tick++) {
+                foes.moveAll();
+            }
+            double msPerTick = (System.nanoTime() - start) / 1e6 / ticks;
+
+            long checksum = 17;
+            for (Movable mov : foes) {
+                Point center = mov.getCenter();
+                checksum = checksum * 31 + center.x;
+                checksum = checksum * 31 + center.y;
+            }
+            if (storage == MovableList.Storage.OBJECTS) expected = checksum;
+            System.out.printf("%8s %10d %8d %12.3f %9.0f%% %16x%s%n", storage.name().toLowerCase(), foes.size(), ticks,
+                    msPerTick, 100 * msPerTick / Game.ANIMATION_DELAY, checksum,
+                    checksum == expected ? "" : "  DIFFERS");
+            CommandCenter.bind(previous);
+        }
+    }
+
+}
@@ -0,0 +1,232 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import edu.uchicago.gerber.mvc.model.Movable;
+import edu.uchicago.gerber.mvc.model.Sprite;
+import edu.uchicago.gerber.mvc.model.prime.ConvexHull;
+import edu.uchicago.gerber.mvc.model.prime.Trig;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/*
+ The second stage of collision detection, which runs only on pairs whose bounding circles already overlap (see
+ Collisions). Bounding circles are a loose fit for the jagged Asteroids and for the Falcon png, so we refine the hit
+ using the actual shapes:
+
+ POLYGON: vector sprites are tested with the separating-axis theorem on the convex hull of their cartesians, placed in
+ world-space. See ConvexHull.
+ MASK: raster sprites are tested against the 1-bit alpha mask of their image. The other shape is transformed into the
+ image's own pixel-space and scan-converted row by row, and each row is ANDed with the packed mask words. See AlphaMask.
+ CIRCLE: everything else (e.g. Nuke, or a shielded Falcon) is approximated by a regular polygon.
+
+ For a swept (fast-moving) pair, the moving shape is replaced by the convex hull of its positions at the start and end
+ of the frame, relative to the other shape, so a Bullet cannot slip through a gap between two frames.
+
+ A pair of two CIRCLEs is accepted as is: their bounding circles already overlap. Two MASKs are not ANDed with each
+ other; instead, the first mask is tested against the (circumscribed) bounding circle of the second, which is tighter
+ than the circle test, and never misses a hit that it would have found. Neither pair occurs in this game: the Falcon is
+ the only raster sprite that collides, and debris does not collide.
+ */
+public class Narrowphase {
+
+    private enum Shape {CIRCLE, POLYGON, MASK}
+
+    //number of sides of the polygon that stands in for a circle
+    private static final int CIRCLE_SIDES = 16;
+    private static final double[] CIRCLE_SIN = new double[CIRCLE_SIDES];
+    private static final double[] CIRCLE_COS = new double[CIRCLE_SIDES];
+    static {
+        //circumscribe the circle, so the polygon never misses a hit that the circle would have found
+        double circumscribe = 1.0 / Math.cos(Math.PI / CIRCLE_SIDES);
+        for (int i = 0; i < CIRCLE_SIDES; i++) {
+            CIRCLE_SIN[i] = Math.sin(2 * Math.PI * i / CIRCLE_SIDES) * circumscribe;
+            CIRCLE_COS[i] = Math.cos(2 * Math.PI * i / CIRCLE_SIDES) * circumscribe;
+        }
+    }
+
+    //scratch buffers are per thread, so that collision detection may run on several threads
+    private static final ThreadLocal<Narrowphase> SCRATCH = ThreadLocal.withInitial(Narrowphase::new);
+
+    private double[] movingX = new double[64], movingY = new double[64];
+    private double[] hullX = new double[128], hullY = new double[128];
+    private double[] staticX = new double[64], staticY = new double[64];
+
+    public static boolean overlap(Movable movA, Movable movB, boolean swept) {
+        return SCRATCH.get().test(movA, movB, swept);
+    }
+
+    //Testing a POLYGON places its hull in world-space, which writes to a cache in the sprite. A movable that will be
+    //tested from several threads at once must be prepared first, after which the tests only read the cache. Its center
+    //is not cached but refreshed on every read, with equal values from every thread; see Sprite.getCenter()
+    public static void prepare(Movable mov) {
+        if (shapeOf(mov) == Shape.POLYGON) ((Sprite) mov).getHull();
+    }
+
+    private boolean test(Movable movA, Movable movB, boolean swept) {
+
+        Shape shapeA = shapeOf(movA);
+        Shape shapeB = shapeOf(movB);
+        if (shapeA == Shape.CIRCLE && shapeB == Shape.CIRCLE) return true;
+
+        //a mask cannot be swept, so if there is one, the other shape moves relative to it. If both are masks, the
+        //moving one is loaded as its circle; see the class comment
+        Movable movStatic = shapeA == Shape.MASK ? movA : movB;
+        Movable movMoving = movStatic == movA ? movB : movA;
+
+        int numMoving = loadPoints(movMoving, true);
+        if (swept) numMoving = sweep(movMoving, movStatic, numMoving);
+
+        if (shapeOf(movStatic) == Shape.MASK) {
+            return overlapsMask((Sprite) movStatic, numMoving);
+        }
+        int numStatic = loadPoints(movStatic, false);
+        return !separated(movingX, movingY, numMoving, staticX, staticY, numStatic);
+    }
+
+    private static Shape shapeOf(Movable mov) {
+        if (!(mov instanceof Sprite)) return Shape.CIRCLE;
+        Sprite sprite = (Sprite) mov;
+        BufferedImage image = sprite.getCollisionImage();
+        if (image != null && ImageLoader.getMask(image) != null) return Shape.MASK;
+        if (sprite.getCartesians() != null) return Shape.POLYGON;
+        return Shape.CIRCLE;
+    }
+
+    //load the world-space vertices of a POLYGON or CIRCLE into the moving or the static buffers
+    private int loadPoints(Movable mov, boolean moving) {
+
+        Point center = mov.getCenter();
+        int num;
+        double[] xs, ys;
+        if (shapeOf(mov) == Shape.POLYGON) {
+            ConvexHull hull = ((Sprite) mov).getHull();
+            num = hull.size();
+            ensureCapacity(num * 2);
+            xs = moving ? movingX : staticX;
+            ys = moving ? movingY : staticY;
+            System.arraycopy(hull.getWorldX(), 0, xs, 0, num);
+            System.arraycopy(hull.getWorldY(), 0, ys, 0, num);
+        } else {
+            num = CIRCLE_SIDES;
+            ensureCapacity(num * 2);
+            xs = moving ? movingX : staticX;
+            ys = moving ? movingY : staticY;
+            int radius = Math.max(0, mov.getRadius());
+            for (int i = 0; i < num; i++) {
+                xs[i] = center.x + radius * CIRCLE_COS[i];
+                ys[i] = center.y + radius * CIRCLE_SIN[i];
+            }
+        }
+        return num;
+    }
+
+    //Replace the moving shape with the hull of its start-of-frame and end-of-frame positions, measured relative to
+    //the static shape.
+    private int sweep(Movable movMoving, Movable movStatic, int num) {
+
+        Point moving = movMoving.getCenter(), movingPrev = movMoving.getPrevCenter();
+        Point fixed = movStatic.getCenter(), fixedPrev = movStatic.getPrevCenter();
+        double relX = (moving.x - movingPrev.x) - (fixed.x - fixedPrev.x);
+        double relY = (moving.y - movingPrev.y) - (fixed.y - fixedPrev.y);
+
+        for (int i = 0; i < num; i++) {
+            movingX[num + i] = movingX[i] - relX;
+            movingY[num + i] = movingY[i] - relY;
+        }
+        int size = ConvexHull.compute(movingX, movingY, num * 2, hullX, hullY);
+        System.arraycopy(hullX, 0, movingX, 0, size);
+        System.arraycopy(hullY, 0, movingY, 0, size);
+        return size;
+    }
+
+    //the moving shape may already be loaded, so it is preserved
+    private void ensureCapacity(int capacity) {
+        if (movingX.length >= capacity) return;
+        movingX = Arrays.copyOf(movingX, capacity);
+        movingY = Arrays.copyOf(movingY, capacity);
+        staticX = new double[capacity];
+        staticY = new double[capacity];
+        hullX = new double[capacity * 2];
+        hullY = new double[capacity * 2];
+    }
+
+    //separating-axis theorem: two convex polygons are disjoint if and only if some edge normal separates them.
+    //Shapes that merely touch are separated, consistent with the strict inequality of the circle test.
+    private static boolean separated(double[] ax, double[] ay, int numA, double[] bx, double[] by, int numB) {
+        return hasSeparatingEdge(ax, ay, numA, ax, ay, numA, bx, by, numB)
+                || hasSeparatingEdge(bx, by, numB, ax, ay, numA, bx, by, numB);
+    }
+
+    private static boolean hasSeparatingEdge(double[] ex, double[] ey, int numE,
+                                             double[] ax, double[] ay, int numA,
+                                             double[] bx, double[] by, int numB) {
+        if (numE < 2) return false;
+        for (int i = 0; i < numE; i++) {
+            int j = (i + 1) % numE;
+            double normalX = ey[i] - ey[j];
+            double normalY = ex[j] - ex[i];
+            if (normalX == 0 && normalY == 0) continue;
+
+            double minA = Double.MAX_VALUE, maxA = -Double.MAX_VALUE;
+            for (int k = 0; k < numA; k++) {
+                double projection = ax[k] * normalX + ay[k] * normalY;
+                minA = Math.min(minA, projection);
+                maxA = Math.max(maxA, projection);
+            }
+            double minB = Double.MAX_VALUE, maxB = -Double.MAX_VALUE;
+            for (int k = 0; k < numB; k++) {
+                double projection = bx[k] * normalX + by[k] * normalY;
+                minB = Math.min(minB, projection);
+                maxB = Math.max(maxB, projection);
+            }
+            if (maxA <= minB || maxB <= minA) return true;
+        }
+        return false;
+    }
+
+    //Transform the moving (convex) shape into the pixel-space of the raster sprite's image, then scan-convert it one
+    //row at a time and AND each row span with the packed mask words.
+    private boolean overlapsMask(Sprite raster, int num) {
+
+        BufferedImage image = raster.getCollisionImage();
+        AlphaMask mask = ImageLoader.getMask(image);
+        if (raster.getRadius() <= 0) return false;
+
+        //invert the transform of Sprite.renderRaster(): translate to center, scale to radius*2, rotate by orientation
+        double scaleX = raster.getRadius() * 2.0 / mask.getWidth();
+        double scaleY = raster.getRadius() * 2.0 / mask.getHeight();
+        double cos = Trig.cosDeg(raster.getOrientation()), sin = Trig.sinDeg(raster.getOrientation());
+        Point center = raster.getCenter();
+        double minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < num; i++) {
+            double ux = (movingX[i] - center.x) / scaleX;
+            double uy = (movingY[i] - center.y) / scaleY;
+            movingX[i] = ux * cos + uy * sin + mask.getWidth() / 2.0;
+            movingY[i] = -ux * sin + uy * cos + mask.getHeight() / 2.0;
+            minY = Math.min(minY, movingY[i]);
+            maxY = Math.max(maxY, movingY[i]);
+        }
+
+        //sample each row at its pixel centers
+        int row0 = Math.max(0, (int) Math.ceil(minY - 0.5));
+        int row1 = Math.min(mask.getHeight() - 1, (int) Math.floor(maxY - 0.5));
+        for (int row = row0; row <= row1; row++) {
+            double y = row + 0.5;
+            double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE;
+            for (int i = 0; i < num; i++) {
+                int j = (i + 1) % num;
+                double y1 = movingY[i], y2 = movingY[j];
+                if ((y1 <= y && y < y2) || (y2 <= y && y < y1)) {
+                    double x = movingX[i] + (y - y1) * (movingX[j] - movingX[i]) / (y2 - y1);
+                    minX = Math.min(minX, x);
+                    maxX = Math.max(maxX, x);
+                }
+            }
+            if (minX > maxX) continue;
+            if (mask.anySolid(row, (int) Math.ceil(minX - 0.5), (int) Math.floor(maxX - 0.5))) return true;
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,45 @@
+package edu.uchicago.gerber.mvc.controller;
+
+/*
+ A stack of objects that have left the game, kept to be reset and reused instead of allocating new ones, e.g. the
+ Bullets, Asteroids and WhiteCloudDebris of a world (see CommandCenter). An object is released when its REMOVE is
+ applied, and must then be referenced by nothing else in the game; the redundant REMOVEs that may still be queued for
+ it are dropped by Simulation.processGameOpsQueue().
+
+ At most capacity objects are kept, so that a burst (e.g. a nuke) does not hold on to memory forever. Simulation
+ thread only.
+ */
+public class Pool<T> {
+
+    private final Object[] free;
+    private int size;
+    //objects handed out again, rather than allocated by the caller
+    private long reused;
+
+    public Pool(int capacity) {
+        free = new Object[capacity];
+    }
+
+    //an object to reset and reuse, or null if there is none, in which case the caller allocates one
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        if (size == 0) return null;
+        T t = (T) free[--size];
+        free[size] = null;
+        reused++;
+        return t;
+    }
+
+    public void release(T t) {
+        if (size < free.length) free[size++] = t;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getReused() {
+        return reused;
+    }
+
+}
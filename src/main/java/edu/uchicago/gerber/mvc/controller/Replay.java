@@ -0,0 +1,90 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/*
+ The binary format of a replay: the RNG seed of a game session, and every key that played it (see Simulation.Key),
+ tagged with the frame in which it took effect. Since the simulation is deterministic (see Rng), this is all it takes
+ to play the session again, tick for tick. Every KEYFRAME_INTERVAL frames, the full state of the world is also
+ written (see Keyframe), so that a player can seek into a long session without re-simulating it from frame 0.
+
+ A replay file is a header followed by records:
+
+   header:   MAGIC, version (varint), seed (8 bytes), keyframe interval (varint)
+   INPUT:    tag = key ordinal * 2 + (1 if pressed), frame delta (varint)
+   KEYFRAME: tag, frame delta (varint), length (varint), Keyframe payload
+   END:      tag, frame delta (varint), StateHash after the last frame (8 bytes)
+
+ Frames are written as the (non-negative) difference from the frame of the previous record, so a typical key event
+ takes two bytes. A keyframe at frame F holds the state before the inputs and tick of frame F. The END record is
+ written when the session closes normally; a recording that was cut short simply ends without one.
+
+ Varints are unsigned LEB128: seven bits per byte, least significant first, high bit set on all but the last byte.
+ Signed values are zig-zag encoded first, so that small negative numbers stay small.
+ */
+public class Replay {
+
+    static final byte[] MAGIC = {'A', 'S', 'T', 'R'};
+    static final int VERSION = 1;
+
+    //a keyframe every 10 seconds of game time
+    public static final int KEYFRAME_INTERVAL = 10 * Game.FRAMES_PER_SECOND;
+
+    //INPUT tags are 0 up to twice the number of keys
+    static final int KEYFRAME = 0x40;
+    static final int END = 0x41;
+
+    private Replay() {}
+
+    static int inputTag(Simulation.Key key, boolean pressed) {
+        return key.ordinal() * 2 + (pressed ? 1 : 0);
+    }
+
+    static boolean isInput(int tag) {
+        return tag < Simulation.Key.values().length * 2;
+    }
+
+    static Simulation.Key keyOf(int inputTag) {
+        return Simulation.Key.values()[inputTag / 2];
+    }
+
+    static boolean isPressed(int inputTag) {
+        return inputTag % 2 == 1;
+    }
+
+    static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalStateException("malformed varint");
+    }
+
+    static void writeSignedVarLong(OutputStream out, long value) throws IOException {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    static long readSignedVarLong(ByteBuffer in) {
+        long value = readVarLong(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeLong(OutputStream out, long value) throws IOException {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+
+}
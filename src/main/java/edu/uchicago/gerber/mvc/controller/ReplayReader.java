@@ -0,0 +1,192 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/*
+ Plays back a replay written by ReplayWriter (see Replay for the format). The file is memory-mapped, so opening even a
+ multi-hour session only touches the record headers: the keyframes are indexed by frame, and their payloads skipped,
+ until one is needed to seek.
+
+ A recording that was cut short (e.g. the game crashed) is read up to its last complete record.
+ */
+public class ReplayReader {
+
+    private final Path path;
+    private final ByteBuffer buffer;
+    private final long seed;
+    //the position just after the header
+    private final int start;
+
+    //the keyframes, in order: the frame of each, and the position of its record
+    private long[] keyframeFrames = new long[16];
+    private int[] keyframePositions = new int[16];
+    private int numKeyframes;
+
+    //the frame of the END record (or of the last record, if there is none), and the StateHash in the END record
+    private long lastFrame;
+    private boolean complete;
+    private long endStateHash;
+
+    //the playback position: the frame of the record before buffer.position()
+    private long lastRecordFrame;
+
+    private ReplayReader(Path path, ByteBuffer buffer) {
+        this.path = path;
+        this.buffer = buffer;
+
+        byte[] magic = new byte[Replay.MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, Replay.MAGIC)) throw new IllegalArgumentException(path + " is not a replay");
+        long version = Replay.readVarLong(buffer);
+        if (version != Replay.VERSION) throw new IllegalArgumentException(path + " is replay version " + version);
+        seed = buffer.getLong();
+        //the interval is informational; the keyframes are indexed wherever they are
+        Replay.readVarLong(buffer);
+        start = buffer.position();
+
+        index();
+        rewind();
+    }
+
+    public static ReplayReader open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException(path + " is too large to map");
+            //the mapping remains valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ReplayReader(path, buffer);
+        }
+    }
+
+    //scan the record headers, skipping keyframe payloads, and stop at the END record or the last complete record
+    private void index() {
+        buffer.position(start);
+        long frame = 0;
+        int end = start;
+        try {
+            while (buffer.hasRemaining()) {
+                int position = buffer.position();
+                int tag = buffer.get() & 0xFF;
+                frame += Replay.readVarLong(buffer);
+                if (Replay.isInput(tag)) {
+                    //nothing more to read
+                } else if (tag == Replay.KEYFRAME) {
+                    long length = Replay.readVarLong(buffer);
+                    //a keyframe whose payload runs past the end of the file was cut short, like any other record
+                    if (length > buffer.remaining()) throw new BufferUnderflowException();
+                    buffer.position(buffer.position() + (int) length);
+                    addKeyframe(frame, position);
+                } else if (tag == Replay.END) {
+                    endStateHash = buffer.getLong();
+                    complete = true;
+                    end = buffer.position();
+                    lastFrame = frame;
+                    break;
+                } else {
+                    throw new IllegalArgumentException(path + " has an unknown record at " + position);
+                }
+                end = buffer.position();
+                lastFrame = frame;
+            }
+        } catch (BufferUnderflowException e) {
+            //a truncated record at the end of a recording that was cut short. Anything else, e.g. an unknown record
+            //in a corrupt file or one of another version, is not a truncation, and is thrown
+            if (complete) throw e;
+        }
+        buffer.limit(end);
+    }
+
+    private void addKeyframe(long frame, int position) {
+        if (numKeyframes == keyframeFrames.length) {
+            keyframeFrames = Arrays.copyOf(keyframeFrames, numKeyframes * 2);
+            keyframePositions = Arrays.copyOf(keyframePositions, numKeyframes * 2);
+        }
+        keyframeFrames[numKeyframes] = frame;
+        keyframePositions[numKeyframes] = position;
+        numKeyframes++;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    //the number of frames in the recording
+    public long getLastFrame() {
+        return lastFrame;
+    }
+
+    //whether the recording ended normally, with the StateHash of its last frame
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public long getEndStateHash() {
+        return endStateHash;
+    }
+
+    public int getNumKeyframes() {
+        return numKeyframes;
+    }
+
+    //play from frame 0; the world must be the one that the seed creates, e.g. in a new JVM
+    public void rewind() {
+        buffer.position(start);
+        lastRecordFrame = 0;
+    }
+
+    //Restore the last keyframe at or before the frame, and play on from there. Returns the frame of the keyframe, or
+    //-1 if there is none, in which case nothing is restored and playback starts from frame 0.
+    public long seek(long frame, CommandCenter commandCenter) {
+
+        int found = -1;
+        for (int i = 0; i < numKeyframes && keyframeFrames[i] <= frame; i++) {
+            found = i;
+        }
+        if (found < 0) {
+            rewind();
+            return -1;
+        }
+
+        buffer.position(keyframePositions[found]);
+        buffer.get();
+        Replay.readVarLong(buffer);
+        int length = (int) Replay.readVarLong(buffer);
+        ByteBuffer payload = buffer.slice();
+        payload.limit(length);
+        buffer.position(buffer.position() + length);
+        lastRecordFrame = keyframeFrames[found];
+
+        commandCenter.setFrame(lastRecordFrame);
+        Keyframe.restore(payload, commandCenter);
+        return lastRecordFrame;
+    }
+
+    //Apply the keys recorded for the frame to the simulation, before it ticks that frame
+    public void play(long frame, Simulation simulation) {
+        while (buffer.hasRemaining()) {
+            int position = buffer.position();
+            int tag = buffer.get() & 0xFF;
+            long recordFrame = lastRecordFrame + Replay.readVarLong(buffer);
+            if (recordFrame > frame || tag == Replay.END) {
+                //not yet; read it again next frame
+                buffer.position(position);
+                return;
+            }
+            lastRecordFrame = recordFrame;
+            if (Replay.isInput(tag)) {
+                simulation.input(Replay.keyOf(tag), Replay.isPressed(tag));
+            } else {
+                //a keyframe, which playback does not need
+                int length = (int) Replay.readVarLong(buffer);
+                buffer.position(buffer.position() + length);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/*
+ Records a game session as a replay (see Replay for the format): the seed, then every key that plays the game in the
+ frame that it takes effect, and a Keyframe every KEYFRAME_INTERVAL frames. The recording must begin before the first
+ tick of the session, so that the world at frame 0 is the one that the seed creates.
+
+ Called on the simulation thread, except for close(), which may be called from a shutdown hook. If the file cannot be
+ written, the error is reported once and the recording stops; the game goes on.
+ */
+public class ReplayWriter {
+
+    private final Path path;
+    private OutputStream out;
+    //the frame of the previous record, from which the next record's frame is a delta
+    private long lastRecordFrame;
+    //the frames completed so far, and the StateHash after the last of them; written in the END record
+    private long framesCompleted;
+    private long lastStateHash;
+
+    public ReplayWriter(Path path, long seed) throws IOException {
+        this.path = path;
+        out = new BufferedOutputStream(Files.newOutputStream(path));
+        out.write(Replay.MAGIC);
+        Replay.writeVarLong(out, Replay.VERSION);
+        Replay.writeLong(out, seed);
+        Replay.writeVarLong(out, Replay.KEYFRAME_INTERVAL);
+    }
+
+    //a key that plays the game was pressed or released, and takes effect in the given frame
+    public synchronized void input(long frame, Simulation.Key key, boolean pressed) {
+        if (out == null) return;
+        try {
+            out.write(Replay.inputTag(key, pressed));
+            writeFrame(frame);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    //a tick has completed; the frame is now the next one. Write a keyframe if one is due
+    public synchronized void tick(CommandCenter commandCenter, long stateHash) {
+        if (out == null) return;
+        framesCompleted = commandCenter.getFrame();
+        lastStateHash = stateHash;
+        if (framesCompleted % Replay.KEYFRAME_INTERVAL != 0) return;
+        try {
+            byte[] keyframe = Keyframe.capture(commandCenter);
+            out.write(Replay.KEYFRAME);
+            writeFrame(framesCompleted);
+            Replay.writeVarLong(out, keyframe.length);
+            out.write(keyframe);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    //write the END record, which marks the recording as complete, and close the file
+    public synchronized void close() {
+        if (out == null) return;
+        try {
+            out.write(Replay.END);
+            writeFrame(framesCompleted);
+            Replay.writeLong(out, lastStateHash);
+            out.close();
+            System.out.println("replay recorded: " + path + " (" + framesCompleted + " frames)");
+        } catch (IOException e) {
+            fail(e);
+        }
+        out = null;
+    }
+
+    private void writeFrame(long frame) throws IOException {
+        Replay.writeVarLong(out, frame - lastRecordFrame);
+        lastRecordFrame = frame;
+    }
+
+    private void fail(IOException e) {
+        System.err.println("replay recording stopped: " + e.getMessage());
+        try {
+            out.close();
+        } catch (IOException ignored) {
+            // do nothing (bury the exception); we are giving up on the file anyway
+        }
+        out = null;
+    }
+
+}
@@ -0,0 +1,78 @@
+package edu.uchicago.gerber.mvc.controller;
+
+/*
+ The source of every random choice in the game. Given the same seed (and the same player input), a game plays out
+ exactly the same, tick by tick; see StateHash to prove it.
+
+ Each Subsystem draws from its own independent stream, so that e.g. a floater spawning does not change the shape of
+ the next asteroid. Each stream is a SplitMix64 generator, seeded from the master seed and the subsystem. Unlike
+ java.util.Random, the streams are not thread-safe, and need not be: each world (CommandCenter) has its own Rng, which
+ only the thread stepping that world uses.
+ */
+public class Rng {
+
+    public enum Subsystem {
+        //where sprites appear, and how fast they move and spin, e.g. asteroids, bullets and the falcon
+        SPAWN,
+        //the outlines of asteroids
+        SHAPE,
+        //where floaters appear, and how they move
+        FLOATER,
+        //the star field, which has no effect on game-play
+        SCENERY
+    }
+
+    //the SplitMix64 increment, i.e. the golden ratio as a 64-bit fraction
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final long[] states = new long[Subsystem.values().length];
+    private long seed;
+
+    public Rng(long seed) {
+        setSeed(seed);
+    }
+
+    //restart all the streams from the given seed
+    public void setSeed(long seed) {
+        this.seed = seed;
+        for (int i = 0; i < states.length; i++) {
+            //decorrelate the streams by mixing the subsystem into the seed
+            states[i] = mix64(seed + (i + 1) * GOLDEN_GAMMA);
+        }
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    //the current position of every stream, e.g. to save in a replay Keyframe
+    public long[] getStreams() {
+        return states.clone();
+    }
+
+    public void setStreams(long[] streams) {
+        if (streams.length != states.length) {
+            throw new IllegalArgumentException("expected " + states.length + " streams");
+        }
+        System.arraycopy(streams, 0, states, 0, states.length);
+    }
+
+    public long nextLong(Subsystem subsystem) {
+        return mix64(states[subsystem.ordinal()] += GOLDEN_GAMMA);
+    }
+
+    //a value from 0 (inclusive) to bound (exclusive), like Random.nextInt(bound)
+    public int nextInt(Subsystem subsystem, int bound) {
+        if (bound <= 0) throw new IllegalArgumentException("bound must be positive");
+        //multiply the top 32 bits by the bound and keep the high word; the bias is negligible for our bounds
+        return (int) (((nextLong(subsystem) >>> 32) * bound) >>> 32);
+    }
+
+    //the finalizer of SplitMix64 (Stafford's variant 13); also a good 64-bit hash
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+}
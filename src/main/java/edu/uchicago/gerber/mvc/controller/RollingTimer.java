@@ -0,0 +1,68 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import java.util.Arrays;
+
+/*
+ The timings of one stage of a frame over the most recent WINDOW frames, e.g. the collision stage of the Simulation,
+ as shown by the profiler overlay. Each sample is kept as its System.nanoTime() start and end, so that samples can be
+ matched against GC pauses (see GcMonitor).
+
+ Recording and reading do not allocate, so that profiling does not disturb the frames it measures. A RollingTimer
+ belongs to the one thread that records it, which is also the only thread that may read it.
+ */
+public class RollingTimer {
+
+    //the number of most recent samples kept
+    public static final int WINDOW = 128;
+
+    private final long[] starts = new long[WINDOW];
+    private final long[] ends = new long[WINDOW];
+    //the durations, sorted to find a percentile
+    private final long[] sorted = new long[WINDOW];
+    //the index of the next sample to overwrite, and the number of samples kept
+    private int next;
+    private int count;
+
+    public void record(long startNanos, long endNanos) {
+        starts[next] = startNanos;
+        ends[next] = endNanos;
+        next = (next + 1) % WINDOW;
+        if (count < WINDOW) count++;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getMeanNanos() {
+        if (count == 0) return 0;
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += ends[i] - starts[i];
+        }
+        return sum / count;
+    }
+
+    //the duration that the given fraction of the samples do not exceed, e.g. 0.99 for the 99th percentile
+    public long getPercentileNanos(double fraction) {
+        if (count == 0) return 0;
+        for (int i = 0; i < count; i++) {
+            sorted[i] = ends[i] - starts[i];
+        }
+        Arrays.sort(sorted, 0, count);
+        int rank = (int) Math.ceil(fraction * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, rank))];
+    }
+
+    //the start of the oldest sample kept, or 0 if there are none
+    public long getOldestStartNanos() {
+        if (count == 0) return 0;
+        return starts[count < WINDOW ? 0 : next];
+    }
+
+    //the number of samples that overlapped a GC pause
+    public int countGcOverlaps(GcMonitor gcMonitor) {
+        return gcMonitor.countOverlaps(starts, ends, count);
+    }
+
+}
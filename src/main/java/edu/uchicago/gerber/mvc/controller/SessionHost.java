@@ -0,0 +1,157 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ Hosts many independent game sessions (worlds) in one JVM, e.g. for server-side play, bots, or load tests. Each
+ session has its own CommandCenter, Simulation and CollisionDetector, and plays like a HeadlessGame without input: a
+ new game starts whenever the falcons run out.
+
+ The sessions are stepped in rounds of BATCH_TICKS ticks. Each round is one fork/join task over all the sessions,
+ which splits in halves down to a few sessions per leaf; the ForkJoinPool keeps every worker busy by stealing halves.
+ A session is only ever stepped by one thread at a time, and binds its world to that thread while it steps (see
+ CommandCenter.bind()), so the sessions share nothing but read-only statics.
+
+ Run the main() method of this class, e.g. with --worlds=2000 --ticks=1000 --threads=4. World i is seeded with
+ --seed plus i, so a run is deterministic: the combined hash in the report is the same for any number of threads.
+ */
+public class SessionHost {
+
+    //ticks that a session runs each time it is picked up by a worker, which amortizes the cost of binding its world
+    public static final int BATCH_TICKS = 25;
+    //split the sessions no finer than this many per task
+    private static final int SESSIONS_PER_LEAF = 4;
+
+    private final Session[] sessions;
+    private final ForkJoinPool pool;
+
+    //one hosted game session
+    private static class Session {
+
+        private final CommandCenter world;
+        private final Simulation simulation;
+        private long games;
+
+        Session(long seed, CollisionDetector collisionDetector) {
+            world = new CommandCenter(seed);
+            simulation = new Simulation(collisionDetector);
+        }
+
+        void step(int ticks) {
+            CommandCenter previous = CommandCenter.bind(world);
+            try {
+                for (int i = 0; i < ticks; i++) {
+                    if (world.isGameOver()) {
+                        world.initGame();
+                        games++;
+                    }
+                    simulation.tick();
+                }
+            } finally {
+                CommandCenter.bind(previous);
+            }
+        }
+    }
+
+    //steps the sessions from (inclusive) to to (exclusive)
+    private class Round extends RecursiveAction {
+
+        //ForkJoinTask is Serializable, but these tasks are never serialized
+        private static final long serialVersionUID = 1L;
+
+        private final int from, to, ticks;
+
+        Round(int from, int to, int ticks) {
+            this.from = from;
+            this.to = to;
+            this.ticks = ticks;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SESSIONS_PER_LEAF) {
+                for (int i = from; i < to; i++) {
+                    sessions[i].step(ticks);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Round(from, mid, ticks), new Round(mid, to, ticks));
+        }
+    }
+
+    public SessionHost(int numWorlds, long seed, String engine, int threads) {
+        sessions = new Session[numWorlds];
+        for (int i = 0; i < numWorlds; i++) {
+            sessions[i] = new Session(seed + i, CollisionDetector.create(engine));
+        }
+        pool = new ForkJoinPool(threads);
+    }
+
+    //advance every session by the given number of ticks
+    public void run(long ticks) {
+        for (long done = 0; done < ticks; done += BATCH_TICKS) {
+            pool.invoke(new Round(0, sessions.length, (int) Math.min(BATCH_TICKS, ticks - done)));
+        }
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    //the rolling hashes of all the sessions, chained in session order. See StateHash
+    public long getCombinedHash() {
+        long hash = 0;
+        for (Session session : sessions) {
+            hash = StateHash.roll(hash, session.simulation.getRollingHash());
+        }
+        return hash;
+    }
+
+    public long getGames() {
+        long games = 0;
+        for (Session session : sessions) {
+            games += session.games;
+        }
+        return games;
+    }
+
+    public static void main(String[] args) {
+
+        int numWorlds = 1_000;
+        long ticks = HeadlessGame.DEFAULT_TICKS / 10;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String engine = "grid";
+        long seed = System.nanoTime();
+        for (String arg : args) {
+            if (arg.startsWith("--worlds=")) numWorlds = Integer.parseInt(arg.substring("--worlds=".length()));
+            if (arg.startsWith("--ticks=")) ticks = Long.parseLong(arg.substring("--ticks=".length()));
+            if (arg.startsWith("--threads=")) threads = Integer.parseInt(arg.substring("--threads=".length()));
+            if (arg.startsWith("--collision=")) engine = arg.substring("--collision=".length());
+            if (arg.startsWith("--seed=")) seed = Long.parseLong(arg.substring("--seed=".length()));
+        }
+        if (numWorlds < 1) throw new IllegalArgumentException("--worlds must be at least 1");
+        if (ticks < 1) throw new IllegalArgumentException("--ticks must be at least 1");
+        if (threads < 1) throw new IllegalArgumentException("--threads must be at least 1");
+
+        //no display and no audio device are needed
+        System.setProperty("java.awt.headless", "true");
+        SoundLoader.setMuted(true);
+
+        System.out.printf("worlds: %,d  threads: %d  collision engine: %s  seed: %d%n", numWorlds, threads, engine,
+                seed);
+        SessionHost host = new SessionHost(numWorlds, seed, engine, threads);
+
+        long start = System.nanoTime();
+        host.run(ticks);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        host.shutdown();
+
+        long worldTicks = ticks * numWorlds;
+        System.out.printf("world-ticks: %,d in %.3f s = %,.0f world-ticks/sec (%,.0f ticks/sec per world)%n",
+                worldTicks, seconds, worldTicks / seconds, ticks / seconds);
+        System.out.printf("games: %,d  combined state hash: %016x%n", host.getGames(), host.getCombinedHash());
+    }
+
+}
@@ -0,0 +1,404 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import edu.uchicago.gerber.mvc.model.*;
+
+import java.awt.*;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/*
+ The game model, advanced one fixed tick at a time: move the movables, detect the collisions, check for a new level,
+ spawn floaters, and then process the GameOpsQueue. Game runs it on the simulation thread at ANIMATION_DELAY; a
+ HeadlessGame runs exactly the same ticks, as fast as it can, without a window or sound.
+
+ The time spent in each Stage of the tick is accumulated, so that the hot paths can be measured. See getStageNanos(),
+ and FrameProfiler for the timings of the most recent ticks.
+ */
+public class Simulation {
+
+    // ===============================================
+    // FIELDS
+    // ===============================================
+
+    //the keys that play the game (as opposed to e.g. quit or mute it). They are recorded in replays. See Replay
+    public enum Key {FIRE, NUKE, UP, LEFT, RIGHT, PAUSE, START}
+
+    //the stages of a tick, in the order they run
+    public enum Stage {MOVE, COLLISIONS, NEW_LEVEL, FLOATERS, GAME_OPS, HASH}
+
+    //the engine used to find colliding friend/foe pairs; chosen at startup. See checkCollisions()
+    private final CollisionDetector collisionDetector;
+    //the collisions of the current frame, which are resolved into REMOVE ops once detection is complete
+    private final CollisionEventBuffer collisionEvents = new CollisionEventBuffer();
+    //the movables removed so far by processGameOpsQueue() this frame; compared by identity
+    private final Set<Movable> removedThisFrame = Collections.newSetFromMap(new IdentityHashMap<>());
+    //the ops of the GameOpsQueue being applied by processGameOpsQueue(); reused every batch
+    private final GameOp[] opsBatch = new GameOp[64];
+
+    //the total System.nanoTime() spent in each Stage, indexed by ordinal, and the number of ticks run
+    private final long[] stageNanos = new long[Stage.values().length];
+    private long ticks;
+    //when each Stage of the most recent tick started and ended, e.g. for a FrameProfiler
+    private final long[] lastStageStarts = new long[Stage.values().length];
+    private final long[] lastStageEnds = new long[Stage.values().length];
+
+    //the StateHash of the world after the most recent tick, and the hashes of all the ticks so far, chained
+    private long stateHash;
+    private long rollingHash;
+
+    // ===============================================
+    // ==CONSTRUCTOR
+    // ===============================================
+
+    public Simulation(CollisionDetector collisionDetector) {
+        this.collisionDetector = collisionDetector;
+        for (int i = 0; i < opsBatch.length; i++) {
+            opsBatch[i] = new GameOp(null, null);
+        }
+    }
+
+    // ===============================================
+    // ==METHODS
+    // ===============================================
+
+    //one fixed step of the simulation
+    public void tick() {
+
+        CommandCenter commandCenter = CommandCenter.getInstance();
+        long start = System.nanoTime();
+        moveMovables();
+        start = lap(Stage.MOVE, start);
+        checkCollisions();
+        start = lap(Stage.COLLISIONS, start);
+        checkNewLevel();
+        start = lap(Stage.NEW_LEVEL, start);
+        checkFloaters();
+        start = lap(Stage.FLOATERS, start);
+        //this method will execute addToGame() and removeFromGame() callbacks on Movable objects
+        processGameOpsQueue();
+        start = lap(Stage.GAME_OPS, start);
+        //keep track of the frame for development purposes
+        commandCenter.incrementFrame();
+        ticks++;
+        //so that two runs can be compared tick by tick. See StateHash
+        stateHash = StateHash.of(commandCenter);
+        rollingHash = StateHash.roll(rollingHash, stateHash);
+        lap(Stage.HASH, start);
+    }
+
+    //A key was pressed or released. Keys are handled between ticks, in the order they were pressed and released
+    public void input(Key key, boolean pressed) {
+        if (pressed) onKeyPressed(key);
+        else onKeyReleased(key);
+    }
+
+    private void onKeyPressed(Key key) {
+        Falcon falcon = CommandCenter.getInstance().getFalcon();
+        switch (key) {
+            case FIRE:
+                CommandCenter.getInstance().getOpsQueue().enqueue(Bullet.spawn(falcon), GameOp.Action.ADD);
+                break;
+            case NUKE:
+                CommandCenter.getInstance().getOpsQueue().enqueue(new Nuke(falcon), GameOp.Action.ADD);
+                break;
+            case UP:
+                falcon.setThrusting(true);
+                SoundLoader.playSound("whitenoise_loop.wav");
+                break;
+            case LEFT:
+                falcon.setTurnState(Falcon.TurnState.LEFT);
+                break;
+            case RIGHT:
+                falcon.setTurnState(Falcon.TurnState.RIGHT);
+                break;
+            default:
+                break;
+        }
+
+    }
+
+    private void onKeyReleased(Key key) {
+        Falcon falcon = CommandCenter.getInstance().getFalcon();
+
+        if (key == Key.START && CommandCenter.getInstance().isGameOver()) {
+            CommandCenter.getInstance().initGame();
+            return;
+        }
+
+        switch (key) {
+
+            //releasing either the LEFT or RIGHT arrow key will set the TurnState to IDLE
+            case LEFT:
+            case RIGHT:
+                falcon.setTurnState(Falcon.TurnState.IDLE);
+                break;
+            case UP:
+                falcon.setThrusting(false);
+                SoundLoader.stopSound("whitenoise_loop.wav");
+                break;
+            case PAUSE:
+                CommandCenter.getInstance().setPaused(!CommandCenter.getInstance().isPaused());
+                break;
+            default:
+                break;
+
+        }
+
+    }
+
+    //add the time since start to the stage, and return the time now, which is the start of the next stage
+    private long lap(Stage stage, long start) {
+        long now = System.nanoTime();
+        stageNanos[stage.ordinal()] += now - start;
+        lastStageStarts[stage.ordinal()] = start;
+        lastStageEnds[stage.ordinal()] = now;
+        return now;
+    }
+
+    public long getStageNanos(Stage stage) {
+        return stageNanos[stage.ordinal()];
+    }
+
+    public long getLastStageStart(Stage stage) {
+        return lastStageStarts[stage.ordinal()];
+    }
+
+    public long getLastStageEnd(Stage stage) {
+        return lastStageEnds[stage.ordinal()];
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getStateHash() {
+        return stateHash;
+    }
+
+    public long getRollingHash() {
+        return rollingHash;
+    }
+
+    //movables move only while playing and not paused, which is also when GamePanel draws them
+    private void moveMovables() {
+
+        CommandCenter commandCenter = CommandCenter.getInstance();
+        if (commandCenter.isGameOver() || commandCenter.isPaused()) return;
+
+        //the same order as they are drawn, team by team; within a team, in slot order
+        for (int team = 0; team < commandCenter.getNumTeams(); team++) {
+            commandCenter.getTeam(team).moveAll();
+        }
+    }
+
+    private void checkFloaters() {
+
+        spawnShieldFloater();
+        spawnNukeFloater();
+    }
+
+    /*
+    TODO The following two methods are an example of the Command design pattern. This approach involves deferring
+    mutations to collections (linked lists of Movables) while iterating over them, and then processing the mutations
+    later (in the processGameOpsQueue() method below). The Command design pattern decouples the request for an
+    operation from the  execution of the operation itself. We do this because mutating a data structure while iterating it
+    is dangerous and may lead to null-pointer or array-index-out-of-bounds exceptions, or other erroneous behavior.
+     */
+
+    private void checkCollisions() {
+
+        CommandCenter commandCenter = CommandCenter.getInstance();
+        GameEvents.CollisionPass event = GameEvents.beginCollisionPass();
+
+        //find the colliding friend/foe pairs using whichever engine was selected at startup. See CollisionDetector
+        Dimension uniDim = commandCenter.getUniDim();
+        if (uniDim != null) {
+            collisionDetector.detect(
+                    commandCenter.getMovFriends(),
+                    commandCenter.getMovFoes(),
+                    uniDim.width * Game.DIM.width,
+                    uniDim.height * Game.DIM.height,
+                    collisionEvents);
+        }
+
+        //check for collisions between falcon and floaters. Order of growth of O(FLOATERS)
+        Falcon falcon = commandCenter.getFalcon();
+        for (Movable movFloater : commandCenter.getMovFloaters()) {
+            //detect collision; the falcon is tested pixel-accurately. See Collisions
+            double toi = Collisions.timeOfImpact(falcon, movFloater);
+            if (toi != Collisions.NO_HIT) {
+                collisionEvents.add(CollisionEvent.Kind.FALCON_FLOATER, falcon, movFloater, toi);
+            }//end if
+        }//end for
+
+        //enqueue a single REMOVE for each movable that collided, no matter how many times it collided this frame
+        int collisions = collisionEvents.size();
+        int redundant = collisionEvents.resolve(commandCenter.getOpsQueue());
+        commandCenter.addRedundantOps(redundant);
+
+        if (event != null && event.shouldCommit()) {
+            event.frame = commandCenter.getFrame();
+            event.engine = collisionDetector.getName();
+            event.friends = commandCenter.getMovFriends().size();
+            event.foes = commandCenter.getMovFoes().size();
+            event.floaters = commandCenter.getMovFloaters().size();
+            event.pairsTested = uniDim == null ? 0 : collisionDetector.getPairsTested();
+            event.collisions = collisions;
+            event.redundantRemoves = redundant;
+            event.universe = commandCenter.getUniverse() == null ? null : commandCenter.getUniverse().name();
+            event.commit();
+        }
+    }//end meth
+
+
+    //This method adds and removes movables to/from their respective team lists.
+    private void processGameOpsQueue() {
+
+        CommandCenter commandCenter = CommandCenter.getInstance();
+        GameEvents.OpsQueueDrain event = GameEvents.beginOpsQueueDrain();
+        int adds = 0, removes = 0, redundant = 0;
+
+        //deferred mutation: these operations are done AFTER we have completed our collision detection to avoid
+        // mutating the movable lists while iterating them above.
+        //ops are drained in batches; those enqueued while applying a batch (e.g. the Asteroids of a split) come in a
+        //later batch of the same drain.
+        GameOpsQueue opsQueue = commandCenter.getOpsQueue();
+        int batchSize;
+        while ((batchSize = opsQueue.drainTo(opsBatch)) > 0) {
+            for (int i = 0; i < batchSize; i++) {
+
+                Movable mov = opsBatch[i].getMovable();
+                GameOp.Action action = opsBatch[i].getAction();
+                opsBatch[i].setMovable(null);
+
+                //given team, determine which team list this object will be added-to or removed-from
+                MovableList list;
+                switch (mov.getTeam()) {
+                    case FOE:
+                        list = commandCenter.getMovFoes();
+                        break;
+                    case FRIEND:
+                        list = commandCenter.getMovFriends();
+                        break;
+                    case FLOATER:
+                        list = commandCenter.getMovFloaters();
+                        break;
+                    case DEBRIS:
+                    default:
+                        list = commandCenter.getMovDebris();
+                }
+
+                //pass the appropriate team list from above
+                //this block will execute the addToGame() or removeFromGame() callbacks in the Movable models.
+                if (action == GameOp.Action.ADD) {
+                    mov.addToGame(list);
+                    adds++;
+                }
+                //REMOVE; a movable may also have been enqueued by another source, e.g. a Bullet that expires in the same
+                //frame that it hits an Asteroid. Remove it only once.
+                else if (removedThisFrame.add(mov)) {
+                    mov.removeFromGame(list);
+                    removes++;
+                } else {
+                    commandCenter.addRedundantOps(1);
+                    redundant++;
+                }
+
+            }
+        }//end while
+        removedThisFrame.clear();
+
+        if (event != null && event.shouldCommit()) {
+            event.frame = commandCenter.getFrame();
+            event.opsApplied = adds + removes + redundant;
+            event.adds = adds;
+            event.removes = removes;
+            event.redundantRemoves = redundant;
+            event.commit();
+        }
+    }
+
+
+    private void spawnShieldFloater() {
+
+        CommandCenter commandCenter = CommandCenter.getInstance();
+        if (commandCenter.getFrame() % ShieldFloater.SPAWN_SHIELD_FLOATER == 0) {
+            commandCenter.getOpsQueue().enqueue(new ShieldFloater(), GameOp.Action.ADD);
+        }
+    }
+
+    private void spawnNukeFloater() {
+
+        CommandCenter commandCenter = CommandCenter.getInstance();
+        if (commandCenter.getFrame() % NukeFloater.SPAWN_NUKE_FLOATER == 0) {
+            commandCenter.getOpsQueue().enqueue(new NukeFloater(), GameOp.Action.ADD);
+        }
+    }
+
+
+    //this method spawns new Large (0) Asteroids
+    private void spawnBigAsteroids(int num) {
+
+        while (num-- > 0) {
+            //Asteroids with size of zero are big
+            CommandCenter.getInstance().getOpsQueue().enqueue(Asteroid.spawn(0), GameOp.Action.ADD);
+
+        }
+    }
+
+
+
+
+
+    private boolean isLevelClear() {
+        //if there are no more Asteroids on the screen
+        return CommandCenter.getInstance().getCensus().getAsteroids() == 0;
+    }
+
+    private void checkNewLevel() {
+
+        //short-circuit if level not yet cleared
+        if (!isLevelClear()) return;
+
+        GameEvents.LevelTransition event = GameEvents.beginLevelTransition();
+
+        //currentLevel will be zero at beginning of game
+        int level = CommandCenter.getInstance().getLevel();
+        //award some points for having cleared the previous level
+        CommandCenter.getInstance().setScore(CommandCenter.getInstance().getScore() + (10_000L * level));
+
+        //center the falcon at each level-clear
+        CommandCenter.getInstance().getFalcon().setCenter(new Point(Game.DIM.width / 2, Game.DIM.height / 2));
+
+        //Set universe according to mod of level - cycle through universes
+        int ordinal = level % CommandCenter.Universe.values().length;
+        CommandCenter.Universe key = CommandCenter.Universe.values()[ordinal];
+        CommandCenter.getInstance().setUniverse(key);
+        //players will need radar in the big universes, but they can still toggle it off
+        CommandCenter.getInstance().setRadar(ordinal > 1);
+
+        //bump the level up
+        level = level + 1;
+        CommandCenter.getInstance().setLevel(level);
+        //spawn some big new asteroids
+        spawnBigAsteroids(level);
+        //make falcon invincible momentarily in case new asteroids spawn on top of him, and give player
+        //time to adjust to new universe and new asteroids in game space.
+        CommandCenter.getInstance().getFalcon().setShield(Falcon.INITIAL_SPAWN_TIME);
+        //show "Level: [X] UNIVERSE" in middle of screen
+        CommandCenter.getInstance().getFalcon().setShowLevel(Falcon.INITIAL_SPAWN_TIME);
+
+        if (event != null && event.shouldCommit()) {
+            event.frame = CommandCenter.getInstance().getFrame();
+            event.clearedLevel = level - 1;
+            event.level = level;
+            event.universe = key.name();
+            event.asteroidsSpawned = level;
+            event.score = CommandCenter.getInstance().getScore();
+            event.commit();
+        }
+
+    }
+
+}
@@ -22,6 +22,9 @@ public class SoundLoader {
 	 */
 	private static final Map<String, Clip> LOOPED_CLIPS_MAP;
 
+	//when muted, e.g. in a HeadlessGame that has no audio device, playSound() and stopSound() do nothing
+	private static volatile boolean muted;
+
 	// Load all looping sounds in the static context.
 	static {
 		Path rootDirectory = Paths.get("src/main/resources/sounds");
@@ -99,8 +102,29 @@ public class SoundLoader {
 
 
 
+	public static void setMuted(boolean muted) {
+		SoundLoader.muted = muted;
+	}
+
+	//the non-looped sounds waiting for a thread of the soundExecutor, e.g. for GameMetrics
+	public static int getQueuedSounds() {
+		return soundExecutor.getQueue().size();
+	}
+
 	// Used for both looped and non-looped clips
 	public static void playSound(final String strPath) {
+		GameEvents.SoundDispatch event = GameEvents.beginSoundDispatch();
+		dispatchSound(strPath);
+		if (event != null && event.shouldCommit()) {
+			event.sound = strPath;
+			event.looped = loopedCondition(strPath);
+			event.muted = muted;
+			event.commit();
+		}
+	}
+
+	private static void dispatchSound(final String strPath) {
+		if (muted) return;
 		//Looped clips are fetched from existing static LOOP_SOUNDS_MAP at runtime.
 		if (loopedCondition(strPath)){
 			try {
@@ -135,7 +159,7 @@ public class SoundLoader {
 	//Non-looped clips can not be stopped, they simply expire on their own. Calling this method on a
 	// non-looped clip will do nothing.
 	public static void stopSound(final String strPath) {
-		if (!loopedCondition(strPath)) return;
+		if (muted || !loopedCondition(strPath)) return;
 		try {
 			LOOPED_CLIPS_MAP.get(strPath).stop();
 		} catch (Exception e){
@@ -0,0 +1,211 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import edu.uchicago.gerber.mvc.model.Movable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+
+/*
+ Hashes the foes into a uniform grid that spans the Universe, and each friend only tests the foes in the cells it
+ overlaps. See SpatialHashGrid for details.
+
+ Above PARALLEL_THRESHOLD friends plus foes, the friends are split into spatial regions (bands of grid cells holding
+ about the same number of friends) and the regions query the grid in parallel on the common ForkJoinPool. Each region
+ writes its hits into its own buffer, and the buffers are merged by friend list index, so the pairs are reported in
+ exactly the same order as a single-threaded run. Below the threshold, forking costs more than it saves.
+ */
+public class SpatialHashCollisionDetector implements CollisionDetector {
+
+    //a normal game has a few hundred movables at most, and stays single-threaded
+    public static final int PARALLEL_THRESHOLD = 2_000;
+    //several regions per worker, so that work-stealing can even out regions that happen to be more expensive
+    private static final int REGIONS_PER_WORKER = 4;
+
+    //reused every frame
+    private final SpatialHashGrid grid = new SpatialHashGrid();
+    private final int parallelThreshold;
+    //candidates put to the exact test by the most recent detect()
+    private long pairsTested;
+
+    //parallel mode only; all reused every frame
+    private final Region[] regions;
+    private final int[] cursors;
+    private Movable[] friendsByIndex = new Movable[64];
+    //(cell << 32 | friendIndex), sorted to group the friends into regions
+    private long[] friendKeys = new long[64];
+
+    public SpatialHashCollisionDetector() {
+        this(PARALLEL_THRESHOLD);
+    }
+
+    public SpatialHashCollisionDetector(int parallelThreshold) {
+        this(parallelThreshold, ForkJoinPool.getCommonPoolParallelism() > 1
+                ? ForkJoinPool.getCommonPoolParallelism() * REGIONS_PER_WORKER : 0);
+    }
+
+    //the given number of regions, even where the common pool has a single worker, e.g. to test the parallel mode on
+    //any machine; with 0 regions, it never forks
+    SpatialHashCollisionDetector(int parallelThreshold, int numRegions) {
+        this.parallelThreshold = parallelThreshold;
+        regions = new Region[numRegions];
+        for (int i = 0; i < numRegions; i++) {
+            regions[i] = new Region();
+        }
+        cursors = new int[numRegions];
+    }
+
+    @Override
+    public void detect(List<Movable> friends, List<Movable> foes, int universeWidth, int universeHeight,
+                       CollisionListener onCollision) {
+
+        pairsTested = 0;
+        if (friends.isEmpty() || foes.isEmpty()) return;
+
+        int maxFriendRadius = 0;
+        for (Movable movFriend : friends) {
+            maxFriendRadius = Math.max(maxFriendRadius, movFriend.getRadius());
+        }
+        grid.rebuild(foes, universeWidth, universeHeight, maxFriendRadius);
+
+        if (regions.length > 0 && friends.size() + foes.size() >= parallelThreshold) {
+            detectParallel(friends, onCollision);
+        } else {
+            for (Movable movFriend : friends) {
+                grid.forEachHit(movFriend, onCollision);
+            }
+            pairsTested = grid.getQuery().takeTested();
+        }
+        grid.clear();
+    }
+
+    private void detectParallel(List<Movable> friends, CollisionListener onCollision) {
+
+        int numFriends = friends.size();
+        if (friendsByIndex.length < numFriends) {
+            friendsByIndex = new Movable[numFriends * 2];
+            friendKeys = new long[numFriends * 2];
+        }
+        int index = 0;
+        for (Movable movFriend : friends) {
+            friendsByIndex[index] = movFriend;
+            friendKeys[index] = (long) grid.cellOf(movFriend) << 32 | index;
+            index++;
+        }
+        //sorting by cell (row-major) makes each contiguous slice of friends a band of neighboring cells
+        Arrays.sort(friendKeys, 0, numFriends);
+
+        //every foe may be tested by several regions at once. See Narrowphase.prepare()
+        IntStream.range(0, grid.size()).parallel().forEach(item -> Narrowphase.prepare(grid.getItem(item)));
+
+        for (int r = 0; r < regions.length; r++) {
+            regions[r].assign(friendKeys, numFriends * r / regions.length, numFriends * (r + 1) / regions.length);
+            regions[r].reinitialize();
+        }
+        ForkJoinTask.invokeAll(regions);
+        for (Region region : regions) {
+            pairsTested += region.query.takeTested();
+        }
+
+        merge(onCollision);
+        Arrays.fill(friendsByIndex, 0, numFriends, null);
+    }
+
+    //Each region holds its hits sorted by friend index, and each friend belongs to exactly one region, so repeatedly
+    //taking the hits of the lowest friend index among the regions restores the order of the single-threaded run.
+    private void merge(CollisionListener onCollision) {
+
+        Arrays.fill(cursors, 0);
+        while (true) {
+            int next = -1;
+            int nextFriend = Integer.MAX_VALUE;
+            for (int r = 0; r < regions.length; r++) {
+                Region region = regions[r];
+                if (cursors[r] < region.numHits && region.hitFriend[cursors[r]] < nextFriend) {
+                    next = r;
+                    nextFriend = region.hitFriend[cursors[r]];
+                }
+            }
+            if (next == -1) break;
+
+            Region region = regions[next];
+            int hit = cursors[next];
+            do {
+                onCollision.onCollision(friendsByIndex[nextFriend], region.hitFoe[hit], region.hitToi[hit]);
+                region.hitFoe[hit] = null;
+                hit++;
+            } while (hit < region.numHits && region.hitFriend[hit] == nextFriend);
+            cursors[next] = hit;
+        }
+    }
+
+    //a slice of the friends, and the buffer of hits they produce; runs on a ForkJoinPool worker
+    private class Region extends RecursiveAction implements CollisionListener {
+
+        //ForkJoinTask is Serializable, but these tasks are never serialized
+        private static final long serialVersionUID = 1L;
+
+        private final SpatialHashGrid.Query query = new SpatialHashGrid.Query();
+        //friend list indices, ascending
+        private int[] friendIndices = new int[64];
+        private int numFriends;
+
+        //hits in the order they were found, i.e. by friend index, then by foe list index
+        private int[] hitFriend = new int[64];
+        private Movable[] hitFoe = new Movable[64];
+        private double[] hitToi = new double[64];
+        private int numHits;
+        private int currentFriend;
+
+        private void assign(long[] friendKeys, int from, int to) {
+            numFriends = to - from;
+            if (friendIndices.length < numFriends) friendIndices = new int[numFriends * 2];
+            for (int i = 0; i < numFriends; i++) {
+                friendIndices[i] = (int) friendKeys[from + i];
+            }
+            Arrays.sort(friendIndices, 0, numFriends);
+            numHits = 0;
+        }
+
+        @Override
+        protected void compute() {
+            //this may run on any worker of the common pool, which is not bound to this world; everything below must
+            //do with what Narrowphase.prepare() has prepared. See CommandCenter.getInstance()
+            CommandCenter.setDetached(true);
+            try {
+                for (int i = 0; i < numFriends; i++) {
+                    currentFriend = friendIndices[i];
+                    //a friend belongs to this region only, so it need not be prepared like the foes
+                    grid.forEachHit(friendsByIndex[currentFriend], query, this);
+                }
+            } finally {
+                CommandCenter.setDetached(false);
+            }
+        }
+
+        @Override
+        public void onCollision(Movable movFriend, Movable movFoe, double timeOfImpact) {
+            if (numHits == hitFriend.length) {
+                hitFriend = Arrays.copyOf(hitFriend, numHits * 2);
+                hitFoe = Arrays.copyOf(hitFoe, numHits * 2);
+                hitToi = Arrays.copyOf(hitToi, numHits * 2);
+            }
+            hitFriend[numHits] = currentFriend;
+            hitFoe[numHits] = movFoe;
+            hitToi[numHits++] = timeOfImpact;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "grid";
+    }
+
+    @Override
+    public long getPairsTested() {
+        return pairsTested;
+    }
+}
@@ -0,0 +1,228 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import edu.uchicago.gerber.mvc.model.Movable;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ A uniform-grid spatial hash used as the broad-phase of collision detection. The grid is rebuilt once per frame from
+ the foes list; each friend then queries only the cells that its bounding-box overlaps, rather than testing every foe.
+ This reduces the order-of-growth of checkCollisions() from O(FOES * FRIENDS) to roughly O(FOES + FRIENDS).
+
+ The grid covers the entire Universe (see CommandCenter.getUniDim()) and wraps toroidally, just as Sprite.move() wraps
+ sprites around the edges of the Universe. A sprite whose center has stepped just beyond an edge (e.g. x = -4) lands in
+ the cells on the far side of the grid, and since those cells are neighbors of the cells along the near edge, pairs
+ that straddle an edge are still found.
+
+ The narrow-phase test is the same test used by the reference implementation (see Collisions), and hits are reported
+ in the same order (friends in list order, then foes in list order), so the pairs reported are identical.
+
+ Once rebuilt, the grid itself is read-only, and all the scratch state of a query lives in a Query object. Several
+ threads may therefore query the grid at the same time, provided each uses its own Query.
+ */
+public class SpatialHashGrid {
+
+    //bounds on the edge-length of a cell in pixels. See sizeCells()
+    private static final int MIN_CELL = 32;
+    private static final int MAX_CELL = 512;
+
+    private int cols, rows;
+    private double cellWidth, cellHeight;
+
+    //The buckets are intrusive singly-linked lists stored in flat arrays: cellHeads[cell] is the first entry of that
+    //cell, entryNext[entry] is the next entry in the same cell, and entryItem[entry] is an index into items[].
+    //All arrays are reused from frame to frame and only grow, so a rebuild does not allocate in steady-state.
+    private int[] cellHeads = new int[0];
+    private int[] entryNext = new int[256];
+    private int[] entryItem = new int[256];
+    private int entryCount;
+
+    private Movable[] items = new Movable[64];
+    private int itemCount;
+
+    //scratch bounding-box {minX, minY, maxX, maxY} for insert()
+    private final int[] bounds = new int[4];
+    //used by forEachHit() when called without a Query of its own
+    private final Query query = new Query();
+
+    //the scratch state of one query; reused from query to query
+    public static class Query {
+
+        //an item that spans several cells is reported once per query; stamps[item] records the last query that saw it
+        private int[] stamps = new int[64];
+        private int queryStamp;
+
+        //candidate item indices for the current query, sorted to preserve the original list order
+        private int[] candidates = new int[64];
+        //scratch bounding-box {minX, minY, maxX, maxY}
+        private final int[] bounds = new int[4];
+        //the number of candidates put to the exact test by the queries so far
+        private long tested;
+
+        //returns the number tested since the last call
+        public long takeTested() {
+            long tested = this.tested;
+            this.tested = 0;
+            return tested;
+        }
+    }
+
+    //rebuild the grid from the items (e.g. the foes) and a universe measured in pixels.
+    //maxProbeRadius is the radius of the largest sprite that will query the grid (e.g. the largest friend)
+    public void rebuild(List<Movable> movables, int universeWidth, int universeHeight, int maxProbeRadius) {
+
+        itemCount = 0;
+        entryCount = 0;
+        if (items.length < movables.size()) {
+            items = new Movable[movables.size() * 2];
+        }
+        long radiusSum = 0;
+        for (Movable mov : movables) {
+            items[itemCount++] = mov;
+            radiusSum += mov.getRadius();
+        }
+        sizeCells(universeWidth, universeHeight, itemCount == 0 ? 0 : (int) (radiusSum / itemCount), maxProbeRadius);
+
+        for (int item = 0; item < itemCount; item++) {
+            insert(item);
+        }
+    }
+
+    //The cell size comes from the live radius distribution. A cell about the size of the average foe (diameter)
+    //means that most foes span at most 2x2 cells: large Asteroids (radius 110) dominate this value when present,
+    //and the grid becomes finer as the field fills up with medium and small Asteroids. We also make the cells at least
+    //as wide as the largest probe radius (e.g. an exploding Nuke) so that a query never visits more than 3x3 cells.
+    private void sizeCells(int universeWidth, int universeHeight, int meanRadius, int maxProbeRadius) {
+
+        int cellSize = Math.max(meanRadius * 2, maxProbeRadius);
+        cellSize = Math.max(MIN_CELL, Math.min(MAX_CELL, cellSize));
+
+        //the cells must tile the universe exactly, otherwise wrap-around would produce a seam
+        cols = Math.max(1, universeWidth / cellSize);
+        rows = Math.max(1, universeHeight / cellSize);
+        cellWidth = (double) universeWidth / cols;
+        cellHeight = (double) universeHeight / rows;
+
+        int numCells = cols * rows;
+        if (cellHeads.length < numCells) cellHeads = new int[numCells];
+        Arrays.fill(cellHeads, 0, numCells, -1);
+    }
+
+    private void insert(int item) {
+
+        //fast movers are inserted along their swept path. See Collisions
+        Collisions.sweptBounds(items[item], bounds);
+        int col0 = (int) Math.floor(bounds[0] / cellWidth);
+        int row0 = (int) Math.floor(bounds[1] / cellHeight);
+        int col1 = (int) Math.floor(bounds[2] / cellWidth);
+        int row1 = (int) Math.floor(bounds[3] / cellHeight);
+        //never visit the same (wrapped) column or row twice
+        if (col1 - col0 >= cols) col1 = col0 + cols - 1;
+        if (row1 - row0 >= rows) row1 = row0 + rows - 1;
+
+        for (int row = row0; row <= row1; row++) {
+            int rowOffset = Math.floorMod(row, rows) * cols;
+            for (int col = col0; col <= col1; col++) {
+                int cell = rowOffset + Math.floorMod(col, cols);
+                if (entryCount == entryNext.length) {
+                    entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+                    entryItem = Arrays.copyOf(entryItem, entryCount * 2);
+                }
+                entryItem[entryCount] = item;
+                entryNext[entryCount] = cellHeads[cell];
+                cellHeads[cell] = entryCount++;
+            }
+        }
+    }
+
+    public int size() {
+        return itemCount;
+    }
+
+    public Movable getItem(int item) {
+        return items[item];
+    }
+
+    //the row-major index of the cell that contains the center of the movable
+    public int cellOf(Movable mov) {
+        int col = Math.floorMod((int) Math.floor(mov.getCenter().x / cellWidth), cols);
+        int row = Math.floorMod((int) Math.floor(mov.getCenter().y / cellHeight), rows);
+        return row * cols + col;
+    }
+
+    public void forEachHit(Movable probe, CollisionListener onHit) {
+        forEachHit(probe, query, onHit);
+    }
+
+    //the Query used by forEachHit() when called without a Query of its own
+    public Query getQuery() {
+        return query;
+    }
+
+    //report every item in the grid that collides with the probe. Hits are reported in the order the items appeared in
+    //the list passed to rebuild().
+    public void forEachHit(Movable probe, Query query, CollisionListener onHit) {
+
+        if (itemCount == 0) return;
+        if (query.stamps.length < itemCount) {
+            query.stamps = new int[items.length];
+            query.queryStamp = 0;
+        }
+        int[] bounds = query.bounds;
+        int[] stamps = query.stamps;
+        int[] candidates = query.candidates;
+
+        Collisions.sweptBounds(probe, bounds);
+        int col0 = (int) Math.floor(bounds[0] / cellWidth);
+        int row0 = (int) Math.floor(bounds[1] / cellHeight);
+        int col1 = (int) Math.floor(bounds[2] / cellWidth);
+        int row1 = (int) Math.floor(bounds[3] / cellHeight);
+        if (col1 - col0 >= cols) col1 = col0 + cols - 1;
+        if (row1 - row0 >= rows) row1 = row0 + rows - 1;
+
+        //start a new query; reset the stamps on the (rare) wrap-around to zero
+        int queryStamp = ++query.queryStamp;
+        if (queryStamp == 0) {
+            Arrays.fill(stamps, 0);
+            queryStamp = query.queryStamp = 1;
+        }
+
+        int numCandidates = 0;
+        for (int row = row0; row <= row1; row++) {
+            int rowOffset = Math.floorMod(row, rows) * cols;
+            for (int col = col0; col <= col1; col++) {
+                for (int entry = cellHeads[rowOffset + Math.floorMod(col, cols)]; entry != -1; entry = entryNext[entry]) {
+                    int item = entryItem[entry];
+                    if (stamps[item] == queryStamp) continue;
+                    stamps[item] = queryStamp;
+                    if (numCandidates == candidates.length) {
+                        candidates = query.candidates = Arrays.copyOf(candidates, numCandidates * 2);
+                    }
+                    candidates[numCandidates++] = item;
+                }
+            }
+        }
+
+        //restore list order so that the ops are enqueued exactly as the nested loop would have enqueued them
+        if (numCandidates > 1) Arrays.sort(candidates, 0, numCandidates);
+        query.tested += numCandidates;
+
+        for (int i = 0; i < numCandidates; i++) {
+            Movable mov = items[candidates[i]];
+            //narrow-phase: the same test used by the reference implementation
+            double toi = Collisions.timeOfImpact(probe, mov);
+            if (toi != Collisions.NO_HIT) {
+                onHit.onCollision(probe, mov, toi);
+            }
+        }
+    }
+
+    //release references to the items so that removed movables may be garbage-collected
+    public void clear() {
+        Arrays.fill(items, 0, itemCount, null);
+        itemCount = 0;
+        entryCount = 0;
+    }
+
+}
@@ -0,0 +1,77 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import edu.uchicago.gerber.mvc.model.Falcon;
+import edu.uchicago.gerber.mvc.model.Movable;
+import edu.uchicago.gerber.mvc.model.MovableList;
+import edu.uchicago.gerber.mvc.model.Sprite;
+
+
+/*
+ A 64-bit hash of the full state of the world: the game values of the CommandCenter, and the position, motion and
+ life of every movable on every team, in list order. Two runs with the same seed and the same input must produce the
+ same hash after every tick; the first tick at which they differ is where the runs diverged.
+
+ The hash is cheap enough to compute after every tick: a few multiplies per field, and no allocation. The Simulation
+ chains the hash of each tick into a rolling hash, so comparing the rolling hashes at the end of two runs proves that
+ they were identical at every tick. See Simulation.getRollingHash()
+ */
+public class StateHash {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private StateHash() {}
+
+    public static long of(CommandCenter commandCenter) {
+
+        long hash = mix(0, commandCenter.getFrame());
+        hash = mix(hash, commandCenter.getScore());
+        hash = mix(hash, commandCenter.getLevel());
+        hash = mix(hash, commandCenter.getNumFalcons());
+        hash = mix(hash, commandCenter.getUniverse() == null ? -1 : commandCenter.getUniverse().ordinal());
+        hash = mix(hash, commandCenter.isPaused() ? 1 : 0);
+
+        for (int t = 0; t < commandCenter.getNumTeams(); t++) {
+            MovableList team = commandCenter.getTeam(t);
+            hash = mix(hash, team.size());
+            for (Movable mov : team) {
+                hash = hash(hash, mov);
+            }
+        }
+        return hash;
+    }
+
+    //chain the hash of one more tick into a rolling hash
+    public static long roll(long rollingHash, long tickHash) {
+        return mix(rollingHash, tickHash);
+    }
+
+    private static long hash(long hash, Movable mov) {
+
+        hash = mix(hash, mov.getClass().getName().hashCode());
+        hash = mix(hash, mov.getCenter().x);
+        hash = mix(hash, mov.getCenter().y);
+        hash = mix(hash, mov.getRadius());
+        if (mov instanceof Sprite) {
+            Sprite sprite = (Sprite) mov;
+            hash = mix(hash, Double.doubleToLongBits(sprite.getDeltaX()));
+            hash = mix(hash, Double.doubleToLongBits(sprite.getDeltaY()));
+            hash = mix(hash, sprite.getOrientation());
+            hash = mix(hash, sprite.getSpin());
+            hash = mix(hash, sprite.getExpiry());
+        }
+        if (mov instanceof Falcon) {
+            Falcon falcon = (Falcon) mov;
+            hash = mix(hash, falcon.getShield());
+            hash = mix(hash, falcon.getInvisible());
+            hash = mix(hash, falcon.getNukeMeter());
+            hash = mix(hash, falcon.getTurnState().ordinal());
+            hash = mix(hash, falcon.isThrusting() ? 1 : 0);
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        return Rng.mix64((hash ^ value) + GOLDEN_GAMMA);
+    }
+
+}
@@ -0,0 +1,241 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import edu.uchicago.gerber.mvc.model.Movable;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ An incremental sweep-and-prune (sort-and-sweep) engine. Every friend and foe is projected onto the x-axis as an
+ interval [center.x - radius, center.x + radius], and the two endpoints of each interval are kept in one array sorted by
+ x. Sweeping that array from left to right, a pair of sprites can only collide if their intervals overlap, i.e. if one
+ begins while the other is still "active".
+
+ The endpoint array is kept between frames. Sprites move only a few pixels per ~40ms frame, so the array is nearly
+ sorted at the start of each frame, and insertion sort restores the order in close to linear time.
+
+ Wrap-around is not a concern here: like the reference implementation, the narrow-phase (see Collisions) never wraps,
+ so two sprites on opposite edges of the Universe never collide.
+ */
+public class SweepAndPruneCollisionDetector implements CollisionDetector {
+
+    //each tracked movable owns a box; boxes persist between frames and freed boxes are recycled
+    private final Map<Movable, Integer> boxOf = new IdentityHashMap<>();
+    private Movable[] boxMovable = new Movable[64];
+    private boolean[] boxFriend = new boolean[64];
+    //the index of the movable in the friends or foes list this frame; used to report pairs in list order
+    private int[] boxListIndex = new int[64];
+    private int[] boxMinX = new int[64], boxMaxX = new int[64];
+    private int[] boxMinY = new int[64], boxMaxY = new int[64];
+    //the frame in which the box was last seen; boxes not seen this frame belong to movables that left the game
+    private int[] boxSeen = new int[64];
+    private int[] freeBoxes = new int[64];
+    private int numFreeBoxes, numBoxes;
+    private int frameStamp;
+
+    //sorted endpoints: (box << 1) for the min endpoint, (box << 1 | 1) for the max endpoint
+    private int[] endpoints = new int[128];
+    private int numEndpoints, numNewEndpoints;
+    //scratch space for fullSort()
+    private long[] sortKeys = new long[128];
+
+    //boxes whose interval is open during the sweep; activeSlot[box] is the position of the box in active[]
+    private int[] active = new int[64];
+    private int[] activeSlot = new int[64];
+    private int numActive;
+
+    //colliding pairs as (friendIndex << 32 | foeIndex), sorted before they are reported
+    private long[] pairs = new long[64];
+    private int numPairs;
+    //pairs whose intervals overlapped on both axes, and were put to the exact test
+    private long pairsTested;
+    private Movable[] friendsByIndex = new Movable[64];
+    private Movable[] foesByIndex = new Movable[64];
+    //scratch bounding-box {minX, minY, maxX, maxY}
+    private final int[] bounds = new int[4];
+
+    @Override
+    public void detect(List<Movable> friends, List<Movable> foes, int universeWidth, int universeHeight,
+                       CollisionListener onCollision) {
+
+        frameStamp++;
+        friendsByIndex = track(friends, true, friendsByIndex);
+        foesByIndex = track(foes, false, foesByIndex);
+        pruneUnseen();
+        //a burst of newcomers (e.g. the first frame of a level) leaves the array far from sorted
+        if (numNewEndpoints > numEndpoints / 8) fullSort();
+        else insertionSort();
+        numNewEndpoints = 0;
+        sweep();
+
+        //report in list order (friends first, then foes) to match the reference implementation. Sorting the packed
+        //pairs loses their time of impact, so it is recomputed; colliding pairs are few compared to candidate pairs.
+        if (numPairs > 1) Arrays.sort(pairs, 0, numPairs);
+        for (int i = 0; i < numPairs; i++) {
+            Movable movFriend = friendsByIndex[(int) (pairs[i] >>> 32)];
+            Movable movFoe = foesByIndex[(int) pairs[i]];
+            onCollision.onCollision(movFriend, movFoe, Collisions.timeOfImpact(movFriend, movFoe));
+        }
+        Arrays.fill(friendsByIndex, 0, friends.size(), null);
+        Arrays.fill(foesByIndex, 0, foes.size(), null);
+    }
+
+    //refresh the box of every movable in the list, creating boxes for newcomers
+    private Movable[] track(List<Movable> movables, boolean friend, Movable[] byIndex) {
+
+        if (byIndex.length < movables.size()) byIndex = new Movable[movables.size() * 2];
+        int index = 0;
+        for (Movable mov : movables) {
+            Integer box = boxOf.get(mov);
+            if (box == null) {
+                box = newBox(mov);
+                boxOf.put(mov, box);
+            }
+            //fast movers are boxed along their swept path. An inverted interval would corrupt the sweep, but
+            //sweptBounds() never inverts, even for a shrinking Nuke with a negative radius.
+            Collisions.sweptBounds(mov, bounds);
+            boxFriend[box] = friend;
+            boxListIndex[box] = index;
+            boxMinX[box] = bounds[0];
+            boxMinY[box] = bounds[1];
+            boxMaxX[box] = bounds[2];
+            boxMaxY[box] = bounds[3];
+            boxSeen[box] = frameStamp;
+            byIndex[index++] = mov;
+        }
+        return byIndex;
+    }
+
+    private int newBox(Movable mov) {
+
+        int box;
+        if (numFreeBoxes > 0) {
+            box = freeBoxes[--numFreeBoxes];
+        } else {
+            box = numBoxes++;
+            if (box == boxMovable.length) growBoxes(box * 2);
+        }
+        boxMovable[box] = mov;
+
+        //new endpoints are appended; insertion sort moves them into place
+        if (numEndpoints + 2 > endpoints.length) endpoints = Arrays.copyOf(endpoints, endpoints.length * 2);
+        endpoints[numEndpoints++] = box << 1;
+        endpoints[numEndpoints++] = box << 1 | 1;
+        numNewEndpoints += 2;
+        return box;
+    }
+
+    private void growBoxes(int capacity) {
+        boxMovable = Arrays.copyOf(boxMovable, capacity);
+        boxFriend = Arrays.copyOf(boxFriend, capacity);
+        boxListIndex = Arrays.copyOf(boxListIndex, capacity);
+        boxMinX = Arrays.copyOf(boxMinX, capacity);
+        boxMaxX = Arrays.copyOf(boxMaxX, capacity);
+        boxMinY = Arrays.copyOf(boxMinY, capacity);
+        boxMaxY = Arrays.copyOf(boxMaxY, capacity);
+        boxSeen = Arrays.copyOf(boxSeen, capacity);
+        freeBoxes = Arrays.copyOf(freeBoxes, capacity);
+        activeSlot = Arrays.copyOf(activeSlot, capacity);
+        active = Arrays.copyOf(active, capacity);
+    }
+
+    //drop the boxes (and endpoints) of movables that are no longer in the friends or foes lists
+    private void pruneUnseen() {
+
+        int kept = 0;
+        for (int i = 0; i < numEndpoints; i++) {
+            int endpoint = endpoints[i];
+            int box = endpoint >> 1;
+            if (boxSeen[box] == frameStamp) {
+                endpoints[kept++] = endpoint;
+            } else if ((endpoint & 1) == 1) {
+                //release the box once, on its max endpoint
+                boxOf.remove(boxMovable[box]);
+                boxMovable[box] = null;
+                freeBoxes[numFreeBoxes++] = box;
+            }
+        }
+        numEndpoints = kept;
+    }
+
+    private int valueOf(int endpoint) {
+        return (endpoint & 1) == 0 ? boxMinX[endpoint >> 1] : boxMaxX[endpoint >> 1];
+    }
+
+    //near-linear on a nearly-sorted array
+    private void insertionSort() {
+
+        for (int i = 1; i < numEndpoints; i++) {
+            int endpoint = endpoints[i];
+            int value = valueOf(endpoint);
+            int j = i - 1;
+            while (j >= 0 && valueOf(endpoints[j]) > value) {
+                endpoints[j + 1] = endpoints[j];
+                j--;
+            }
+            endpoints[j + 1] = endpoint;
+        }
+    }
+
+    //O(n log n) fallback. Ties are broken by endpoint, so a min endpoint always precedes the max endpoint of its box
+    private void fullSort() {
+
+        if (sortKeys.length < numEndpoints) sortKeys = new long[endpoints.length];
+        for (int i = 0; i < numEndpoints; i++) {
+            sortKeys[i] = (long) valueOf(endpoints[i]) << 32 | endpoints[i];
+        }
+        Arrays.sort(sortKeys, 0, numEndpoints);
+        for (int i = 0; i < numEndpoints; i++) {
+            endpoints[i] = (int) sortKeys[i];
+        }
+    }
+
+    private void sweep() {
+
+        numActive = 0;
+        numPairs = 0;
+        pairsTested = 0;
+        for (int i = 0; i < numEndpoints; i++) {
+            int endpoint = endpoints[i];
+            int box = endpoint >> 1;
+
+            //max endpoint: the interval closes
+            if ((endpoint & 1) == 1) {
+                int slot = activeSlot[box];
+                int last = active[--numActive];
+                active[slot] = last;
+                activeSlot[last] = slot;
+                continue;
+            }
+
+            //min endpoint: test against every open interval of the other team, then open this interval
+            for (int a = 0; a < numActive; a++) {
+                int other = active[a];
+                if (boxFriend[other] == boxFriend[box]) continue;
+                //prune on the y-axis before the exact test
+                if (boxMinY[other] >= boxMaxY[box] || boxMinY[box] >= boxMaxY[other]) continue;
+                int friend = boxFriend[box] ? box : other;
+                int foe = boxFriend[box] ? other : box;
+                pairsTested++;
+                if (Collisions.collide(boxMovable[friend], boxMovable[foe])) {
+                    if (numPairs == pairs.length) pairs = Arrays.copyOf(pairs, numPairs * 2);
+                    pairs[numPairs++] = (long) boxListIndex[friend] << 32 | boxListIndex[foe];
+                }
+            }
+            activeSlot[box] = numActive;
+            active[numActive++] = box;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "sap";
+    }
+
+    @Override
+    public long getPairsTested() {
+        return pairsTested;
+    }
+}
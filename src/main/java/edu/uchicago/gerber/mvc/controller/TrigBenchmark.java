@@ -0,0 +1,85 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import edu.uchicago.gerber.mvc.model.prime.Trig;
+
+import java.util.Random;
+
+/*
+ Development tool: compares the sine and cosine tables of Trig with the Math methods that they replace, as the game
+ uses them: whole-degree orientations (e.g. the thrust of the Falcon and the launch of a Bullet or a Nuke), and the
+ polar thetas of a VectorGeometry rotated by an orientation. Run the main() method of this class; it does not open a
+ window. Pass the number of calls per round, e.g. 10000000 (the default).
+
+ Each line gives the time of one sin() plus one cos() call, and the largest difference from Math, which must be 0 for
+ the degree tables. The tables are used only where they beat Math.
+ */
+public class TrigBenchmark {
+
+    private static final int ROUNDS = 5;
+    private static final int ANGLES = 4096;
+
+    public static void main(String[] args) {
+
+        int calls = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+
+        Random random = new Random(42);
+        //orientations as the Falcon's turns leave them, including the overshoot below 0 and above 360
+        int[] degrees = new int[ANGLES];
+        //polar thetas plus a rotation
+        double[] radians = new double[ANGLES];
+        for (int i = 0; i < ANGLES; i++) {
+            degrees[i] = random.nextInt(381) - 10;
+            radians[i] = random.nextDouble() * 4 * Math.PI - Math.PI;
+        }
+
+        System.out.printf("%10s %8s %12s %12s%n", "angles", "method", "ns/call", "max error");
+        //the last round of each is reported; the earlier ones warm up the JIT
+        for (int round = 1; round <= ROUNDS; round++) {
+            boolean report = round == ROUNDS;
+            time("degrees", "Math", calls, report, i -> Math.sin(Math.toRadians(degrees[i & (ANGLES - 1)]))
+                    + Math.cos(Math.toRadians(degrees[i & (ANGLES - 1)])), 0);
+            time("degrees", "Trig", calls, report, i -> Trig.sinDeg(degrees[i & (ANGLES - 1)])
+                    + Trig.cosDeg(degrees[i & (ANGLES - 1)]), maxError(degrees));
+            time("radians", "Math", calls, report, i -> Math.sin(radians[i & (ANGLES - 1)])
+                    + Math.cos(radians[i & (ANGLES - 1)]), 0);
+            time("radians", "Trig", calls, report, i -> Trig.sin(radians[i & (ANGLES - 1)])
+                    + Trig.cos(radians[i & (ANGLES - 1)]), maxError(radians));
+        }
+    }
+
+    private interface Call {
+        double apply(int i);
+    }
+
+    private static void time(String angles, String method, int calls, boolean report, Call call, double maxError) {
+        long start = System.nanoTime();
+        //summed and printed, so that the JIT cannot drop the calls
+        double sum = 0;
+        for (int i = 0; i < calls; i++) {
+            sum += call.apply(i);
+        }
+        double nanosPerCall = (double) (System.nanoTime() - start) / calls;
+        if (report) {
+            System.out.printf("%10s %8s %12.2f %12.2e   (sum %.3f)%n", angles, method, nanosPerCall, maxError, sum);
+        }
+    }
+
+    private static double maxError(int[] degrees) {
+        double max = 0;
+        for (int d : degrees) {
+            max = Math.max(max, Math.abs(Trig.sinDeg(d) - Math.sin(Math.toRadians(d))));
+            max = Math.max(max, Math.abs(Trig.cosDeg(d) - Math.cos(Math.toRadians(d))));
+        }
+        return max;
+    }
+
+    private static double maxError(double[] radians) {
+        double max = 0;
+        for (double r : radians) {
+            max = Math.max(max, Math.abs(Trig.sin(r) - Math.sin(r)));
+            max = Math.max(max, Math.abs(Trig.cos(r) - Math.cos(r)));
+        }
+        return max;
+    }
+
+}
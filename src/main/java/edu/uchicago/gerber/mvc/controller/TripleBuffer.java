@@ -0,0 +1,56 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/*
+ A lock-free triple buffer that hands the latest of a stream of objects (e.g. FrameSnapshots) from one writer thread
+ to one reader thread. There are three buffers: the writer owns the back buffer, the reader owns the front buffer, and
+ the middle buffer is exchanged between them with a single atomic swap. Neither thread ever waits for the other: the
+ writer may publish faster than the reader reads (older frames are simply dropped), and the reader may read faster than
+ the writer publishes (it keeps the frame it already has).
+
+ A published buffer is never written again until the reader has moved on from it, so the reader sees it as immutable.
+ */
+public class TripleBuffer<T> {
+
+    //the middle index is kept in the low bits; FRESH is set when the writer has published a buffer the reader has not
+    //yet taken
+    private static final int INDEX_MASK = 0b11;
+    private static final int FRESH = 0b100;
+
+    private final Object[] buffers = new Object[3];
+    private final AtomicInteger middle = new AtomicInteger(1);
+    //owned by the writer thread
+    private int back = 0;
+    //owned by the reader thread
+    private int front = 2;
+
+    public TripleBuffer(Supplier<T> factory) {
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = factory.get();
+        }
+    }
+
+    //writer only: the buffer to fill next
+    @SuppressWarnings("unchecked")
+    public T getBack() {
+        return (T) buffers[back];
+    }
+
+    //writer only: publish the back buffer, and take the middle buffer as the new back buffer
+    public void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    //reader only: the most recently published buffer. If nothing new was published since the last call, this is the
+    //same buffer as last time.
+    @SuppressWarnings("unchecked")
+    public T getFront() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX_MASK;
+        }
+        return (T) buffers[front];
+    }
+
+}
@@ -2,21 +2,16 @@ package edu.uchicago.gerber.mvc.model;
 
 
 import edu.uchicago.gerber.mvc.controller.CommandCenter;
-import edu.uchicago.gerber.mvc.controller.Game;
+import edu.uchicago.gerber.mvc.controller.FrameSnapshot;
 import edu.uchicago.gerber.mvc.controller.GameOp;
+import edu.uchicago.gerber.mvc.controller.Rng;
 import edu.uchicago.gerber.mvc.controller.SoundLoader;
 import edu.uchicago.gerber.mvc.model.Movable;
 import edu.uchicago.gerber.mvc.model.Sprite;
 import edu.uchicago.gerber.mvc.model.WhiteCloudDebris;
-import edu.uchicago.gerber.mvc.model.prime.PolarPoint;
 
 
 import java.awt.*;
-import java.util.Comparator;
-import java.util.LinkedList;
-import java.util.function.Function;
-import java.util.function.Supplier;
-import java.util.stream.Stream;
 import java.awt.*;
 
 
@@ -26,8 +21,47 @@ public class Asteroid extends Sprite {
 	//radius of a large asteroid
 	private final int LARGE_RADIUS = 110;
 
+	//the number of vertices of a shape, drawn at random
+	private static final int MIN_VERTICES = 25, MAX_VERTICES = 31;
+	//the vertices of this asteroid, which a reused asteroid draws anew. See generateVertices()
+	private final Point[] points = new Point[MAX_VERTICES];
+	//for each number of vertices, an array of that many of the points above, made the first time it is needed
+	private final Point[][] shapes = new Point[MAX_VERTICES - MIN_VERTICES + 1][];
+	private final double[] vertexR = new double[MAX_VERTICES];
+	private final double[] vertexTheta = new double[MAX_VERTICES];
+
 	//size determines if the Asteroid is Large (0), Medium (1), or Small (2)
 	public Asteroid(int size){
+		init(size);
+	}
+
+	//overloaded constructor, so we can spawn smaller asteroids from an exploding one
+	public Asteroid(Asteroid astExploded){
+		//calls the other constructor: Asteroid(int size)
+		this(astExploded.getSize() + 1);
+		inherit(astExploded);
+	}
+
+	//an Asteroid of the given size, reused from the pool of the world if there is one. See Pool
+	public static Asteroid spawn(int size) {
+		Asteroid asteroid = CommandCenter.getInstance().getAsteroidPool().acquire();
+		if (asteroid == null) return new Asteroid(size);
+		asteroid.reset();
+		asteroid.init(size);
+		return asteroid;
+	}
+
+	//a smaller Asteroid spawned from an exploding one, reused from the pool of the world if there is one
+	public static Asteroid spawn(Asteroid astExploded) {
+		Asteroid asteroid = astExploded.getWorld().getAsteroidPool().acquire();
+		if (asteroid == null) return new Asteroid(astExploded);
+		asteroid.reset();
+		asteroid.init(astExploded.getSize() + 1);
+		asteroid.inherit(astExploded);
+		return asteroid;
+	}
+
+	private void init(int size){
 
 		//a size of zero is a big asteroid
 		//a size of 1 or 2 is med or small asteroid respectively. See getSize() method.
@@ -45,17 +79,15 @@ public class Asteroid extends Sprite {
 		//random delta-y
 		setDeltaY(somePosNegValue(10));
 
-		setCartesians(generateVertices());
+		generateVertices();
 
 	}
 
 
 
-	//overloaded constructor, so we can spawn smaller asteroids from an exploding one
-	public Asteroid(Asteroid astExploded){
-		//calls the other constructor: Asteroid(int size)
-		this(astExploded.getSize() + 1);
-		setCenter((Point)astExploded.getCenter().clone());
+	private void inherit(Asteroid astExploded){
+		Point explodedCenter = astExploded.getCenter();
+		setCenter(explodedCenter.x, explodedCenter.y);
 		int newSmallerSize = astExploded.getSize() + 1;
 		//random delta-x : inertia + the smaller the asteroid, the faster its possible speed
 		setDeltaX(astExploded.getDeltaX() / 1.5 + somePosNegValue( 5 + newSmallerSize * 2));
@@ -81,7 +113,9 @@ public class Asteroid extends Sprite {
 
 
 
-	  private Point[] generateVertices(){
+	//draw a random shape of MIN_VERTICES to MAX_VERTICES vertices, into the Points and arrays of this asteroid, so
+	//that a reused asteroid does not allocate a new shape
+	private void generateVertices(){
 
 		  //6.283 is the max radians
 		  final int MAX_RADIANS_X1000 =6283;
@@ -90,49 +124,63 @@ public class Asteroid extends Sprite {
 		  //radius in the absence of a predefined radius.
 		  final double PRECISION = 1000.0;
 
-		  Supplier<PolarPoint> polarPointSupplier = () -> {
-			  double r = (800 + Game.R.nextInt(200)) / PRECISION; //number between 0.8 and 0.999
-			  double theta = Game.R.nextInt(MAX_RADIANS_X1000) / PRECISION; // number between 0 and 6.282
-		  	  return new PolarPoint(r, theta);
-		  };
-
-		  Function<PolarPoint, Point> polarToCartesian =
-				  pp -> new Point(
-						  (int)  (pp.getR() * PRECISION * Math.sin(pp.getTheta())),
-						  (int)  (pp.getR() * PRECISION * Math.cos(pp.getTheta())));
+		  Rng rng = getWorld().getRng();
 
 		 //random number of vertices
-		 final int VERTICES = Game.R.nextInt(7) + 25;
-
-		 return Stream.generate(polarPointSupplier)
-				 //the supplier stream will never terminate unless we use a limit.
-				 .limit(VERTICES)
-				 //I used the 'new' keyword to generate the anon-inner class; you can convert to lambda.
-				 //The polar-points must be sorted by theta, otherwise they will not render as asteroids, but
-				 //rather as a bundle of jaggedy lines. Try removing the .sorted() call to see how they render.
-				 .sorted(new Comparator<PolarPoint>() {
-							@Override
-							public int compare(PolarPoint pp1, PolarPoint pp2) {
-								return  pp1.compareTheta(pp2);
-							}
-						})
-				 .map(polarToCartesian)
-				 .toArray(Point[]::new);
-
+		 final int VERTICES = rng.nextInt(Rng.Subsystem.SHAPE, MAX_VERTICES - MIN_VERTICES + 1) + MIN_VERTICES;
+
+		 //random polar-points, r then theta, in the order that the replays and state hashes of a seed depend on
+		 for (int i = 0; i < VERTICES; i++) {
+			 vertexR[i] = (800 + rng.nextInt(Rng.Subsystem.SHAPE, 200)) / PRECISION; //number between 0.8 and 0.999
+			 vertexTheta[i] = rng.nextInt(Rng.Subsystem.SHAPE, MAX_RADIANS_X1000) / PRECISION; // number between 0 and 6.282
+		 }
+
+		 //The polar-points must be sorted by theta, otherwise they will not render as asteroids, but rather as a
+		 //bundle of jaggedy lines. An insertion sort is stable (points of equal theta keep their order, as with
+		 //Stream.sorted()) and does not allocate.
+		 for (int i = 1; i < VERTICES; i++) {
+			 double r = vertexR[i], theta = vertexTheta[i];
+			 int j = i - 1;
+			 while (j >= 0 && vertexTheta[j] > theta) {
+				 vertexR[j + 1] = vertexR[j];
+				 vertexTheta[j + 1] = vertexTheta[j];
+				 j--;
+			 }
+			 vertexR[j + 1] = r;
+			 vertexTheta[j + 1] = theta;
+		 }
+
+		 //the shape of this many vertices; each shape is made of the first Points of this asteroid
+		 Point[] shape = shapes[VERTICES - MIN_VERTICES];
+		 if (shape == null) {
+			 shape = new Point[VERTICES];
+			 for (int i = 0; i < VERTICES; i++) {
+				 if (points[i] == null) points[i] = new Point();
+				 shape[i] = points[i];
+			 }
+			 shapes[VERTICES - MIN_VERTICES] = shape;
+		 }
+		 for (int i = 0; i < VERTICES; i++) {
+			 shape[i].setLocation(
+					 (int)  (vertexR[i] * PRECISION * Math.sin(vertexTheta[i])),
+					 (int)  (vertexR[i] * PRECISION * Math.cos(vertexTheta[i])));
+		 }
+		 reshape(shape);
 
 	  }
 
 	@Override
-	public void draw(Graphics g) {
-		renderVector(g);
+	public void draw(FrameSnapshot frame) {
+		renderVector(frame);
 	}
 
 	@Override
-	public void removeFromGame(LinkedList<Movable> list) {
-		super.removeFromGame(list);
+	public boolean removeFromGame(MovableList list) {
+		//an asteroid that was not in the list has already been broken up, scored and released
+		if (!super.removeFromGame(list)) return false;
 		spawnSmallerAsteroidsOrDebris();
 		//give the user some points for destroying the asteroid
-		CommandCenter.getInstance().setScore(CommandCenter.getInstance().getScore() + 10L * (getSize() + 1));
+		getWorld().setScore(getWorld().getScore() + 10L * (getSize() + 1));
 
 		//small (2) asteroids
 		if (getSize() > 1)
@@ -141,6 +189,9 @@ public class Asteroid extends Sprite {
 		else
 			SoundLoader.playSound("kapow.wav");
 
+		//the smaller asteroids above were spawned from this one, which may now be reused
+		getWorld().getAsteroidPool().release(this);
+		return true;
 	}
 
 	private void spawnSmallerAsteroidsOrDebris() {
@@ -148,14 +199,14 @@ public class Asteroid extends Sprite {
 		int size = getSize();
 		//small (2) asteroids
 		if (size > 1) {
-			CommandCenter.getInstance().getOpsQueue().enqueue(new WhiteCloudDebris(this), GameOp.Action.ADD);
+			getWorld().getOpsQueue().enqueue(WhiteCloudDebris.spawn(this), GameOp.Action.ADD);
 		}
 		else {
 			//for large (0) and medium (1) sized Asteroids only, spawn 2 or 3 smaller asteroids respectively
 			//We can use the existing variable (size) to do this
 			size += 2;
 			while (size-- > 0) {
-				CommandCenter.getInstance().getOpsQueue().enqueue(new Asteroid(this), GameOp.Action.ADD);
+				getWorld().getOpsQueue().enqueue(Asteroid.spawn(this), GameOp.Action.ADD);
 			}
 		}
 
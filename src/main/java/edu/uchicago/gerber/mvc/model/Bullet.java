@@ -1,17 +1,37 @@
 package edu.uchicago.gerber.mvc.model;
 
+import edu.uchicago.gerber.mvc.controller.CommandCenter;
+import edu.uchicago.gerber.mvc.controller.FrameSnapshot;
 import edu.uchicago.gerber.mvc.controller.SoundLoader;
+import edu.uchicago.gerber.mvc.model.prime.Trig;
 
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
 
 public class Bullet extends Sprite {
 
+    //the points on a cartesian grid, which all Bullets share, and which are never changed
+    private static final Point[] CARTESIANS = {
+            new Point(0, 3), //top point
+            new Point(1, -1), //right bottom
+            new Point(0, 0),
+            new Point(-1, -1) //left bottom
+    };
 
 
     public Bullet(Falcon falcon) {
+        init(falcon);
+    }
+
+    //a Bullet fired by the falcon, reused from the pool of the world if there is one. See Pool
+    public static Bullet spawn(Falcon falcon) {
+        Bullet bullet = falcon.getWorld().getBulletPool().acquire();
+        if (bullet == null) return new Bullet(falcon);
+        bullet.reset();
+        bullet.init(falcon);
+        return bullet;
+    }
+
+    private void init(Falcon falcon) {
 
         setTeam(Team.FRIEND);
         setColor(Color.ORANGE);
@@ -21,16 +41,17 @@ public class Bullet extends Sprite {
 
 
         //everything is relative to the falcon ship that fired the bullet
-        setCenter((Point)falcon.getCenter().clone());
+        Point falconCenter = falcon.getCenter();
+        setCenter(falconCenter.x, falconCenter.y);
 
         //set the bullet orientation to the falcon (ship) orientation
         setOrientation(falcon.getOrientation());
 
         final double FIRE_POWER = 35.0;
         double vectorX =
-                Math.cos(Math.toRadians(getOrientation())) * FIRE_POWER;
+                Trig.cosDeg(getOrientation()) * FIRE_POWER;
         double vectorY =
-                Math.sin(Math.toRadians(getOrientation())) * FIRE_POWER;
+                Trig.sinDeg(getOrientation()) * FIRE_POWER;
 
         //fire force: falcon inertia + fire-vector
         setDeltaX(falcon.getDeltaX() + vectorX);
@@ -42,31 +63,27 @@ public class Bullet extends Sprite {
         falcon.setDeltaX(falcon.getDeltaX() - vectorX / KICK_BACK_DIVISOR);
         falcon.setDeltaY(falcon.getDeltaY() - vectorY / KICK_BACK_DIVISOR);
 
-
-        //define the points on a cartesian grid
-        List<Point> listPoints = new ArrayList<>();
-        listPoints.add(new Point(0, 3)); //top point
-        listPoints.add(new Point(1, -1)); //right bottom
-        listPoints.add(new Point(0, 0));
-        listPoints.add(new Point(-1, -1)); //left bottom
-
-        setCartesians(listPoints.toArray(new Point[0]));
-
-
-
+        setCartesians(CARTESIANS);
 
     }
 
 
     @Override
-    public void draw(Graphics g) {
-           renderVector(g);
+    public void draw(FrameSnapshot frame) {
+           renderVector(frame);
     }
 
     @Override
-    public void addToGame(LinkedList<Movable> list) {
+    public void addToGame(MovableList list) {
         super.addToGame(list);
         SoundLoader.playSound("thump.wav");
 
     }
+
+    @Override
+    public boolean removeFromGame(MovableList list) {
+        if (!super.removeFromGame(list)) return false;
+        getWorld().getBulletPool().release(this);
+        return true;
+    }
 }
@@ -0,0 +1,87 @@
+package edu.uchicago.gerber.mvc.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ A running count of the movables in a world by concrete class, and of its Asteroids by size. The MovableLists of the
+ world keep it as movables enter and leave them, i.e. in addToGame() and removeFromGame(), and when a list is cleared
+ or restored from a Keyframe. Questions such as "are any Asteroids left?" then take constant time, instead of a scan
+ of a team with instanceof every frame.
+
+ Written by the simulation thread only. Any thread may read it at any time, e.g. a metrics scrape, and sees each count
+ as of some recent moment.
+ */
+public class EntityCensus {
+
+    public static final int LARGE = 0, MEDIUM = 1, SMALL = 2;
+
+    //the concrete classes counted so far by any census, in order of first sight; a class has the same index in all
+    private static final int MAX_TYPES = 64;
+    private static final AtomicReferenceArray<Class<?>> TYPES = new AtomicReferenceArray<>(MAX_TYPES);
+    private static final ClassValue<Integer> TYPE_INDEX = new ClassValue<Integer>() {
+        //synchronized, so that two threads that see a new class at once give it one index
+        @Override
+        protected synchronized Integer computeValue(Class<?> type) {
+            int index = 0;
+            while (index < MAX_TYPES && TYPES.get(index) != null) {
+                if (TYPES.get(index) == type) return index;
+                index++;
+            }
+            if (index == MAX_TYPES) {
+                throw new IllegalStateException("more than " + MAX_TYPES + " classes of movable; see EntityCensus");
+            }
+            TYPES.set(index, type);
+            return index;
+        }
+    };
+
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(MAX_TYPES);
+    //indexed by Asteroid.getSize()
+    private final AtomicIntegerArray asteroids = new AtomicIntegerArray(3);
+
+    void added(Movable mov) {
+        count(mov, 1);
+    }
+
+    void removed(Movable mov) {
+        count(mov, -1);
+    }
+
+    //single writer, so a plain read and an ordered write are enough
+    private void count(Movable mov, int change) {
+        int index = TYPE_INDEX.get(mov.getClass());
+        counts.lazySet(index, counts.get(index) + change);
+        if (mov instanceof Asteroid) {
+            int size = ((Asteroid) mov).getSize();
+            asteroids.lazySet(size, asteroids.get(size) + change);
+        }
+    }
+
+    //the movables in the game of exactly this class, not counting its subclasses
+    public int getCount(Class<? extends Movable> type) {
+        return counts.get(TYPE_INDEX.get(type));
+    }
+
+    //the Asteroids in the game, of any size
+    public int getAsteroids() {
+        return asteroids.get(LARGE) + asteroids.get(MEDIUM) + asteroids.get(SMALL);
+    }
+
+    //the Asteroids of one size: LARGE, MEDIUM or SMALL. See Asteroid.getSize()
+    public int getAsteroids(int size) {
+        return asteroids.get(size);
+    }
+
+    //the count of each class counted so far by any census, by simple name, e.g. for GameMetrics
+    public Map<String, Integer> getCounts() {
+        Map<String, Integer> byName = new LinkedHashMap<>();
+        for (int index = 0; index < MAX_TYPES && TYPES.get(index) != null; index++) {
+            byName.put(TYPES.get(index).getSimpleName(), counts.get(index));
+        }
+        return byName;
+    }
+
+}
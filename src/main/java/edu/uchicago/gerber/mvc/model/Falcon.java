@@ -1,15 +1,15 @@
 package edu.uchicago.gerber.mvc.model;
 
 import edu.uchicago.gerber.mvc.controller.CommandCenter;
-import edu.uchicago.gerber.mvc.controller.Game;
+import edu.uchicago.gerber.mvc.controller.FrameSnapshot;
 import edu.uchicago.gerber.mvc.controller.ImageLoader;
 import edu.uchicago.gerber.mvc.controller.SoundLoader;
+import edu.uchicago.gerber.mvc.model.prime.Trig;
 import lombok.Data;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.Map;
 
 @Data
@@ -97,7 +97,9 @@ public class Falcon extends Sprite {
 	public void move() {
 
 		//only call super.move() if falcon is not fixed
-		if (!CommandCenter.getInstance().isFalconPositionFixed()) super.move();
+		if (!getWorld().isFalconPositionFixed()) super.move();
+		//the falcon still turns when fixed, so its orientation is interpolated all the same
+		else savePrevious();
 
 		if (invisible > 0) invisible--;
 		if (shield > 0) shield--;
@@ -110,11 +112,11 @@ public class Falcon extends Sprite {
 		final int MAX_VELOCITY = 39;
 
 
-		//apply some thrust vectors using trig.
+		//apply some thrust vectors using trig (looked up by degree; see Trig)
 		if (thrusting) {
-			double vectorX = Math.cos(Math.toRadians(getOrientation()))
+			double vectorX = Trig.cosDeg(getOrientation())
 					* THRUST;
-			double vectorY = Math.sin(Math.toRadians(getOrientation()))
+			double vectorY = Trig.sinDeg(getOrientation())
 					* THRUST;
 
 			//Absolute velocity is the hypotenuse of deltaX and deltaY
@@ -159,9 +161,9 @@ public class Falcon extends Sprite {
 	// implementation for draw() (contract method from Movable) ,we inherit that contract debt, and therefore must
 	// provide an implementation. This is a raster and vector (see drawShield below) implementation of draw().
 	@Override
-	public void draw(Graphics g) {
+	public void draw(FrameSnapshot frame) {
 
-		if (nukeMeter > 0) drawNukeHalo(g);
+		if (nukeMeter > 0) drawNukeHalo(frame);
 
 		//set local image-state
 		ImageState imageState;
@@ -170,47 +172,55 @@ public class Falcon extends Sprite {
 		}
 		else if (shield > 0){
 			imageState = thrusting ? ImageState.FALCON_SHIELD_THR : ImageState.FALCON_SHIELD;
-		    drawShieldHalo(g);
+		    drawShieldHalo(frame);
 		}
 		else { //not protected
 			imageState = thrusting ? ImageState.FALCON_THR : ImageState.FALCON;
 		}
 
-		//down-cast (widen the aperture of) the graphics object to gain access to methods of Graphics2D
-		//and render the raster image according to the image-state
-		renderRaster((Graphics2D) g, getRasterMap().get(imageState));
+		//render the raster image according to the image-state
+		renderRaster(frame, getRasterMap().get(imageState));
 
 	}
 
-	private void drawShieldHalo(Graphics g){
-		g.setColor(Color.CYAN);
-		g.drawOval(getCenter().x - getRadius(), getCenter().y - getRadius(), getRadius() *2, getRadius() *2);
+	//A shielded falcon collides as a circle, just like the shield halo drawn around it. Otherwise it collides
+	//pixel-accurately with the ship itself; the thruster flame is not part of the ship.
+	@Override
+	public BufferedImage getCollisionImage() {
+		if (shield > 0) return null;
+		return getRasterMap().get(ImageState.FALCON);
+	}
+
+	private void drawShieldHalo(FrameSnapshot frame){
+		frame.addOval(getCenter(), getPrevCenter(), -getRadius(), -getRadius(), getRadius() *2, getRadius() *2,
+				Color.CYAN, false);
 	}
 
-	private void drawNukeHalo(Graphics g){
+	private void drawNukeHalo(FrameSnapshot frame){
 		if (invisible > 0) return;
-		g.setColor(Color.YELLOW);
-		g.drawOval(getCenter().x - getRadius()+10, getCenter().y - getRadius()+10, getRadius() *2 -20,
-				getRadius() *2-20);
+		frame.addOval(getCenter(), getPrevCenter(), -getRadius()+10, -getRadius()+10, getRadius() *2 -20,
+				getRadius() *2-20, Color.YELLOW, false);
 	}
 
 	@Override
-	public void removeFromGame(LinkedList<Movable> list) {
+	public boolean removeFromGame(MovableList list) {
 		//The falcon is never actually removed from the game-space; instead we decrement numFalcons
 		//only execute the decrementFalconNumAndSpawn() method if shield is down.
 		if ( shield == 0)  decrementFalconNumAndSpawn();
+		return false;
 	}
 
 
 	public void decrementFalconNumAndSpawn(){
 
-		CommandCenter.getInstance().setNumFalcons(CommandCenter.getInstance().getNumFalcons() -1);
-		if (CommandCenter.getInstance().isGameOver()) return;
+		getWorld().setNumFalcons(getWorld().getNumFalcons() -1);
+		if (getWorld().isGameOver()) return;
 		SoundLoader.playSound("shipspawn.wav");
 		setShield(Falcon.INITIAL_SPAWN_TIME);
 		setInvisible(Falcon.INITIAL_SPAWN_TIME/5);
 		//random number between 0-360 in steps of TURN_STEP
-		setOrientation(Game.R.nextInt(360 / Falcon.TURN_STEP) * Falcon.TURN_STEP);
+		int steps = getWorld().getRng().nextInt(randomSubsystem(), 360 / Falcon.TURN_STEP);
+		setOrientation(steps * Falcon.TURN_STEP);
 		setDeltaX(0);
 		setDeltaY(0);
 		setRadius(Falcon.MIN_RADIUS);
@@ -1,5 +1,7 @@
 package edu.uchicago.gerber.mvc.model;
 
+import edu.uchicago.gerber.mvc.controller.FrameSnapshot;
+import edu.uchicago.gerber.mvc.controller.Rng;
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -37,8 +39,13 @@ public abstract class Floater extends Sprite {
     }
 
     @Override
-    public void draw(Graphics g) {
-        renderVector(g);
+    protected Rng.Subsystem randomSubsystem() {
+        return Rng.Subsystem.FLOATER;
+    }
+
+    @Override
+    public void draw(FrameSnapshot frame) {
+        renderVector(frame);
     }
 
 }
@@ -3,6 +3,7 @@ package edu.uchicago.gerber.mvc.model;
 
 
 import edu.uchicago.gerber.mvc.controller.CommandCenter;
+import edu.uchicago.gerber.mvc.controller.FrameSnapshot;
 import edu.uchicago.gerber.mvc.controller.Game;
 import edu.uchicago.gerber.mvc.model.Falcon;
 import edu.uchicago.gerber.mvc.model.Nuke;
@@ -38,96 +39,100 @@ public class MiniMap extends Sprite {
 
 
     @Override
-    public void draw(Graphics g) {
+    public void draw(FrameSnapshot frame) {
 
         //controlled by the A-key
-        if (!CommandCenter.getInstance().isRadar()) return;
+        if (!getWorld().isRadar()) return;
 
         //get the aspect-ratio which is used to adjust for non-square universes
-        aspectRatio = aspectAdjustedRatio(CommandCenter.getInstance().getUniDim());
+        aspectRatio = aspectAdjustedRatio(getWorld().getUniDim());
 
         //scale to some percent of game-dim
         int miniWidth = (int) Math.round( MINI_MAP_PERCENT * Game.DIM.width * aspectRatio.getWidth());
         int miniHeight = (int) Math.round(MINI_MAP_PERCENT * Game.DIM.height * aspectRatio.getHeight());
 
         //gray bounding box (entire universe)
-        g.setColor(Color.DARK_GRAY);
-        g.drawRect(
+        frame.addRect(
                 0,
                 0,
                 miniWidth,
-                miniHeight
+                miniHeight,
+                Color.DARK_GRAY, false
         );
 
 
         //draw the view-portal box
-        g.setColor(Color.DARK_GRAY);
-        int miniViewPortWidth = miniWidth / CommandCenter.getInstance().getUniDim().width;
-        int miniViewPortHeight = miniHeight / CommandCenter.getInstance().getUniDim().height;
-        g.drawRect(
+        int miniViewPortWidth = miniWidth / getWorld().getUniDim().width;
+        int miniViewPortHeight = miniHeight / getWorld().getUniDim().height;
+        frame.addRect(
                 0 ,
                 0,
                 miniViewPortWidth,
-                miniViewPortHeight
+                miniViewPortHeight,
+                Color.DARK_GRAY, false
 
         );
 
 
         //draw debris radar-blips.
-        CommandCenter.getInstance().getMovDebris().forEach( mov -> {
-                    g.setColor(Color.DARK_GRAY);
+        getWorld().getMovDebris().forEach( mov -> {
                     Point translatedPoint = translatePoint(mov.getCenter());
-                    g.fillOval(translatedPoint.x - 1, translatedPoint.y - 1, 2, 2);
+                    frame.addOval(translatedPoint, translatedPoint, -1, -1, 2, 2, Color.DARK_GRAY, true);
                 }
         );
 
 
+        //the census tells which kinds of blip there are, so that the loops below test the type of a movable only
+        //when it may be of that kind
+        EntityCensus census = getWorld().getCensus();
+        boolean anyNukeFloaters = census.getCount(NukeFloater.class) > 0;
+        boolean anyNukes = census.getCount(Nuke.class) > 0;
+        Falcon falcon = getWorld().getFalcon();
+
         //draw foe (asteroids) radar-blips
-        CommandCenter.getInstance().getMovFoes().forEach( mov -> {
+        if (census.getAsteroids() > 0) getWorld().getMovFoes().forEach( mov -> {
                     if (!(mov instanceof  Asteroid)) return;
                     Asteroid asteroid = (Asteroid) mov;
-                    g.setColor(LIGHT_GRAY);
                     Point translatedPoint = translatePoint(asteroid.getCenter());
                     switch (asteroid.getSize()){
                         //large
                         case 0:
-                            g.fillOval(translatedPoint.x - 3, translatedPoint.y - 3, 6, 6);
+                            frame.addOval(translatedPoint, translatedPoint, -3, -3, 6, 6, LIGHT_GRAY, true);
                             break;
                         //med
                         case 1:
-                            g.drawOval(translatedPoint.x - 3, translatedPoint.y - 3, 6, 6);
+                            frame.addOval(translatedPoint, translatedPoint, -3, -3, 6, 6, LIGHT_GRAY, false);
                             break;
                         //small
                         case 2:
                         default:
-                            g.drawOval(translatedPoint.x - 2, translatedPoint.y - 2, 4, 4);
+                            frame.addOval(translatedPoint, translatedPoint, -2, -2, 4, 4, LIGHT_GRAY, false);
                     }
                 }
         );
 
 
         //draw floater radar-blips
-        CommandCenter.getInstance().getMovFloaters().forEach( mov -> {
-                    g.setColor(mov instanceof NukeFloater ? Color.YELLOW : Color.CYAN);
+        getWorld().getMovFloaters().forEach( mov -> {
                     Point translatedPoint = translatePoint(mov.getCenter());
-                    g.fillRect(translatedPoint.x - 2, translatedPoint.y - 2, 4, 4);
+                    frame.addRect(translatedPoint.x - 2, translatedPoint.y - 2, 4, 4,
+                            anyNukeFloaters && mov instanceof NukeFloater ? Color.YELLOW : Color.CYAN, true);
                 }
         );
 
 
 
         //draw friend radar-blips
-        CommandCenter.getInstance().getMovFriends().forEach( mov -> {
+        getWorld().getMovFriends().forEach( mov -> {
                     Color color;
-                    if (mov instanceof Falcon && CommandCenter.getInstance().getFalcon().getShield() > 0)
+                    if (mov == falcon && falcon.getShield() > 0)
                         color = Color.CYAN;
-                    else if (mov instanceof Nuke)
+                    else if (anyNukes && mov instanceof Nuke)
                         color = Color.YELLOW;
                     else
                         color = PUMPKIN;
-                    g.setColor(color);
                     Point translatedPoint = translatePoint(mov.getCenter());
-                    g.fillOval(translatedPoint.x - 2, translatedPoint.y - 2, 4, 4);
+                    frame.addOval(translatedPoint, translatedPoint, -2, -2, 4, 4, color, true);
                 }
         );
 
@@ -138,8 +143,8 @@ public class MiniMap extends Sprite {
     //Since Java's draw origin (0,0) is at the top-left, points will translate up and left.
     private Point translatePoint(Point point){
         return new Point(
-                (int) Math.round( MINI_MAP_PERCENT  * point.x / CommandCenter.getInstance().getUniDim().width * aspectRatio.getWidth()),
-                (int) Math.round( MINI_MAP_PERCENT  * point.y / CommandCenter.getInstance().getUniDim().height * aspectRatio.getHeight())
+                (int) Math.round( MINI_MAP_PERCENT  * point.x / getWorld().getUniDim().width * aspectRatio.getWidth()),
+                (int) Math.round( MINI_MAP_PERCENT  * point.y / getWorld().getUniDim().height * aspectRatio.getHeight())
         );
     }
 
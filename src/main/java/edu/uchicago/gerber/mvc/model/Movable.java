@@ -1,7 +1,8 @@
 package edu.uchicago.gerber.mvc.model;
 
+import edu.uchicago.gerber.mvc.controller.FrameSnapshot;
+
 import java.awt.*;
-import java.util.LinkedList;
 
 
 /* TODO This interface is an example of the Facade design pattern which provides a simplified
@@ -12,14 +13,20 @@ public interface Movable {
 
 	enum Team {FRIEND, FOE, FLOATER, DEBRIS}
 
-	//for the game to move and draw movable objects. See the GamePanel class.
+	//for the game to move and draw movable objects. draw() runs on the simulation thread and records how to draw this
+	//movable in a FrameSnapshot, which the render thread draws later. See the Game and GamePanel classes.
 	void move();
-	void draw(Graphics g);
+	void draw(FrameSnapshot frame);
 
 	//for collision detection
 	Point getCenter();
 	int getRadius();
 	Team getTeam();
+	//the center-point before the most recent move(), for continuous collision detection of fast movers.
+	//Movables that do not track their previous position are treated as stationary.
+	default Point getPrevCenter() {
+		return getCenter();
+	}
 
 
 
@@ -27,9 +34,15 @@ public interface Movable {
 	//this is your opportunity to add sounds or perform other side effects.
 	//The 'list' parameter will be one of the following: movFriends, movFoes, movDebris, movFloaters.
 	//See processGameOpsQueue() of Game class
-	void addToGame(LinkedList<Movable> list);
+	void addToGame(MovableList list);
+
+	//returns whether this movable was removed from the list. It may not have been, e.g. if it had already been removed,
+	//in which case the side effects of a removal (e.g. spawning, scoring, releasing to a pool) must not happen again
+	boolean removeFromGame(MovableList list);
 
-	void removeFromGame(LinkedList<Movable> list);
+	//the index of this movable in its team's MovableList, or -1 while it is in none. Set by the MovableList only
+	int getSlot();
+	void setSlot(int slot);
 
 
 } //end Movable
@@ -0,0 +1,151 @@
+package edu.uchicago.gerber.mvc.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/*
+ The movables of one team (movFriends, movFoes, movDebris or movFloaters of CommandCenter), packed densely into an
+ array. Each movable records its slot, i.e. its index in the array, so that add() and remove() take constant time:
+ remove() moves the last movable into the vacated slot, instead of scanning the list for an equal movable and
+ unlinking it. Iteration walks the array.
+
+ Unlike other Lists, the order of the movables is therefore not kept when one is removed, and a movable can be in only
+ one MovableList at a time (which a movable's team guarantees), and only once. Indices other than those of get() are
+ not supported. Simulation thread only.
+
+ With Storage.ARRAYS, the motion state of the sprites also lives in the list, in a SpriteArrays that moveAll() moves
+ in batches. See SpriteArrays
+
+ A list given an EntityCensus keeps it up to date as movables enter and leave.
+ */
+public class MovableList extends AbstractList<Movable> implements RandomAccess {
+
+    //where the motion state of the sprites in the list lives: in the sprites themselves, or in parallel arrays
+    public enum Storage {OBJECTS, ARRAYS}
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Movable[] movables = new Movable[INITIAL_CAPACITY];
+    private int size;
+    //null for Storage.OBJECTS
+    private final SpriteArrays arrays;
+    //null if the movables are not counted
+    private final EntityCensus census;
+
+    public MovableList() {
+        this(Storage.OBJECTS);
+    }
+
+    public MovableList(Storage storage) {
+        this(storage, null);
+    }
+
+    public MovableList(Storage storage, EntityCensus census) {
+        arrays = storage == Storage.ARRAYS ? new SpriteArrays(INITIAL_CAPACITY) : null;
+        this.census = census;
+    }
+
+    public Storage getStorage() {
+        return arrays == null ? Storage.OBJECTS : Storage.ARRAYS;
+    }
+
+    @Override
+    public Movable get(int index) {
+        if (index >= size) throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        return movables[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean add(Movable mov) {
+        if (mov.getSlot() >= 0) {
+            throw new IllegalArgumentException(mov.getClass().getSimpleName() + " is already in slot " +
+                    mov.getSlot() + " of a MovableList");
+        }
+        if (size == movables.length) {
+            movables = Arrays.copyOf(movables, size * 2);
+            if (arrays != null) arrays.grow(size * 2);
+        }
+        movables[size] = mov;
+        mov.setSlot(size);
+        if (arrays != null) arrays.attach(size, mov);
+        if (census != null) census.added(mov);
+        size++;
+        modCount++;
+        return true;
+    }
+
+    //by identity, in constant time; false if the movable is not in this list
+    @Override
+    public boolean remove(Object o) {
+        if (!contains(o)) return false;
+        Movable mov = (Movable) o;
+        int slot = mov.getSlot();
+        if (arrays != null) arrays.detach(slot);
+        Movable last = movables[--size];
+        movables[slot] = last;
+        last.setSlot(slot);
+        if (arrays != null && slot != size) arrays.copy(size, slot);
+        movables[size] = null;
+        mov.setSlot(-1);
+        if (census != null) census.removed(mov);
+        modCount++;
+        return true;
+    }
+
+    //by identity, in constant time
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Movable)) return false;
+        int slot = ((Movable) o).getSlot();
+        return slot >= 0 && slot < size && movables[slot] == o;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return contains(o) ? ((Movable) o).getSlot() : -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    //move() every movable, in order. With Storage.ARRAYS, each run of sprites that move with Sprite.move() itself is
+    //moved in one batch, and the other movables by their own move() between the runs, so that every movable sees the
+    //world just as it would if each were moved in turn
+    public void moveAll() {
+        if (arrays == null) {
+            for (int i = 0; i < size; i++) {
+                movables[i].move();
+            }
+            return;
+        }
+        int i = 0;
+        while (i < size) {
+            int end = i;
+            while (end < size && arrays.inheritsMove(end)) end++;
+            if (end > i) arrays.move(i, end);
+            if (end < size) movables[end].move();
+            i = end + 1;
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            if (arrays != null) arrays.detach(i);
+            movables[i].setSlot(-1);
+            if (census != null) census.removed(movables[i]);
+            movables[i] = null;
+        }
+        size = 0;
+        modCount++;
+    }
+
+}
@@ -2,11 +2,12 @@ package edu.uchicago.gerber.mvc.model;
 
 
 import edu.uchicago.gerber.mvc.controller.CommandCenter;
+import edu.uchicago.gerber.mvc.controller.FrameSnapshot;
 import edu.uchicago.gerber.mvc.controller.SoundLoader;
+import edu.uchicago.gerber.mvc.model.prime.Trig;
 import lombok.Data;
 
 import java.awt.*;
-import java.util.LinkedList;
 
 @Data
 public class Nuke extends Sprite{
@@ -23,9 +24,9 @@ public class Nuke extends Sprite{
 
         final double FIRE_POWER = 11.0;
         double vectorX =
-                Math.cos(Math.toRadians(falcon.getOrientation())) * FIRE_POWER;
+                Trig.cosDeg(falcon.getOrientation()) * FIRE_POWER;
         double vectorY =
-                Math.sin(Math.toRadians(falcon.getOrientation())) * FIRE_POWER;
+                Trig.sinDeg(falcon.getOrientation()) * FIRE_POWER;
 
         //fire force: falcon inertia + fire-vector
         setDeltaX(falcon.getDeltaX() + vectorX);
@@ -35,10 +36,10 @@ public class Nuke extends Sprite{
 
 
     @Override
-    public void draw(Graphics g) {
+    public void draw(FrameSnapshot frame) {
 
-        g.setColor(getColor());
-        g.drawOval(getCenter().x -getRadius(), getCenter().y - getRadius(), getRadius() * 2, getRadius()* 2);
+        frame.addOval(getCenter(), getPrevCenter(), -getRadius(), -getRadius(), getRadius() * 2, getRadius() * 2,
+                getColor(), false);
 
     }
 
@@ -85,18 +86,18 @@ public class Nuke extends Sprite{
 
       */
     @Override
-    public void addToGame(LinkedList<Movable> list) {
+    public void addToGame(MovableList list) {
         //only deploy the nuke if the nukeMeter > 0
-        if (CommandCenter.getInstance().getFalcon().getNukeMeter() > 0){
+        if (getWorld().getFalcon().getNukeMeter() > 0){
             list.add(this);
             SoundLoader.playSound("nuke.wav");
-            CommandCenter.getInstance().getFalcon().setNukeMeter(0);
+            getWorld().getFalcon().setNukeMeter(0);
         }
     }
 
     @Override
-    public void removeFromGame(LinkedList<Movable> list) {
+    public boolean removeFromGame(MovableList list) {
         //only remove upon natural mortality (see expire() of Sprite), otherwise a Nuke is invincible
-        if (getExpiry() == 0) list.remove(this);
+        return getExpiry() == 0 && list.remove(this);
     }
 }
@@ -5,7 +5,6 @@ import edu.uchicago.gerber.mvc.controller.Game;
 import edu.uchicago.gerber.mvc.controller.SoundLoader;
 
 import java.awt.*;
-import java.util.LinkedList;
 
 public class NukeFloater extends Floater {
 
@@ -17,13 +16,14 @@ public class NukeFloater extends Floater {
 	}
 
 	@Override
-	public void removeFromGame(LinkedList<Movable> list) {
-		super.removeFromGame(list);
+	public boolean removeFromGame(MovableList list) {
+		if (!super.removeFromGame(list)) return false;
 		//if getExpiry() > 0, then this remove was the result of a collision, rather than natural mortality
 		if (getExpiry() > 0) {
 			SoundLoader.playSound("nuke-up.wav");
-			CommandCenter.getInstance().getFalcon().setNukeMeter(Falcon.MAX_NUKE);
+			getWorld().getFalcon().setNukeMeter(Falcon.MAX_NUKE);
 		}
+		return true;
 
 	}
 
@@ -5,7 +5,6 @@ import edu.uchicago.gerber.mvc.controller.Game;
 import edu.uchicago.gerber.mvc.controller.SoundLoader;
 
 import java.awt.*;
-import java.util.LinkedList;
 
 public class ShieldFloater extends Floater {
 	//spawn every 25 seconds
@@ -16,13 +15,14 @@ public class ShieldFloater extends Floater {
 	}
 
 	@Override
-	public void removeFromGame(LinkedList<Movable> list) {
-		super.removeFromGame(list);
+	public boolean removeFromGame(MovableList list) {
+		if (!super.removeFromGame(list)) return false;
 		//if getExpiry() > 0, then this remove was the result of a collision, rather than natural mortality
 		if (getExpiry() > 0) {
 			SoundLoader.playSound("shieldup.wav");
-		    CommandCenter.getInstance().getFalcon().setShield(Falcon.MAX_SHIELD);
+		    getWorld().getFalcon().setShield(Falcon.MAX_SHIELD);
 	   }
+		return true;
 
 	}
 
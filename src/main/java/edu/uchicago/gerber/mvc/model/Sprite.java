@@ -5,21 +5,26 @@ package edu.uchicago.gerber.mvc.model;
 import java.awt.*;
 import java.util.*;
 import java.util.List;
-import java.util.function.Function;
 
 import edu.uchicago.gerber.mvc.controller.CommandCenter;
+import edu.uchicago.gerber.mvc.controller.FrameSnapshot;
 import edu.uchicago.gerber.mvc.controller.Game;
 import edu.uchicago.gerber.mvc.controller.GameOp;
-import edu.uchicago.gerber.mvc.controller.Utils;
-import edu.uchicago.gerber.mvc.model.prime.PolarPoint;
+import edu.uchicago.gerber.mvc.controller.Rng;
+import edu.uchicago.gerber.mvc.model.prime.ConvexHull;
+import edu.uchicago.gerber.mvc.model.prime.VectorGeometry;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
-import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 
 //the lombok @Data gives us automatic getters and setters on all members
 
-//A Sprite can be either vector or raster. We do not implement the draw(Graphics g) method, thereby forcing extending
+//A Sprite can be either vector or raster. We do not implement the draw(FrameSnapshot frame) method, thereby forcing extending
 // classes to implement draw() depending on their graphics mode: vector or raster.  See Falcon, and WhiteCloudDebris
 // classes for raster implementation of draw(). See ShieldFloater, Bullet, or Asteroid for vector implementations of
 // draw().
@@ -30,6 +35,9 @@ public abstract class Sprite implements Movable {
 
     //the center-point of this sprite
     private Point center;
+    //the center-point before the most recent move(); used for continuous (swept) collision detection.
+    //See Collisions.timeOfImpact()
+    private Point prevCenter = new Point();
     //this causes movement; change-in-x and change-in-y
     private double deltaX, deltaY;
 
@@ -40,6 +48,8 @@ public abstract class Sprite implements Movable {
 
     //orientation from 0-359
     private int orientation;
+    //the orientation before the most recent move(); used to interpolate rendering. See FrameSnapshot
+    private int prevOrientation;
     //natural mortality (short-lived sprites only)
     private int expiry;
 
@@ -48,9 +58,20 @@ public abstract class Sprite implements Movable {
 
 
     //these are Cartesian points used to draw the polygon in vector mode.
-    //Once set, their values do not change. It's the job of the renderVector() method to adjust for orientation and
-    // location.
+    //Once set, their values do not change, except by reshape(), e.g. when a pooled Asteroid is reused. It's the job of
+    //the renderVector() method to adjust for orientation and location.
     private Point[] cartesians;
+    //the convex hull of the cartesians, built lazily for collision detection. See getHull()
+    @Setter(AccessLevel.NONE)
+    private ConvexHull hull;
+    //the polygon of the cartesians in polar form, built lazily for drawing. See renderVector()
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private VectorGeometry geometry;
+    //the frame of the latest FrameSnapshot that holds the geometry above, which the render thread may still draw
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long geometryFrame = -1;
 
     //used for vector rendering
     private Color color;
@@ -59,15 +80,53 @@ public abstract class Sprite implements Movable {
     //Keys in this map can be any object (?) you want. See Falcon and WhiteCloudDebris for example implementations.
     private Map<?, BufferedImage> rasterMap;
 
+    //the world that this sprite was made in, and plays in; a pooled sprite is only reused in the world of its pool.
+    //Held, so that the per-sprite paths, e.g. move(), expire(), spawning and removing, need not look the world up with
+    //CommandCenter.getInstance() on every call
+    @Getter(AccessLevel.PROTECTED)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final CommandCenter world = CommandCenter.getInstance();
+
+    //the index of this sprite in its team's MovableList; not part of the sprite's state. See MovableList
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private int slot = -1;
+    //while this sprite is in a MovableList with Storage.ARRAYS, its center, previous center, deltas, orientations,
+    //spin, expiry and radius live in that list's SpriteArrays, and the fields above are stale. See the accessors below
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    SpriteArrays arrays;
+
 
     //constructor
     public Sprite() {
 
         //place the sprite at some random location in the game-space at instantiation
-        setCenter(new Point(Game.R.nextInt(Game.DIM.width),
-                Game.R.nextInt(Game.DIM.height)));
+        Rng rng = world.getRng();
+        setCenter(new Point(rng.nextInt(randomSubsystem(), Game.DIM.width),
+                rng.nextInt(randomSubsystem(), Game.DIM.height)));
+
 
+    }
 
+    //Return a pooled sprite to the state in which the constructor above leaves it, drawing the same random numbers,
+    //so that a reused sprite plays exactly like a new one. Subclasses then set themselves up as their constructors
+    //do. The sprite must be out of the game. See Pool
+    protected void reset() {
+        setDeltaX(0);
+        setDeltaY(0);
+        setRadius(0);
+        setOrientation(0);
+        setPrevOrientation(0);
+        setExpiry(0);
+        setSpin(0);
+        Rng rng = world.getRng();
+        int x = rng.nextInt(randomSubsystem(), Game.DIM.width);
+        setCenter(x, rng.nextInt(randomSubsystem(), Game.DIM.height));
     }
 
 
@@ -80,36 +139,194 @@ public abstract class Sprite implements Movable {
       subclass renders as raster or vector.
     */
 
+    public void setCartesians(Point[] cartesians) {
+        //the hull and geometry of the same cartesians, e.g. those that all Bullets share, are kept
+        if (cartesians != this.cartesians) {
+            hull = null;
+            geometry = null;
+        }
+        this.cartesians = cartesians;
+    }
+
+    //Set cartesians whose points have been rewritten, e.g. by a reused Asteroid that draws itself a new shape. Unlike
+    //setCartesians(), the hull and geometry are computed anew in their own arrays, rather than built anew. The geometry
+    //is built anew only if a FrameSnapshot that the render thread may still draw holds it
+    protected void reshape(Point[] cartesians) {
+        this.cartesians = cartesians;
+        if (hull != null) hull.set(cartesians);
+        if (geometry != null) {
+            if (world.isReleasedByRenderer(geometryFrame)) geometry.set(cartesians);
+            else geometry = null;
+        }
+    }
+
+    //the convex hull of this sprite placed in world-space, or null if this sprite has no cartesians.
+    //See Narrowphase
+    public ConvexHull getHull() {
+        if (cartesians == null) return null;
+        if (hull == null) hull = new ConvexHull(cartesians);
+        Point center = getCenter();
+        hull.place(center.x, center.y, getOrientation(), getRadius());
+        return hull;
+    }
+
+    //the image used for pixel-accurate collision detection, or null if this sprite collides as its vector shape (or
+    //as a circle). Raster sprites that take part in collisions override this method. See Falcon
+    public BufferedImage getCollisionImage() {
+        return null;
+    }
+
+    //The accessors of the motion state read and write the SpriteArrays while this sprite is in them. getCenter() and
+    //getPrevCenter() then copy this sprite's row into the sprite's own center Points, and return those: the same
+    //Point on every call, not a copy, so a caller that keeps it sees later moves.
+    //Collision regions on several threads may call them on the same foe at once (see SpatialHashCollisionDetector).
+    //That is safe only because nothing moves during collision detection: every thread writes the same values that the
+    //Point already holds. Anything that writes the motion state must not run concurrently with them
+    public Point getCenter() {
+        if (arrays != null) center.setLocation(arrays.x[slot], arrays.y[slot]);
+        return center;
+    }
+
+    //placing the sprite is a teleport rather than a movement, so there is nothing to sweep between the two centers
+    public void setCenter(Point center) {
+        this.center = center;
+        prevCenter.setLocation(center);
+        if (arrays != null) {
+            arrays.x[slot] = arrays.prevX[slot] = center.x;
+            arrays.y[slot] = arrays.prevY[slot] = center.y;
+        }
+    }
+
+    //setCenter() without a new Point
+    public void setCenter(int x, int y) {
+        center.setLocation(x, y);
+        prevCenter.setLocation(x, y);
+        if (arrays != null) {
+            arrays.x[slot] = arrays.prevX[slot] = x;
+            arrays.y[slot] = arrays.prevY[slot] = y;
+        }
+    }
+
+    public Point getPrevCenter() {
+        if (arrays != null) prevCenter.setLocation(arrays.prevX[slot], arrays.prevY[slot]);
+        return prevCenter;
+    }
+
+    public void setPrevCenter(Point prevCenter) {
+        this.prevCenter = prevCenter;
+        if (arrays != null) {
+            arrays.prevX[slot] = prevCenter.x;
+            arrays.prevY[slot] = prevCenter.y;
+        }
+    }
+
+    public double getDeltaX() {
+        return arrays != null ? arrays.deltaX[slot] : deltaX;
+    }
+
+    public void setDeltaX(double deltaX) {
+        if (arrays != null) arrays.deltaX[slot] = deltaX;
+        else this.deltaX = deltaX;
+    }
+
+    public double getDeltaY() {
+        return arrays != null ? arrays.deltaY[slot] : deltaY;
+    }
+
+    public void setDeltaY(double deltaY) {
+        if (arrays != null) arrays.deltaY[slot] = deltaY;
+        else this.deltaY = deltaY;
+    }
+
+    public int getRadius() {
+        return arrays != null ? arrays.radius[slot] : radius;
+    }
+
+    public void setRadius(int radius) {
+        if (arrays != null) arrays.radius[slot] = radius;
+        else this.radius = radius;
+    }
+
+    public int getOrientation() {
+        return arrays != null ? arrays.orientation[slot] : orientation;
+    }
+
+    public void setOrientation(int orientation) {
+        if (arrays != null) arrays.orientation[slot] = orientation;
+        else this.orientation = orientation;
+    }
+
+    public int getPrevOrientation() {
+        return arrays != null ? arrays.prevOrientation[slot] : prevOrientation;
+    }
+
+    public void setPrevOrientation(int prevOrientation) {
+        if (arrays != null) arrays.prevOrientation[slot] = prevOrientation;
+        else this.prevOrientation = prevOrientation;
+    }
+
+    public int getExpiry() {
+        return arrays != null ? arrays.expiry[slot] : expiry;
+    }
+
+    public void setExpiry(int expiry) {
+        if (arrays != null) arrays.expiry[slot] = expiry;
+        else this.expiry = expiry;
+    }
+
+    public int getSpin() {
+        return arrays != null ? arrays.spin[slot] : spin;
+    }
+
+    public void setSpin(int spin) {
+        if (arrays != null) arrays.spin[slot] = spin;
+        else this.spin = spin;
+    }
+
     @Override
     public void move() {
 
+        //the same move, done by SpriteArrays for a sprite whose motion state lives there
+        if (arrays != null) {
+            arrays.move(slot, slot + 1);
+            return;
+        }
+
+        //remember where we were, so that collision detection can sweep the path travelled during this frame
+        savePrevious();
+
         //The following code block just keeps the sprite inside the bounds of the universe.
         //To ensure this behavior among all sprites in your game, make sure to call super.move() in extending classes
         // where you need to override the move() method.
 
         //A scalar(larger than 1) allows the sprite to move beyond the bounds of the game-screen dimension
-        int scalarX = CommandCenter.getInstance().getUniDim().width;
-        int scalarY = CommandCenter.getInstance().getUniDim().height;
+        int scalarX = world.getUniDim().width;
+        int scalarY = world.getUniDim().height;
+        //wrapping around is a teleport, so the previous center follows the sprite to the opposite edge
         //right-bounds reached
         if (center.x > scalarX * Game.DIM.width) {
             center.x = 1;
+            prevCenter.setLocation(center);
         //left-bounds reached
         } else if (center.x < 0) {
             center.x = scalarX * Game.DIM.width -1;
+            prevCenter.setLocation(center);
         //bottom-bounds reached
         } else if (center.y > scalarY * Game.DIM.height) {
             center.y = 1;
+            prevCenter.setLocation(center);
         //top-bounds reached
         } else if (center.y < 0) {
             center.y = scalarY * Game.DIM.height -1;
+            prevCenter.setLocation(center);
         //in-bounds
         } else {
             double newXPos = center.x;
             double newYPos = center.y;
             //if falcon-fixed, move the sprite in the opposite direction of the falcon to create centered-play
-            if (CommandCenter.getInstance().isFalconPositionFixed()){
-                newXPos -= CommandCenter.getInstance().getFalcon().getDeltaX();
-                newYPos -= CommandCenter.getInstance().getFalcon().getDeltaY();
+            if (world.isFalconPositionFixed()){
+                newXPos -= world.getFalcon().getDeltaX();
+                newYPos -= world.getFalcon().getDeltaY();
             }
             center.x = (int) Math.round(newXPos + getDeltaX());
             center.y = (int) Math.round(newYPos + getDeltaY());
@@ -126,12 +343,25 @@ public abstract class Sprite implements Movable {
 
     }
 
+    //Record the center and orientation before this move(). Collision detection sweeps from the previous center to
+    //the current one, and rendering interpolates between the two. See FrameSnapshot
+    protected void savePrevious() {
+        if (arrays != null) {
+            arrays.prevX[slot] = arrays.x[slot];
+            arrays.prevY[slot] = arrays.y[slot];
+            arrays.prevOrientation[slot] = arrays.orientation[slot];
+            return;
+        }
+        prevCenter.setLocation(center);
+        prevOrientation = orientation;
+    }
+
     private void expire() {
 
         //if a short-lived sprite has an expiry of one, it commits suicide by enqueuing itself (this) onto the
         //opsList with an operation of REMOVE
         if (expiry == 1) {
-            CommandCenter.getInstance().getOpsQueue().enqueue(this, GameOp.Action.REMOVE);
+            world.getOpsQueue().enqueue(this, GameOp.Action.REMOVE);
         }
         //and then decrements in all cases
         expiry--;
@@ -139,129 +369,43 @@ public abstract class Sprite implements Movable {
     }
 
 
+    //the random stream that decides where this sprite appears and how it moves; see Rng. Floaters draw from their own
+    //stream, so that spawning one does not change the rest of the game.
+    protected Rng.Subsystem randomSubsystem() {
+        return Rng.Subsystem.SPAWN;
+    }
+
     //utility method used by extending (thus protected keyword) classes to produce random pos/neg values
     protected int somePosNegValue(int seed) {
-        int randomNumber = Game.R.nextInt(seed);
+        int randomNumber = world.getRng().nextInt(randomSubsystem(), seed);
         return (randomNumber % 2 == 0) ? randomNumber : -randomNumber;
     }
 
 
-    //https://www.tabnine.com/code/java/methods/java.awt.geom.AffineTransform/rotate
-    protected void renderRaster(Graphics2D g2d, BufferedImage bufferedImage) {
-
-        if (bufferedImage ==  null) return;
-
-        int centerX = getCenter().x;
-        int centerY = getCenter().y;
-        int width = getRadius() * 2;
-        int height = getRadius() * 2;
-        double angleRadians = Math.toRadians(getOrientation());
-
-        AffineTransform oldTransform = g2d.getTransform();
-        try {
-            double scaleX = width * 1.0 / bufferedImage.getWidth();
-            double scaleY = height * 1.0 / bufferedImage.getHeight();
-
-            AffineTransform affineTransform = new AffineTransform( oldTransform );
-            if ( centerX != 0 || centerY != 0 ) {
-                affineTransform.translate( centerX, centerY );
-            }
-            affineTransform.scale( scaleX, scaleY );
-            if ( angleRadians != 0 ) {
-                affineTransform.rotate( angleRadians );
-            }
-            affineTransform.translate( -bufferedImage.getWidth() / 2.0, -bufferedImage.getHeight() / 2.0 );
-
-            g2d.setTransform( affineTransform );
-
-            g2d.drawImage( bufferedImage, 0, 0, bufferedImage.getWidth(), bufferedImage.getHeight(), null );
-        } finally {
-            g2d.setTransform( oldTransform );
-
-        }
+    //Record a raster image in the frame. The render thread draws it later, at a position and orientation interpolated
+    //between the previous and current ticks. See FrameSnapshot and GamePanel
+    protected void renderRaster(FrameSnapshot frame, BufferedImage bufferedImage) {
+        frame.addImage(getCenter(), getPrevCenter(), getOrientation(), getPrevOrientation(), getRadius(), bufferedImage);
     }
 
-    protected void renderVector(Graphics g) {
-
-        //set the graphics context color to the color of the sprite
-        g.setColor(color);
-
-        // To render this Sprite in vector mode, we need to, 1: convert raw cartesians to raw polars, 2: rotate polars
-        // for orientation of sprite. 3: Convert back to cartesians 4: adjust for center-point (location).
-        // and 5: pass the cartesian-x and cartesian-y coords as arrays, along with length, to g.drawPolygon().
-
-        //1: convert raw cartesians to raw polars (used later in stream below).
-        //The reason we convert cartesian-points to polar-points is that it's much easier to rotate polar-points
-        List<PolarPoint> polars = Utils.cartesiansToPolars(cartesians);
-
-        //The following 3 functions are used in map transforms in stream of polars below.
-        //2: rotate raw polars given the orientation of the sprite.
-        Function<PolarPoint, PolarPoint> rotatePolarByOrientation =
-                pp -> new PolarPoint(
-                        pp.getR(),
-                        pp.getTheta() + Math.toRadians(orientation) //rotated Theta
-                );
-
-        //3: convert the rotated polars back to cartesians
-        Function<PolarPoint, Point> polarToCartesian =
-                pp -> new Point(
-                        (int)  (pp.getR() * getRadius() * Math.sin(pp.getTheta())),
-                        (int)  (pp.getR() * getRadius() * Math.cos(pp.getTheta())));
-
-        //4: adjust the cartesians for the location (center-point) of the sprite.
-        // the reason we subtract the y-value has to do with how Java plots the vertical axis for
-        // graphics (from top to bottom)
-        Function<Point, Point> adjustForLocation =
-                p -> new Point(
-                         getCenter().x + p.x,
-                         getCenter().y - p.y);
-
-
-
-
-        //5: draw the polygon using the List of raw polars from above, applying mapping transforms as required.
-
-        /*TODO The following is an example of the Pipeline design pattern, which is a way of chaining a series of operations
-        where the output of one operation becomes the input for the next, forming a "pipeline" of transformations and
-        processing steps. This is a key concept in functional programming.
-         */
-        g.drawPolygon(
-                polars.stream()
-                        .map(rotatePolarByOrientation)
-                        .map(polarToCartesian)
-                        .map(adjustForLocation)
-                        .map(pnt -> pnt.x)
-                        .mapToInt(Integer::intValue)
-                        .toArray(),
-
-                polars.stream()
-                        .map(rotatePolarByOrientation)
-                        .map(polarToCartesian)
-                        .map(adjustForLocation)
-                        .map(pnt -> pnt.y)
-                        .mapToInt(Integer::intValue)
-                        .toArray(),
-
-                polars.size());
-
-        //for debugging center-point and collision. Feel free to remove these three lines.
-        //#########################################
-        //g.setColor(Color.GRAY);
-        //g.fillOval(getCenter().x - 1, getCenter().y - 1, 2, 2);
-        //g.drawOval(getCenter().x - getRadius(), getCenter().y - getRadius(), getRadius() *2, getRadius() *2);
-        //#########################################
+    //Record the polygon of this sprite's cartesians in the frame. See renderRaster()
+    protected void renderVector(FrameSnapshot frame) {
+        if (geometry == null) geometry = new VectorGeometry(cartesians);
+        geometryFrame = frame.getFrame();
+        frame.addPolygon(getCenter(), getPrevCenter(), getOrientation(), getPrevOrientation(), getRadius(), geometry,
+                color);
     }
 
     //default behavior for adding and removing objects from game space.
     //The 'list' parameter will be one of the following: movFriends, movFoes, movDebris, movFloaters.
     @Override
-    public void addToGame(LinkedList<Movable> list) {
+    public void addToGame(MovableList list) {
         list.add(this);
     }
 
     @Override
-    public void removeFromGame(LinkedList<Movable> list) {
-        list.remove(this);
+    public boolean removeFromGame(MovableList list) {
+        return list.remove(this);
     }
 
 
@@ -0,0 +1,188 @@
+package edu.uchicago.gerber.mvc.model;
+
+import edu.uchicago.gerber.mvc.controller.CommandCenter;
+import edu.uchicago.gerber.mvc.controller.Game;
+import edu.uchicago.gerber.mvc.controller.GameOpsQueue;
+import edu.uchicago.gerber.mvc.controller.GameOp;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/*
+ The data-oriented storage of a MovableList (MovableList.Storage.ARRAYS): the motion state of the team's sprites,
+ i.e. center, previous center, deltas, orientation, spin, expiry and radius, kept in parallel primitive arrays indexed
+ by the sprites' slots, rather than in the sprites themselves. A sprite in the arrays is a thin handle: its accessors
+ read and write its row. When it leaves the list, its row is copied back into its fields.
+
+ The payoff is move(): the sprites that do not override Sprite.move() (e.g. Asteroids and Bullets) are moved by tight
+ loops over the arrays, one per concern (movement and wrap-around, spin, expiry), which the JIT can unroll, instead of
+ by a virtual call per sprite that chases its Point. These loops must do exactly what Sprite.move() does, so that a
+ world plays the same game, and hashes the same, in either storage.
+
+ Movables that are not Sprites (e.g. Stars) have a row that is unused. Simulation thread only.
+ */
+public class SpriteArrays {
+
+    //whether a class of sprite moves with Sprite.move() itself, and so may be moved by the loops of move()
+    private static final ClassValue<Boolean> INHERITS_MOVE = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("move").getDeclaringClass() == Sprite.class;
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    //the sprite of each row, or null for a movable that is not a Sprite
+    Sprite[] sprites;
+    //whether the row is moved by the loops of move(); otherwise by the movable's own move()
+    private boolean[] inheritsMove;
+    int[] x, y, prevX, prevY;
+    double[] deltaX, deltaY;
+    int[] orientation, prevOrientation, spin, expiry, radius;
+
+    //the slots of the sprites that expire during one call of move()
+    private int[] expiring;
+
+    public SpriteArrays(int capacity) {
+        grow(capacity);
+    }
+
+    void grow(int capacity) {
+        sprites = sprites == null ? new Sprite[capacity] : Arrays.copyOf(sprites, capacity);
+        inheritsMove = inheritsMove == null ? new boolean[capacity] : Arrays.copyOf(inheritsMove, capacity);
+        x = grow(x, capacity);
+        y = grow(y, capacity);
+        prevX = grow(prevX, capacity);
+        prevY = grow(prevY, capacity);
+        deltaX = deltaX == null ? new double[capacity] : Arrays.copyOf(deltaX, capacity);
+        deltaY = deltaY == null ? new double[capacity] : Arrays.copyOf(deltaY, capacity);
+        orientation = grow(orientation, capacity);
+        prevOrientation = grow(prevOrientation, capacity);
+        spin = grow(spin, capacity);
+        expiry = grow(expiry, capacity);
+        radius = grow(radius, capacity);
+        expiring = grow(expiring, capacity);
+    }
+
+    private static int[] grow(int[] array, int capacity) {
+        return array == null ? new int[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    //the movable was placed in the slot: move its state into the row
+    void attach(int slot, Movable mov) {
+        if (!(mov instanceof Sprite)) {
+            sprites[slot] = null;
+            inheritsMove[slot] = false;
+            return;
+        }
+        Sprite sprite = (Sprite) mov;
+        Point center = sprite.getCenter();
+        Point prevCenter = sprite.getPrevCenter();
+        x[slot] = center.x;
+        y[slot] = center.y;
+        prevX[slot] = prevCenter.x;
+        prevY[slot] = prevCenter.y;
+        deltaX[slot] = sprite.getDeltaX();
+        deltaY[slot] = sprite.getDeltaY();
+        orientation[slot] = sprite.getOrientation();
+        prevOrientation[slot] = sprite.getPrevOrientation();
+        spin[slot] = sprite.getSpin();
+        expiry[slot] = sprite.getExpiry();
+        radius[slot] = sprite.getRadius();
+        sprites[slot] = sprite;
+        inheritsMove[slot] = INHERITS_MOVE.get(sprite.getClass());
+        sprite.arrays = this;
+    }
+
+    //the movable is leaving the slot: move the row back into the sprite
+    void detach(int slot) {
+        Sprite sprite = sprites[slot];
+        if (sprite == null) return;
+        sprite.arrays = null;
+        sprite.getCenter().setLocation(x[slot], y[slot]);
+        sprite.getPrevCenter().setLocation(prevX[slot], prevY[slot]);
+        sprite.setDeltaX(deltaX[slot]);
+        sprite.setDeltaY(deltaY[slot]);
+        sprite.setOrientation(orientation[slot]);
+        sprite.setPrevOrientation(prevOrientation[slot]);
+        sprite.setSpin(spin[slot]);
+        sprite.setExpiry(expiry[slot]);
+        sprite.setRadius(radius[slot]);
+        sprites[slot] = null;
+    }
+
+    //the movable in one slot was moved to another, e.g. when the movable before it was removed
+    void copy(int from, int to) {
+        sprites[to] = sprites[from];
+        inheritsMove[to] = inheritsMove[from];
+        x[to] = x[from];
+        y[to] = y[from];
+        prevX[to] = prevX[from];
+        prevY[to] = prevY[from];
+        deltaX[to] = deltaX[from];
+        deltaY[to] = deltaY[from];
+        orientation[to] = orientation[from];
+        prevOrientation[to] = prevOrientation[from];
+        spin[to] = spin[from];
+        expiry[to] = expiry[from];
+        radius[to] = radius[from];
+        sprites[from] = null;
+    }
+
+    boolean inheritsMove(int slot) {
+        return inheritsMove[slot];
+    }
+
+    //Sprite.move() for the rows from (inclusive) to to (exclusive). See MovableList.moveAll()
+    void move(int from, int to) {
+
+        CommandCenter commandCenter = CommandCenter.getInstance();
+        //a sprite beyond the bounds of the universe wraps around to the opposite edge
+        int maxX = commandCenter.getUniDim().width * Game.DIM.width;
+        int maxY = commandCenter.getUniDim().height * Game.DIM.height;
+        //if falcon-fixed, sprites move in the opposite direction of the falcon to create centered-play
+        double shiftX = 0, shiftY = 0;
+        if (commandCenter.isFalconPositionFixed()) {
+            shiftX = commandCenter.getFalcon().getDeltaX();
+            shiftY = commandCenter.getFalcon().getDeltaY();
+        }
+
+        for (int i = from; i < to; i++) {
+            int cx = x[i], cy = y[i];
+            //wrapping around is a teleport, so the previous center follows the sprite to the opposite edge
+            if (cx > maxX) cx = 1;
+            else if (cx < 0) cx = maxX - 1;
+            else if (cy > maxY) cy = 1;
+            else if (cy < 0) cy = maxY - 1;
+            else {
+                prevX[i] = cx;
+                prevY[i] = cy;
+                x[i] = (int) Math.round(cx - shiftX + deltaX[i]);
+                y[i] = (int) Math.round(cy - shiftY + deltaY[i]);
+                continue;
+            }
+            x[i] = prevX[i] = cx;
+            y[i] = prevY[i] = cy;
+        }
+
+        for (int i = from; i < to; i++) {
+            prevOrientation[i] = orientation[i];
+            orientation[i] += spin[i];
+        }
+
+        //short-lived sprites remove themselves when their expiry counts down from one, in slot order
+        int numExpiring = 0;
+        for (int i = from; i < to; i++) {
+            if (expiry[i] == 1) expiring[numExpiring++] = i;
+            if (expiry[i] > 0) expiry[i]--;
+        }
+        GameOpsQueue opsQueue = commandCenter.getOpsQueue();
+        for (int i = 0; i < numExpiring; i++) {
+            opsQueue.enqueue(sprites[expiring[i]], GameOp.Action.REMOVE);
+        }
+    }
+
+}
@@ -1,11 +1,17 @@
 package edu.uchicago.gerber.mvc.model;
 
 import edu.uchicago.gerber.mvc.controller.CommandCenter;
+import edu.uchicago.gerber.mvc.controller.FrameSnapshot;
 import edu.uchicago.gerber.mvc.controller.Game;
+import edu.uchicago.gerber.mvc.controller.Rng;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.awt.*;
-import java.util.LinkedList;
 
 //Sprite has a lot of bloat that we don't need to simply render a star field.
 //This class demonstrates how we can use the Movable interface without extending Sprite.
@@ -13,21 +19,35 @@ import java.util.LinkedList;
 public class Star implements Movable{
 
     private Point center;
+    //the center before the most recent move(); used to interpolate rendering. See FrameSnapshot
+    private Point prevCenter;
     private Color color;
+    //the index of this star in movDebris; not part of the star's state. See MovableList
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private int slot = -1;
+    //the world that this star was made in; held, so that move() need not look it up. See Sprite
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final CommandCenter world = CommandCenter.getInstance();
 
     public Star() {
+        Rng rng = world.getRng();
         //center is some random point in the game space
-        center = new Point(Game.R.nextInt(Game.DIM.width), Game.R.nextInt(Game.DIM.height));
-        int bright = Game.R.nextInt(226); //Stars are muted at max brightness of 225 out of 255
+        center = new Point(rng.nextInt(Rng.Subsystem.SCENERY, Game.DIM.width),
+                rng.nextInt(Rng.Subsystem.SCENERY, Game.DIM.height));
+        prevCenter = new Point(center);
+        int bright = rng.nextInt(Rng.Subsystem.SCENERY, 226); //Stars are muted at max brightness of 225 out of 255
         color = new Color(bright, bright, bright); //some grey value
     }
 
     //The following methods are contract methods from Movable. We need all of them to satisfy the contract.
     @Override
-    public void draw(Graphics g) {
+    public void draw(FrameSnapshot frame) {
 
-        g.setColor(color);
-        g.drawOval(center.x, center.y, getRadius(), getRadius());
+        frame.addOval(center, prevCenter, 0, 0, getRadius(), getRadius(), color, false);
 
     }
 
@@ -52,28 +72,33 @@ public class Star implements Movable{
     @Override
     public void move() {
 
+        prevCenter.setLocation(center);
         //if falcon position is NOT fixed (e.g. FREE_FLY), return
-        if (!CommandCenter.getInstance().isFalconPositionFixed()) return;
+        if (!world.isFalconPositionFixed()) return;
 
         //else, falcon position is fixed, and the stars must move to orient player in falcon-fixed-play
 
             //right-bounds reached
         if (center.x > Game.DIM.width) {
             center.x = 1;
+            prevCenter.setLocation(center);
          //left-bounds reached
         } else if (center.x < 0) {
             center.x = Game.DIM.width - 1;
+            prevCenter.setLocation(center);
             //bottom-bounds reached
         } else if (center.y > Game.DIM.height) {
             center.y = 1;
+            prevCenter.setLocation(center);
             //top-bounds reached
         } else if (center.y < 0) {
             center.y = Game.DIM.height - 1;
+            prevCenter.setLocation(center);
             //in-bounds
         } else {
             //move star in opposite direction of falcon.
-            center.x = (int) Math.round(center.x - CommandCenter.getInstance().getFalcon().getDeltaX());
-            center.y = (int) Math.round(center.y - CommandCenter.getInstance().getFalcon().getDeltaY());
+            center.x = (int) Math.round(center.x - world.getFalcon().getDeltaX());
+            center.y = (int) Math.round(center.y - world.getFalcon().getDeltaY());
         }
 
 
@@ -82,13 +107,13 @@ public class Star implements Movable{
 
 
     @Override
-    public void addToGame(LinkedList<Movable> list) {
+    public void addToGame(MovableList list) {
         list.add(this);
     }
 
     @Override
-    public void removeFromGame(LinkedList<Movable> list) {
-       list.remove(this);
+    public boolean removeFromGame(MovableList list) {
+       return list.remove(this);
     }
 
 
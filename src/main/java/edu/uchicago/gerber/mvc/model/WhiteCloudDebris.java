@@ -1,10 +1,13 @@
 package edu.uchicago.gerber.mvc.model;
 
 
+import edu.uchicago.gerber.mvc.controller.CommandCenter;
+import edu.uchicago.gerber.mvc.controller.FrameSnapshot;
 import edu.uchicago.gerber.mvc.controller.ImageLoader;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -14,11 +17,10 @@ public class WhiteCloudDebris extends Sprite{
    //the higher the number, the slower the animation
    private final static int SLOW_MO = 3;
 
-    public WhiteCloudDebris(Sprite explodingSprite) {
-
-        //DEBRIS means that this sprite is inert, and does not interact with other teams.
-        setTeam(Team.DEBRIS);
+    //the frames of the animation, which all WhiteCloudDebris share
+    private static final Map<Integer, BufferedImage> RASTER_MAP;
 
+    static {
         Map<Integer, BufferedImage> rasterMap = new HashMap<>();
         //see readme.txt file in the resources/imgs/exp directory for how I created these assets
         rasterMap.put(0, ImageLoader.getImage("/imgs/exp/row-1-column-1.png"));
@@ -30,35 +32,83 @@ public class WhiteCloudDebris extends Sprite{
         rasterMap.put(6, ImageLoader.getImage("/imgs/exp/row-3-column-1.png"));
         rasterMap.put(7, ImageLoader.getImage("/imgs/exp/row-3-column-2.png"));
         rasterMap.put(8, ImageLoader.getImage("/imgs/exp/row-3-column-3.png"));
+        RASTER_MAP = Collections.unmodifiableMap(rasterMap);
+    }
+
+    public WhiteCloudDebris(Sprite explodingSprite) {
+        init(explodingSprite);
+    }
+
+    //a dust cloud where the sprite exploded, reused from the pool of the world if there is one. See Pool
+    public static WhiteCloudDebris spawn(Sprite explodingSprite) {
+        WhiteCloudDebris debris = explodingSprite.getWorld().getDebrisPool().acquire();
+        if (debris == null) return new WhiteCloudDebris(explodingSprite);
+        debris.reset();
+        debris.init(explodingSprite);
+        return debris;
+    }
+
+    private void init(Sprite explodingSprite) {
+
+        index = 0;
+        //DEBRIS means that this sprite is inert, and does not interact with other teams.
+        setTeam(Team.DEBRIS);
 
-        setRasterMap(rasterMap);
+        setRasterMap(RASTER_MAP);
 
         //expire it out after it has done its animation. Multiply by SLOW_MO to slow down the animation
-        setExpiry(rasterMap.size() * SLOW_MO);
+        setExpiry(RASTER_MAP.size() * SLOW_MO);
 
         //everything is relative to the exploding sprite
         setSpin(explodingSprite.getSpin());
-        setCenter((Point)explodingSprite.getCenter().clone());
+        Point explodingCenter = explodingSprite.getCenter();
+        setCenter(explodingCenter.x, explodingCenter.y);
         setDeltaX(explodingSprite.getDeltaX());
         setDeltaY(explodingSprite.getDeltaY());
         setRadius((int) (explodingSprite.getRadius() * 1.3));
 
     }
 
+    //the image currently shown; see move()
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
     //In this example, we are simply in-order traversing the rasterMap once.
     //However, we could also create a looping animation; think bird flapping over and over.
     //We can also create a hybrid of looping and image-state; think Mario
     //walking (looping), standing (suspended loop), jumping (one state), crouching (another state).
     //See Falcon class for example of image-state.
     @Override
-    public void draw(Graphics g) {
+    public void draw(FrameSnapshot frame) {
+
+
+        renderRaster(frame, getRasterMap().get(index));
 
 
-        renderRaster((Graphics2D) g, getRasterMap().get(index));
+    }
+
+    //The animation advances here rather than in draw(), since draw() is called once per render, and renders no longer
+    //line up with ticks of the simulation (see Game.run()).
+    @Override
+    public void move() {
+
         //hold the image for SLOW_MO frames to slow down the dust cloud animation
         //we already have a simple decrement-to-zero counter with expiry; see move() method of Sprite.
-        if (getExpiry() % SLOW_MO == 0) index++;
+        //The check is made on the expiry left by the previous tick, except for the very first tick.
+        if (getExpiry() % SLOW_MO == 0 && getExpiry() < getRasterMap().size() * SLOW_MO) index++;
+        super.move();
 
+    }
 
+    @Override
+    public boolean removeFromGame(MovableList list) {
+        if (!super.removeFromGame(list)) return false;
+        getWorld().getDebrisPool().release(this);
+        return true;
     }
 }
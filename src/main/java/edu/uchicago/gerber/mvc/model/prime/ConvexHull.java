@@ -0,0 +1,148 @@
+package edu.uchicago.gerber.mvc.model.prime;
+
+import java.awt.*;
+
+/*
+ The convex hull of a vector sprite's cartesians. The hull is stored in the same polar form that Sprite.renderVector()
+ uses, so it can be placed in world-space for any center, orientation and radius, and it lines up exactly with the
+ polygon drawn on screen. Used for the separating-axis collision test; see Narrowphase.
+
+ The separating-axis test only works for convex shapes, and shapes such as Asteroid are slightly jagged, so we test
+ their hull instead. Since the hull encloses the polygon, no hit is ever missed.
+ */
+public class ConvexHull {
+
+    //the hull is the first size entries of each array. The arrays grow only if set() is given more cartesians
+    private int size;
+    private double[] polarR;
+    private double[] polarTheta;
+
+    //world-space vertices, cached for the center, orientation and radius they were last placed at
+    private double[] worldX;
+    private double[] worldY;
+    private int placedX, placedY, placedOrientation, placedRadius;
+    private boolean placed;
+
+    //the cartesians, and their hull, while it is computed
+    private double[] xs, ys, hullX, hullY;
+
+    public ConvexHull(Point[] cartesians) {
+        set(cartesians);
+    }
+
+    //the hull of other cartesians, in the arrays of this hull, e.g. when a pooled Asteroid is reused
+    public void set(Point[] cartesians) {
+
+        int n = cartesians.length;
+        if (xs == null || xs.length < n) {
+            xs = new double[n];
+            ys = new double[n];
+            hullX = new double[n * 2];
+            hullY = new double[n * 2];
+            polarR = new double[n];
+            polarTheta = new double[n];
+            worldX = new double[n];
+            worldY = new double[n];
+        }
+        for (int i = 0; i < n; i++) {
+            xs[i] = cartesians[i].x;
+            ys[i] = cartesians[i].y;
+        }
+        size = compute(xs, ys, n, hullX, hullY);
+
+        //The farthest cartesian from the origin is always a vertex of the hull. Normalize r to that hypotenuse just
+        //as Utils.cartesiansToPolars() does.
+        double largestHyp = 0;
+        for (int i = 0; i < size; i++) {
+            largestHyp = Math.max(largestHyp, Math.hypot(hullX[i], hullY[i]));
+        }
+        for (int i = 0; i < size; i++) {
+            polarR[i] = largestHyp == 0 ? 0 : Math.hypot(hullX[i], hullY[i]) / largestHyp;
+            polarTheta[i] = Math.atan2(hullY[i], hullX[i]);
+        }
+        placed = false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    //place the hull in world-space; the result is cached until the center, orientation or radius changes
+    public void place(int centerX, int centerY, int orientation, int radius) {
+
+        if (placed && centerX == placedX && centerY == placedY && orientation == placedOrientation
+                && radius == placedRadius) return;
+
+        //the same transform as Sprite.renderVector(): rotate by orientation, scale by radius, translate to center
+        double rotation = Math.toRadians(orientation);
+        for (int i = 0; i < size; i++) {
+            double theta = polarTheta[i] + rotation;
+            worldX[i] = centerX + polarR[i] * radius * Math.sin(theta);
+            worldY[i] = centerY - polarR[i] * radius * Math.cos(theta);
+        }
+        placedX = centerX;
+        placedY = centerY;
+        placedOrientation = orientation;
+        placedRadius = radius;
+        placed = true;
+    }
+
+    //the first size() entries are the vertices
+    public double[] getWorldX() {
+        return worldX;
+    }
+
+    public double[] getWorldY() {
+        return worldY;
+    }
+
+    /*
+     Andrew's monotone-chain algorithm. Writes the hull of the first n points into outX/outY (which must have room for
+     2n points) in counter-clockwise order, and returns the number of hull vertices. The points in xs/ys are sorted
+     in place.
+     */
+    public static int compute(double[] xs, double[] ys, int n, double[] outX, double[] outY) {
+
+        if (n < 3) {
+            System.arraycopy(xs, 0, outX, 0, n);
+            System.arraycopy(ys, 0, outY, 0, n);
+            return n;
+        }
+
+        //sort by x, then by y. Insertion sort is fine for a few dozen vertices, and does not allocate
+        for (int i = 1; i < n; i++) {
+            double x = xs[i], y = ys[i];
+            int j = i - 1;
+            while (j >= 0 && (xs[j] > x || (xs[j] == x && ys[j] > y))) {
+                xs[j + 1] = xs[j];
+                ys[j + 1] = ys[j];
+                j--;
+            }
+            xs[j + 1] = x;
+            ys[j + 1] = y;
+        }
+
+        int k = 0;
+        //lower hull
+        for (int i = 0; i < n; i++) {
+            double x = xs[i], y = ys[i];
+            while (k >= 2 && cross(outX[k - 2], outY[k - 2], outX[k - 1], outY[k - 1], x, y) <= 0) k--;
+            outX[k] = x;
+            outY[k++] = y;
+        }
+        //upper hull
+        for (int i = n - 2, lower = k + 1; i >= 0; i--) {
+            double x = xs[i], y = ys[i];
+            while (k >= lower && cross(outX[k - 2], outY[k - 2], outX[k - 1], outY[k - 1], x, y) <= 0) k--;
+            outX[k] = x;
+            outY[k++] = y;
+        }
+        //the last point is the same as the first
+        return k - 1;
+    }
+
+    private static double cross(double ox, double oy, double ax, double ay, double bx, double by) {
+        return (ax - ox) * (by - oy) - (ay - oy) * (bx - ox);
+    }
+
+}
@@ -0,0 +1,66 @@
+package edu.uchicago.gerber.mvc.model.prime;
+
+/*
+ Sine and cosine tables, shared by the model and the view.
+
+ Orientations are whole degrees, so sinDeg() and cosDeg() look them up in a table with one entry per degree. Each
+ entry is Math.sin(Math.toRadians(degrees)) (or Math.cos), computed once, so a lookup returns the very same double as
+ the call it replaces: the simulation plays, and hashes, exactly the same game with either. The table covers the
+ degrees that orientations reach, including a turn's overshoot below 0 and above 360 (see Falcon.move()); other
+ degrees fall back to Math.
+
+ sin() and cos() take any angle in radians, e.g. the polar thetas of a VectorGeometry, and return the nearest of
+ FINE_STEPS entries per turn, which is within 0.0002 of Math. That is far below a pixel at any radius in the game,
+ but not exact, so they are for drawing only; collision geometry (e.g. ConvexHull) uses Math.
+
+ See TrigBenchmark for where the tables beat Math.
+ */
+public final class Trig {
+
+    public static final int MIN_DEGREE = -360, MAX_DEGREE = 720;
+    private static final double[] SIN_DEG = new double[MAX_DEGREE - MIN_DEGREE + 1];
+    private static final double[] COS_DEG = new double[MAX_DEGREE - MIN_DEGREE + 1];
+
+    //a power of two, so that an index wraps around with a mask
+    public static final int FINE_STEPS = 1 << 14;
+    private static final int FINE_MASK = FINE_STEPS - 1;
+    private static final double STEPS_PER_RADIAN = FINE_STEPS / (2 * Math.PI);
+    //one turn, plus a quarter turn for cos(x) = sin(x + PI/2)
+    private static final double[] FINE_SIN = new double[FINE_STEPS + FINE_STEPS / 4];
+
+    static {
+        for (int degrees = MIN_DEGREE; degrees <= MAX_DEGREE; degrees++) {
+            SIN_DEG[degrees - MIN_DEGREE] = Math.sin(Math.toRadians(degrees));
+            COS_DEG[degrees - MIN_DEGREE] = Math.cos(Math.toRadians(degrees));
+        }
+        for (int i = 0; i < FINE_SIN.length; i++) {
+            FINE_SIN[i] = Math.sin(i / STEPS_PER_RADIAN);
+        }
+    }
+
+    private Trig() {
+    }
+
+    //exactly Math.sin(Math.toRadians(degrees))
+    public static double sinDeg(int degrees) {
+        if (degrees < MIN_DEGREE || degrees > MAX_DEGREE) return Math.sin(Math.toRadians(degrees));
+        return SIN_DEG[degrees - MIN_DEGREE];
+    }
+
+    //exactly Math.cos(Math.toRadians(degrees))
+    public static double cosDeg(int degrees) {
+        if (degrees < MIN_DEGREE || degrees > MAX_DEGREE) return Math.cos(Math.toRadians(degrees));
+        return COS_DEG[degrees - MIN_DEGREE];
+    }
+
+    //close to Math.sin(radians); for drawing only
+    public static double sin(double radians) {
+        return FINE_SIN[(int) Math.round(radians * STEPS_PER_RADIAN) & FINE_MASK];
+    }
+
+    //close to Math.cos(radians); for drawing only
+    public static double cos(double radians) {
+        return FINE_SIN[((int) Math.round(radians * STEPS_PER_RADIAN) & FINE_MASK) + FINE_STEPS / 4];
+    }
+
+}
@@ -0,0 +1,99 @@
+package edu.uchicago.gerber.mvc.model.prime;
+
+import java.awt.*;
+
+/*
+ The polygon of a vector sprite, in the polar form that it is drawn from. The polar form is computed once per set of
+ cartesians (see Sprite.renderVector()), instead of on every draw. place() rotates the polygon by an orientation,
+ scales it to a radius and translates it to a center-point, writing the vertices into arrays that are reused for
+ every draw. The rotated and scaled vertices are cached until the orientation or radius changes, so a sprite that
+ does not spin only translates its vertices from one draw to the next.
+
+ Built by the simulation thread, and placed by the render thread only. See FrameRenderer. The simulation thread may
+ set() new cartesians into a geometry, e.g. that of a reused Asteroid, but only once the render thread can no longer
+ draw a FrameSnapshot that holds it; see Sprite.reshape()
+ */
+public class VectorGeometry {
+
+    //the vertices are the first size entries of each array. The arrays grow only if set() is given more cartesians
+    private int size;
+    private double[] polarR;
+    private double[] polarTheta;
+
+    //the vertices rotated by orientation and scaled to radius, relative to the center-point
+    private int[] localX;
+    private int[] localY;
+    private int placedOrientation, placedRadius;
+    private boolean placed;
+
+    //the vertices of the latest place(), ready for Graphics.drawPolygon() with size()
+    private int[] screenX;
+    private int[] screenY;
+
+    public VectorGeometry(Point[] cartesians) {
+        set(cartesians);
+    }
+
+    //the polygon of other cartesians, in the arrays of this geometry
+    public void set(Point[] cartesians) {
+
+        size = cartesians.length;
+        if (polarR == null || polarR.length < size) {
+            polarR = new double[size];
+            polarTheta = new double[size];
+            localX = new int[size];
+            localY = new int[size];
+            screenX = new int[size];
+            screenY = new int[size];
+        }
+
+        //exactly as Utils.cartesiansToPolars() does: r is relative to the largest hypotenuse
+        double largestHyp = 0;
+        for (Point pnt : cartesians) {
+            largestHyp = Math.max(largestHyp, Math.sqrt(Math.pow(pnt.x, 2) + Math.pow(pnt.y, 2)));
+        }
+        for (int i = 0; i < size; i++) {
+            polarR[i] = Math.sqrt(Math.pow(cartesians[i].x, 2) + Math.pow(cartesians[i].y, 2)) / largestHyp;
+            polarTheta[i] = Math.toDegrees(Math.atan2(cartesians[i].y, cartesians[i].x)) * Math.PI / 180;
+        }
+        placed = false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    //place the polygon on screen; read the vertices with getScreenX() and getScreenY()
+    public void place(int centerX, int centerY, int orientation, int radius) {
+
+        if (!placed || orientation != placedOrientation || radius != placedRadius) {
+            //rotate the polars by orientation, and convert them back to cartesians scaled to radius. The sines and
+            //cosines come from the fine Trig table, which is within a fraction of a pixel of Math
+            double rotation = Math.toRadians(orientation);
+            for (int i = 0; i < size; i++) {
+                double theta = polarTheta[i] + rotation;
+                localX[i] = (int) (polarR[i] * radius * Trig.sin(theta));
+                localY[i] = (int) (polarR[i] * radius * Trig.cos(theta));
+            }
+            placedOrientation = orientation;
+            placedRadius = radius;
+            placed = true;
+        }
+
+        //adjust for the center-point. The y-value is subtracted because Java plots the vertical axis from top to
+        //bottom
+        for (int i = 0; i < size; i++) {
+            screenX[i] = centerX + localX[i];
+            screenY[i] = centerY - localY[i];
+        }
+    }
+
+    public int[] getScreenX() {
+        return screenX;
+    }
+
+    public int[] getScreenY() {
+        return screenY;
+    }
+
+}
@@ -0,0 +1,131 @@
+package edu.uchicago.gerber.mvc.view;
+
+import edu.uchicago.gerber.mvc.controller.FrameSnapshot;
+import edu.uchicago.gerber.mvc.model.prime.Trig;
+import edu.uchicago.gerber.mvc.model.prime.VectorGeometry;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+//Draws the Items of a FrameSnapshot on the render thread. Each item is drawn at a position (and orientation)
+//interpolated between the previous and the current tick of the simulation, by the fraction alpha.
+public class FrameRenderer {
+
+    //the rasters, rotated and scaled ahead of time. See renderRaster()
+    private final RasterCache rasterCache = new RasterCache();
+
+    public void draw(Graphics2D g2d, FrameSnapshot frame, double alpha) {
+
+        //a copy of a raster lands on the same pixels as a direct draw only if the graphics are not scaled, e.g. by a
+        //high-DPI display; otherwise rasters are drawn directly
+        boolean blitRasters = (g2d.getTransform().getType() & ~AffineTransform.TYPE_TRANSLATION) == 0;
+
+        for (int i = 0; i < frame.getNumItems(); i++) {
+            FrameSnapshot.Item item = frame.getItem(i);
+            int x = interpolate(item.getPrevX(), item.getX(), alpha);
+            int y = interpolate(item.getPrevY(), item.getY(), alpha);
+            switch (item.getShape()) {
+                case POLYGON:
+                    renderVector(g2d, item, x, y, interpolateOrientation(item, alpha));
+                    break;
+                case IMAGE:
+                    renderRaster(g2d, item, x, y, interpolateOrientation(item, alpha), blitRasters);
+                    break;
+                case OVAL:
+                    g2d.setColor(item.getColor());
+                    g2d.drawOval(x + item.getOffsetX(), y + item.getOffsetY(), item.getWidth(), item.getHeight());
+                    break;
+                case FILL_OVAL:
+                    g2d.setColor(item.getColor());
+                    g2d.fillOval(x + item.getOffsetX(), y + item.getOffsetY(), item.getWidth(), item.getHeight());
+                    break;
+                case RECT:
+                    g2d.setColor(item.getColor());
+                    g2d.drawRect(x + item.getOffsetX(), y + item.getOffsetY(), item.getWidth(), item.getHeight());
+                    break;
+                case FILL_RECT:
+                default:
+                    g2d.setColor(item.getColor());
+                    g2d.fillRect(x + item.getOffsetX(), y + item.getOffsetY(), item.getWidth(), item.getHeight());
+                    break;
+            }
+        }
+    }
+
+    private static int interpolate(int prev, int current, double alpha) {
+        return (int) Math.round(prev + (current - prev) * alpha);
+    }
+
+    private static int interpolateOrientation(FrameSnapshot.Item item, double alpha) {
+        //turn the short way around, e.g. from 355 to 5 degrees via 0 (the Falcon wraps its orientation)
+        int turn = Math.floorMod(item.getOrientation() - item.getPrevOrientation() + 180, 360) - 180;
+        return (int) Math.round(item.getPrevOrientation() + turn * alpha);
+    }
+
+    //https://www.tabnine.com/code/java/methods/java.awt.geom.AffineTransform/rotate
+    private void renderRaster(Graphics2D g2d, FrameSnapshot.Item item, int centerX, int centerY, int orientation,
+                              boolean blit) {
+
+        BufferedImage bufferedImage = item.getImage();
+        int width = item.getRadius() * 2;
+        int height = item.getRadius() * 2;
+
+        //usually, the image has been drawn at about this orientation and size before, and a copy is simply blitted
+        RasterCache.Entry cached = blit
+                ? rasterCache.get(bufferedImage, orientation, width, height, g2d.getDeviceConfiguration()) : null;
+        if (cached != null) {
+            g2d.drawImage(cached.getImage(), centerX + cached.getOffsetX(), centerY + cached.getOffsetY(), null);
+            return;
+        }
+
+        AffineTransform oldTransform = g2d.getTransform();
+        try {
+            double scaleX = width * 1.0 / bufferedImage.getWidth();
+            double scaleY = height * 1.0 / bufferedImage.getHeight();
+
+            AffineTransform affineTransform = new AffineTransform( oldTransform );
+            if ( centerX != 0 || centerY != 0 ) {
+                affineTransform.translate( centerX, centerY );
+            }
+            affineTransform.scale( scaleX, scaleY );
+            if ( orientation != 0 ) {
+                //rotate by the unit vector of the orientation, which saves the transform its own sin and cos
+                affineTransform.rotate( Trig.cosDeg(orientation), Trig.sinDeg(orientation) );
+            }
+            affineTransform.translate( -bufferedImage.getWidth() / 2.0, -bufferedImage.getHeight() / 2.0 );
+
+            g2d.setTransform( affineTransform );
+
+            g2d.drawImage( bufferedImage, 0, 0, bufferedImage.getWidth(), bufferedImage.getHeight(), null );
+        } finally {
+            g2d.setTransform( oldTransform );
+
+        }
+    }
+
+    public RasterCache getRasterCache() {
+        return rasterCache;
+    }
+
+    private void renderVector(Graphics g, FrameSnapshot.Item item, int centerX, int centerY, int orientation) {
+
+        //set the graphics context color to the color of the sprite
+        g.setColor(item.getColor());
+        int radius = item.getRadius();
+
+        //the sprite's polygon, already in polar form: rotate it for the orientation of the sprite, scale it to its
+        //radius and adjust it for its center-point, into arrays that are reused for every draw. See VectorGeometry
+        VectorGeometry geometry = item.getGeometry();
+        geometry.place(centerX, centerY, orientation, radius);
+        g.drawPolygon(geometry.getScreenX(), geometry.getScreenY(), geometry.size());
+
+        //for debugging center-point and collision. Feel free to remove these three lines.
+        //#########################################
+        //g.setColor(Color.GRAY);
+        //g.fillOval(centerX - 1, centerY - 1, 2, 2);
+        //g.drawOval(centerX - radius, centerY - radius, radius *2, radius *2);
+        //#########################################
+    }
+
+}
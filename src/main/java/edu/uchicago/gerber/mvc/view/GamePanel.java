@@ -1,12 +1,14 @@
 package edu.uchicago.gerber.mvc.view;
 
-import edu.uchicago.gerber.mvc.controller.CommandCenter;
+import edu.uchicago.gerber.mvc.controller.FrameSnapshot;
 import edu.uchicago.gerber.mvc.controller.Game;
+import edu.uchicago.gerber.mvc.controller.RollingTimer;
+import edu.uchicago.gerber.mvc.controller.Simulation;
 import edu.uchicago.gerber.mvc.controller.Utils;
-import edu.uchicago.gerber.mvc.model.*;
 import edu.uchicago.gerber.mvc.model.prime.PolarPoint;
 
 import java.awt.*;
+import java.awt.image.BufferStrategy;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -15,13 +17,21 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 
-public class GamePanel extends Panel {
+/*
+ The game is drawn actively: the render thread draws each frame into a back buffer of the panel's BufferStrategy and
+ flips it to the screen (see render()), rather than asking AWT to repaint the panel. The back buffer is created once,
+ so a frame allocates no image, and AWT's own repaints are ignored, since the next frame is never more than a render
+ period away.
+ */
+public class GamePanel extends Canvas {
 
     // ==============================================================
     // FIELDS
     // ==============================================================
     private final Font fontNormal = new Font("SansSerif", Font.BOLD, 12);
     private final Font fontBig = new Font("SansSerif", Font.BOLD + Font.ITALIC, 36);
+    //the profiler overlay is a table
+    private final Font fontMono = new Font("Monospaced", Font.BOLD, 12);
     private final DecimalFormat decimalFormat = new DecimalFormat("#,###");
     private FontMetrics fontMetrics;
     private int fontWidth;
@@ -30,9 +40,11 @@ public class GamePanel extends Panel {
     //used to draw number of ships remaining
     private final Point[] pntShipsRemaining;
 
-    //used for double-buffering
-    private Image imgOff;
-    private Graphics grpOff;
+    //draws the movables of each FrameSnapshot
+    private final FrameRenderer frameRenderer = new FrameRenderer();
+
+    //the time of each render, shown in the profiler overlay; render thread only
+    private final RollingTimer renderTimer = new RollingTimer();
 
 
 
@@ -96,6 +108,9 @@ public class GamePanel extends Panel {
         gameFrame.setResizable(false);
         gameFrame.setVisible(true);
         setFocusable(true);
+        //double-buffered with page flipping where the display supports it, else by copying; see render()
+        setIgnoreRepaint(true);
+        createBufferStrategy(2);
     }
 
 
@@ -103,7 +118,7 @@ public class GamePanel extends Panel {
     // METHODS
     // ==============================================================
 
-    private void drawFalconStatus(final Graphics graphics){
+    private void drawFalconStatus(final Graphics graphics, FrameSnapshot frame){
 
         graphics.setColor(Color.white);
         graphics.setFont(fontNormal);
@@ -111,18 +126,18 @@ public class GamePanel extends Panel {
 
 
         //draw the level upper-right corner
-        String levelText = "Level : [" + CommandCenter.getInstance().getLevel() + "]  " +
-        CommandCenter.getInstance().getUniverse().toString().replace('_', ' ');
+        String levelText = "Level : [" + frame.getLevel() + "]  " +
+        frame.getUniverse().toString().replace('_', ' ');
         graphics.drawString(levelText, Game.DIM.width - OFFSET_LEFT, fontHeight); //upper-right corner
-        graphics.drawString("Score : " + decimalFormat.format(CommandCenter.getInstance().getScore()),
+        graphics.drawString("Score : " + decimalFormat.format(frame.getScore()),
                 Game.DIM.width - OFFSET_LEFT,
                 fontHeight * 2);
 
         //build the status string array with possible messages in middle of screen
         List<String> statusArray = new ArrayList<>();
-        if (CommandCenter.getInstance().getFalcon().getShowLevel() > 0) statusArray.add(levelText);
-        if (CommandCenter.getInstance().getFalcon().isMaxSpeedAttained()) statusArray.add("WARNING - SLOW DOWN");
-        if (CommandCenter.getInstance().getFalcon().getNukeMeter() > 0) statusArray.add("PRESS F for NUKE");
+        if (frame.getShowLevel() > 0) statusArray.add(levelText);
+        if (frame.isMaxSpeedAttained()) statusArray.add("WARNING - SLOW DOWN");
+        if (frame.getNukeMeter() > 0) statusArray.add("PRESS F for NUKE");
 
             //draw the statusArray strings to middle of screen
         if (!statusArray.isEmpty())
@@ -132,20 +147,51 @@ public class GamePanel extends Panel {
 
     }
 
-    //this is used for development, you can remove it from your final game
-    private void drawNumFrame(Graphics g) {
+    //the profiler overlay, toggled with the 'O' key: the mean and 99th-percentile time of each stage of the frame,
+    //in microseconds, over the most recent ticks, and what else was going on. See FrameProfiler
+    private void drawProfiler(Graphics g, FrameSnapshot frame) {
+
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("FRAME %d, last %d ticks", frame.getFrame(), frame.getProfiledTicks()));
+        lines.add(String.format("%-12s %8s %8s", "us", "mean", "p99"));
+        for (Simulation.Stage stage : Simulation.Stage.values()) {
+            lines.add(profilerLine(stage.toString().toLowerCase().replace('_', ' '),
+                    frame.getStageMeanNanos()[stage.ordinal()], frame.getStageP99Nanos()[stage.ordinal()]));
+        }
+        lines.add(profilerLine("draw", frame.getDrawMeanNanos(), frame.getDrawP99Nanos()));
+        lines.add(profilerLine("tick", frame.getTickMeanNanos(), frame.getTickP99Nanos()));
+        lines.add(profilerLine("render", renderTimer.getMeanNanos(), renderTimer.getPercentileNanos(0.99)));
+        RasterCache rasterCache = frameRenderer.getRasterCache();
+        long rasterDraws = rasterCache.getHits() + rasterCache.getMisses();
+        lines.add(String.format("rasters: %d copies, %.1f MB, %.1f%% hits", rasterCache.size(),
+                rasterCache.getBytes() / 1e6, rasterDraws == 0 ? 0.0 : 100.0 * rasterCache.getHits() / rasterDraws));
+        lines.add(String.format("GC: %d pauses, %.1f ms; %d ticks overlapped", frame.getGcPauses(),
+                frame.getGcPauseNanos() / 1e6, frame.getGcOverlappedTicks()));
+        lines.add(String.format("debris %d  floaters %d  foes %d  friends %d", frame.getNumDebris(),
+                frame.getNumFloaters(), frame.getNumFoes(), frame.getNumFriends()));
+        lines.add(String.format("asteroids large %d  medium %d  small %d", frame.getNumLargeAsteroids(),
+                frame.getNumMediumAsteroids(), frame.getNumSmallAsteroids()));
+        //duplicate REMOVE ops eliminated so far; see CollisionEventBuffer
+        lines.add("redundant ops " + frame.getRedundantOps());
+
         g.setColor(Color.white);
-        g.setFont(fontNormal);
-        g.drawString("FRAME[JAVA]:" + CommandCenter.getInstance().getFrame(), fontWidth,
-                Game.DIM.height  - (fontHeight + 22));
+        g.setFont(fontMono);
+        int y = Game.DIM.height - 22 - lines.size() * fontHeight;
+        for (String line : lines) {
+            g.drawString(line, fontWidth, y);
+            y += fontHeight;
+        }
+    }
 
+    private static String profilerLine(String name, long meanNanos, long p99Nanos) {
+        return String.format("%-12s %8.1f %8.1f", name, meanNanos / 1e3, p99Nanos / 1e3);
     }
 
-    private void drawMeters(Graphics g){
+    private void drawMeters(Graphics g, FrameSnapshot frame){
 
         //will be a number between 0-100 inclusive
-        int shieldValue =   CommandCenter.getInstance().getFalcon().getShield() / 2;
-        int nukeValue = CommandCenter.getInstance().getFalcon().getNukeMeter() /6;
+        int shieldValue =   frame.getShield() / 2;
+        int nukeValue = frame.getNukeMeter() /6;
 
         drawOneMeter(g, Color.CYAN, 1, shieldValue);
         drawOneMeter(g, Color.YELLOW, 2, nukeValue);
@@ -167,22 +213,38 @@ public class GamePanel extends Panel {
         g.drawRect(xVal, yVal, 100, 10);
     }
 
-    @Override
-    public void update(Graphics g) {
+    //Draw the latest FrameSnapshot published by the simulation; called on the render thread. Sprites are drawn the
+    //fraction alpha of the way between their previous and their current positions. See Game.run()
+    public void render(FrameSnapshot frame, double alpha) {
+
+        long start = System.nanoTime();
+        BufferStrategy strategy = getBufferStrategy();
+        //the panel is not yet displayable
+        if (strategy == null) return;
+
+        //draw into the back buffer, then show it in one fell-swoop. If you attempt to draw sprites directly on the
+        //gamePanel, e.g. without a back buffer, you will see flickering. The back buffer lives as long as the panel;
+        //if its contents are lost (e.g. the display mode changed) before or after show(), the frame is drawn again
+        do {
+            do {
+                Graphics grpOff = strategy.getDrawGraphics();
+                draw(grpOff, frame, alpha);
+                grpOff.dispose();
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        //flush the window system's queue, so that the frame is on screen now rather than whenever it gets to it
+        Toolkit.getDefaultToolkit().sync();
+        renderTimer.record(start, System.nanoTime());
+    }
 
-        // The following "off" vars are used for the off-screen double-buffered image.
-        imgOff = createImage(Game.DIM.width, Game.DIM.height);
-        //get its graphics context
-        grpOff = imgOff.getGraphics();
+    private void draw(Graphics grpOff, FrameSnapshot frame, double alpha) {
 
-        //fill the entire off-screen image with black background
+        //fill the entire back buffer with black background
         grpOff.setColor(Color.BLACK);
         grpOff.fillRect(0, 0, Game.DIM.width, Game.DIM.height);
 
-        //this is used for development, you may remove drawNumFrame() in your final game.
-        drawNumFrame(grpOff);
-
-        if (CommandCenter.getInstance().isGameOver()) {
+        if (frame.isGameOver()) {
             displayTextOnScreen(grpOff,
                     "GAME OVER",
                     "use the arrow keys to turn and thrust",
@@ -191,10 +253,11 @@ public class GamePanel extends Panel {
                     "'P' to Pause",
                     "'Q' to Quit",
                     "'M' to toggle music",
-                    "'A' to toggle radar"
+                    "'A' to toggle radar",
+                    "'O' to toggle profiler"
 
             );
-        } else if (CommandCenter.getInstance().isPaused()) {
+        } else if (frame.isPaused()) {
 
             displayTextOnScreen(grpOff, "Game Paused");
 
@@ -204,46 +267,23 @@ public class GamePanel extends Panel {
         else {
 
 
-            moveDrawMovables(grpOff,
-                    CommandCenter.getInstance().getMovDebris(),
-                    CommandCenter.getInstance().getMovFloaters(),
-                    CommandCenter.getInstance().getMovFoes(),
-                    CommandCenter.getInstance().getMovFriends());
+            //the movables, as recorded by their draw() methods on the simulation thread
+            frameRenderer.draw((Graphics2D) grpOff, frame, alpha);
 
 
-            drawNumberShipsRemaining(grpOff);
-            drawMeters(grpOff);
-            drawFalconStatus(grpOff);
+            drawNumberShipsRemaining(grpOff, frame);
+            drawMeters(grpOff, frame);
+            drawFalconStatus(grpOff, frame);
 
 
         }
-
-        //after drawing all the movables or text on the offscreen-image, copy it in one fell-swoop to graphics context
-        // of the game panel, and show it for ~40ms. If you attempt to draw sprites directly on the gamePanel, e.g.
-        // without the use of a double-buffered off-screen image, you will see flickering.
-        g.drawImage(imgOff, 0, 0, this);
+        if (frame.isProfiled()) drawProfiler(grpOff, frame);
     }
 
 
-    //this method causes all sprites to move and draw themselves. This method takes a variable number of teams.
-    @SafeVarargs
-    private final void moveDrawMovables(final Graphics g, List<Movable>... teams) {
-
-        for (List<Movable> team : teams) {
-            for (Movable mov : team) {
-                mov.move();
-                mov.draw(g);
-            }
-        }
-
-    }
-
-
-
-
     // Draw the number of falcons remaining on the bottom-right of the screen.
-    private void drawNumberShipsRemaining(Graphics g) {
-        int numFalcons = CommandCenter.getInstance().getNumFalcons();
+    private void drawNumberShipsRemaining(Graphics g, FrameSnapshot frame) {
+        int numFalcons = frame.getNumFalcons();
         while (numFalcons > 1) {
             drawOneShip(g, numFalcons--);
         }
@@ -278,6 +318,10 @@ public class GamePanel extends Panel {
                         pnt.y + Y_POS);
 
 
+        /*TODO The following is an example of the Pipeline design pattern, which is a way of chaining a series of operations
+        where the output of one operation becomes the input for the next, forming a "pipeline" of transformations and
+        processing steps. This is a key concept in functional programming.
+         */
         g.drawPolygon(
 
                 polars.stream()
@@ -0,0 +1,184 @@
+package edu.uchicago.gerber.mvc.view;
+
+import edu.uchicago.gerber.mvc.model.prime.Trig;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ Pre-rotated, pre-scaled copies of raster images, so that drawing a raster sprite is usually a plain blit, instead of
+ a drawImage() that scales and rotates, one of the slowest paths of Java2D's software pipeline. A copy is made the
+ first time an image is drawn at a quantized orientation and size: orientations are rounded to the nearest
+ ANGLE_STEP degrees and sizes to the nearest SIZE_STEP pixels, so a copy is within half a step of the sprite it stands
+ for. A copy is drawn with the same transform as a direct draw at its quantized orientation and size, only translated
+ by whole pixels.
+
+ FrameRenderer interpolates orientations, so a turning Falcon is drawn at every degree, and its radius grows with its
+ speed from Falcon.MIN_RADIUS to about 41. Quantized, that is 360 / ANGLE_STEP orientations by 4 sizes, i.e. 180
+ copies per image and 720 for the four Falcon images, about 24 MB: all of them fit in the default budget. Debris does
+ not turn at all. Should the copies take more than the budget, e.g. for a larger image, the least recently drawn are
+ dropped. Render thread only.
+ */
+public class RasterCache {
+
+    public static final long DEFAULT_BUDGET_BYTES = 32L << 20;
+    //the quantization of orientations, in degrees, and of widths and heights, in pixels
+    public static final int ANGLE_STEP = 8;
+    public static final int SIZE_STEP = 8;
+    //a larger copy is not worth its memory; such images are drawn directly
+    private static final int MAX_SIDE = 512;
+
+    //a copy, to be drawn at the sprite's center-point plus the offset
+    static class Entry {
+        private final Image image;
+        private final int offsetX, offsetY;
+        private final long bytes;
+
+        private Entry(Image image, int offsetX, int offsetY, long bytes) {
+            this.image = image;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+            this.bytes = bytes;
+        }
+
+        Image getImage() {
+            return image;
+        }
+
+        int getOffsetX() {
+            return offsetX;
+        }
+
+        int getOffsetY() {
+            return offsetY;
+        }
+    }
+
+    //images are compared by identity, e.g. each state of the Falcon is a different image
+    private static class Key {
+        private BufferedImage image;
+        private int orientation, width, height;
+
+        private Key set(BufferedImage image, int orientation, int width, int height) {
+            this.image = image;
+            this.orientation = orientation;
+            this.width = width;
+            this.height = height;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return image == key.image && orientation == key.orientation && width == key.width && height == key.height;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((System.identityHashCode(image) * 31 + orientation) * 31 + width) * 31 + height;
+        }
+    }
+
+    //in order of access, least recent first
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    //reused to look entries up, so that a hit does not allocate
+    private final Key probe = new Key();
+    private final long budgetBytes;
+    private long bytes;
+    private long hits, misses, evictions;
+
+    public RasterCache() {
+        this(DEFAULT_BUDGET_BYTES);
+    }
+
+    public RasterCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    //the copy of the image rotated by about orientation and scaled to about width x height, made now if there is none; or
+    //null if the image should be drawn directly. Copies are made compatible with the given configuration, for the
+    //fastest blit
+    Entry get(BufferedImage image, int orientation, int width, int height, GraphicsConfiguration configuration) {
+
+        if (width <= 0 || height <= 0) return null;
+        orientation = Math.floorMod(quantize(orientation, ANGLE_STEP), 360);
+        width = Math.max(SIZE_STEP, quantize(width, SIZE_STEP));
+        height = Math.max(SIZE_STEP, quantize(height, SIZE_STEP));
+        Entry entry = entries.get(probe.set(image, orientation, width, height));
+        if (entry != null) {
+            hits++;
+            return entry;
+        }
+
+        //the transform of a direct draw (see FrameRenderer.renderRaster()), about the center-point
+        AffineTransform transform = new AffineTransform();
+        transform.scale(width * 1.0 / image.getWidth(), height * 1.0 / image.getHeight());
+        if (orientation != 0) transform.rotate(Trig.cosDeg(orientation), Trig.sinDeg(orientation));
+        transform.translate(-image.getWidth() / 2.0, -image.getHeight() / 2.0);
+
+        //the bounds of the transformed image, in whole pixels, with a pixel to spare on each side
+        Rectangle bounds = transform.createTransformedShape(
+                new Rectangle(0, 0, image.getWidth(), image.getHeight())).getBounds();
+        bounds.grow(1, 1);
+        if (bounds.width > MAX_SIDE || bounds.height > MAX_SIDE) return null;
+
+        Image copy = configuration.createCompatibleImage(bounds.width, bounds.height, Transparency.TRANSLUCENT);
+        Graphics2D g2d = (Graphics2D) copy.getGraphics();
+        try {
+            AffineTransform placed = AffineTransform.getTranslateInstance(-bounds.x, -bounds.y);
+            placed.concatenate(transform);
+            g2d.setTransform(placed);
+            g2d.drawImage(image, 0, 0, image.getWidth(), image.getHeight(), null);
+        } finally {
+            g2d.dispose();
+        }
+
+        entry = new Entry(copy, bounds.x, bounds.y, 4L * bounds.width * bounds.height);
+        entries.put(new Key().set(image, orientation, width, height), entry);
+        bytes += entry.bytes;
+        misses++;
+        evict();
+        return entry;
+    }
+
+    //the nearest multiple of step
+    static int quantize(int value, int step) {
+        return Math.floorDiv(value + step / 2, step) * step;
+    }
+
+    //drop the least recently drawn copies while over budget, but never the one just made
+    private void evict() {
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (bytes > budgetBytes && entries.size() > 1) {
+            bytes -= eldest.next().getValue().bytes;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+}
@@ -0,0 +1,93 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import edu.uchicago.gerber.mvc.model.Asteroid;
+import edu.uchicago.gerber.mvc.model.Movable;
+import edu.uchicago.gerber.mvc.model.MovableList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CollisionDetectorTest {
+
+    private static final int UNI_WIDTH = 4 * Game.DIM.width;
+    private static final int UNI_HEIGHT = 4 * Game.DIM.height;
+    private static final int FRAMES = 10;
+
+    private CommandCenter previous;
+    private final MovableList friends = new MovableList();
+    private final MovableList foes = new MovableList();
+    private final List<Point> startCenters = new ArrayList<>();
+
+    @Before
+    public void buildScene() {
+        //the Asteroids draw their shapes from the rng of the bound world
+        previous = CommandCenter.bind(new CommandCenter(42));
+        Random r = new Random(42);
+        //as in CollisionBenchmark: large, medium and small foes, and small, fast friends for the swept test
+        for (int i = 0; i < 1_000; i++) {
+            foes.add(place(new Asteroid(i % 3), r));
+        }
+        for (int i = 0; i < 250; i++) {
+            Asteroid bullet = new Asteroid(2);
+            bullet.setRadius(6);
+            double angle = Math.toRadians(r.nextInt(360));
+            bullet.setDeltaX(Math.cos(angle) * 35);
+            bullet.setDeltaY(Math.sin(angle) * 35);
+            friends.add(place(bullet, r));
+        }
+        for (Movable mov : friends) startCenters.add(new Point(mov.getCenter()));
+        for (Movable mov : foes) startCenters.add(new Point(mov.getCenter()));
+    }
+
+    @After
+    public void unbindWorld() {
+        CommandCenter.bind(previous);
+    }
+
+    //some centers land just beyond the edges of the universe, to exercise wrap-around
+    private static Movable place(Asteroid asteroid, Random r) {
+        asteroid.setCenter(new Point(r.nextInt(UNI_WIDTH + 40) - 20, r.nextInt(UNI_HEIGHT + 40) - 20));
+        return asteroid;
+    }
+
+    //every pair that the detector reports over FRAMES frames of the scene, as (friend slot, foe slot, time of impact)
+    private List<String> run(CollisionDetector detector) {
+        int i = 0;
+        for (Movable mov : friends) ((Asteroid) mov).setCenter(new Point(startCenters.get(i++)));
+        for (Movable mov : foes) ((Asteroid) mov).setCenter(new Point(startCenters.get(i++)));
+
+        List<String> hits = new ArrayList<>();
+        for (int frame = 0; frame < FRAMES; frame++) {
+            for (MovableList team : new MovableList[]{friends, foes}) {
+                for (Movable mov : team) {
+                    Asteroid asteroid = (Asteroid) mov;
+                    asteroid.getPrevCenter().setLocation(asteroid.getCenter());
+                    asteroid.getCenter().translate((int) asteroid.getDeltaX(), (int) asteroid.getDeltaY());
+                }
+            }
+            final int f = frame;
+            detector.detect(friends, foes, UNI_WIDTH, UNI_HEIGHT, (friend, foe, toi) ->
+                    hits.add(f + ": " + friend.getSlot() + " x " + foe.getSlot() + " at " + toi));
+        }
+        return hits;
+    }
+
+    @Test
+    public void enginesReportTheSamePairsInTheSameOrder() {
+        List<String> brute = run(CollisionDetector.create("brute"));
+        assertTrue("the scene should have collisions", brute.size() > 100);
+
+        assertEquals(brute, run(CollisionDetector.create("grid")));
+        //forking every frame, into 16 regions however many cores there are
+        assertEquals(brute, run(new SpatialHashCollisionDetector(0, 16)));
+        assertEquals(brute, run(CollisionDetector.create("sap")));
+    }
+
+}
@@ -0,0 +1,226 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import edu.uchicago.gerber.mvc.model.Movable;
+import edu.uchicago.gerber.mvc.model.MovableList;
+import org.junit.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GameOpsQueueTest {
+
+    //a movable that only tells which op it was enqueued by
+    private static class Numbered implements Movable {
+        private final int number;
+
+        private Numbered(int number) {
+            this.number = number;
+        }
+
+        @Override
+        public void move() {
+        }
+
+        @Override
+        public void draw(FrameSnapshot frame) {
+        }
+
+        @Override
+        public Point getCenter() {
+            return new Point();
+        }
+
+        @Override
+        public int getRadius() {
+            return 0;
+        }
+
+        @Override
+        public Team getTeam() {
+            return Team.DEBRIS;
+        }
+
+        @Override
+        public void addToGame(MovableList list) {
+        }
+
+        @Override
+        public boolean removeFromGame(MovableList list) {
+            return false;
+        }
+
+        @Override
+        public int getSlot() {
+            return -1;
+        }
+
+        @Override
+        public void setSlot(int slot) {
+        }
+    }
+
+    private static GameOp[] batch(int size) {
+        GameOp[] batch = new GameOp[size];
+        for (int i = 0; i < size; i++) {
+            batch[i] = new GameOp(null, null);
+        }
+        return batch;
+    }
+
+    private static GameOp.Action actionOf(int number) {
+        return number % 2 == 0 ? GameOp.Action.ADD : GameOp.Action.REMOVE;
+    }
+
+    private static void enqueue(GameOpsQueue queue, int number) {
+        queue.enqueue(new Numbered(number), actionOf(number));
+    }
+
+    //drain every pending op, in batches, checking that they are the next numbers in order
+    private static int drainAll(GameOpsQueue queue, GameOp[] batch, int next) {
+        int count;
+        while ((count = queue.drainTo(batch)) > 0) {
+            for (int i = 0; i < count; i++) {
+                assertEquals(next, ((Numbered) batch[i].getMovable()).number);
+                assertEquals(actionOf(next), batch[i].getAction());
+                next++;
+            }
+        }
+        assertTrue(queue.isEmpty());
+        return next;
+    }
+
+    @Test
+    public void capacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(4, new GameOpsQueue(3).getCapacity());
+        assertEquals(4, new GameOpsQueue(4).getCapacity());
+        assertEquals(8, new GameOpsQueue(5).getCapacity());
+        assertEquals(GameOpsQueue.DEFAULT_CAPACITY, new GameOpsQueue().getCapacity());
+    }
+
+    @Test
+    public void wrapsAroundForManyLaps() {
+        GameOpsQueue queue = new GameOpsQueue(4);
+        GameOp[] batch = batch(3);
+        int enqueued = 0, next = 0;
+        //1, 2 or 3 ops at a time, so that the head and tail wrap around at every offset of the ring
+        for (int lap = 0; lap < 50; lap++) {
+            for (int i = 0; i <= lap % 3; i++) {
+                enqueue(queue, enqueued++);
+            }
+            next = drainAll(queue, batch, next);
+        }
+
+        assertEquals(enqueued, next);
+        assertEquals(enqueued, queue.getEnqueuedCount());
+        assertEquals(enqueued, queue.getDequeuedCount());
+        assertEquals(3, queue.getHighWater());
+        assertEquals(0, queue.getSpills());
+    }
+
+    @Test
+    public void opsEnqueuedDuringADrainComeNext() {
+        GameOpsQueue queue = new GameOpsQueue(8);
+        GameOp[] batch = batch(2);
+        int enqueued = 0;
+        for (int i = 0; i < 5; i++) {
+            enqueue(queue, enqueued++);
+        }
+
+        //as the simulation does: applying an op may enqueue more, e.g. an Asteroid that spawns smaller ones
+        List<Integer> applied = new ArrayList<>();
+        int count;
+        while ((count = queue.drainTo(batch)) > 0) {
+            for (int i = 0; i < count; i++) {
+                int number = ((Numbered) batch[i].getMovable()).number;
+                applied.add(number);
+                if (number < 20) {
+                    enqueue(queue, enqueued++);
+                }
+            }
+        }
+
+        assertEquals(enqueued, applied.size());
+        for (int i = 0; i < applied.size(); i++) {
+            assertEquals(i, (int) applied.get(i));
+        }
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.getSpills());
+    }
+
+    @Test
+    public void fullRingSpillsToTheOverflowInOrder() {
+        GameOpsQueue queue = new GameOpsQueue(4);
+        GameOp[] batch = batch(3);
+
+        //4 ops fill the ring, the other 6 spill
+        for (int i = 0; i < 10; i++) {
+            enqueue(queue, i);
+        }
+        assertEquals(6, queue.getSpills());
+        assertEquals(10, queue.getEnqueuedCount());
+        assertFalse(queue.isEmpty());
+
+        //drain a batch, which frees room in the ring; new ops still go behind the spilled ones
+        assertEquals(3, queue.drainTo(batch));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, ((Numbered) batch[i].getMovable()).number);
+        }
+        enqueue(queue, 10);
+        enqueue(queue, 11);
+        assertEquals(8, queue.getSpills());
+
+        int next = drainAll(queue, batch, 3);
+        assertEquals(12, next);
+        assertEquals(10, queue.getHighWater());
+        assertEquals(12, queue.getDequeuedCount());
+
+        //once the overflow is empty, ops go to the ring again
+        enqueue(queue, 12);
+        assertEquals(8, queue.getSpills());
+        assertEquals(13, drainAll(queue, batch, 12));
+    }
+
+    @Test
+    public void producersOnOtherThreadsLoseNoOps() throws InterruptedException {
+        GameOpsQueue queue = new GameOpsQueue(16);
+        GameOp[] batch = batch(8);
+        int producers = 4, each = 10_000;
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int first = p * each;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < each; i++) {
+                    enqueue(queue, first + i);
+                }
+            });
+            threads[p].start();
+        }
+
+        //each producer's ops must come out in the order that producer enqueued them
+        int[] last = new int[producers];
+        Arrays.fill(last, -1);
+        int drained = 0;
+        while (drained < producers * each) {
+            int count = queue.drainTo(batch);
+            for (int i = 0; i < count; i++) {
+                int number = ((Numbered) batch[i].getMovable()).number;
+                int producer = number / each;
+                assertTrue(number > last[producer]);
+                last[producer] = number;
+            }
+            drained += count;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(queue.isEmpty());
+        assertEquals(producers * each, queue.getEnqueuedCount());
+        assertEquals(producers * each, queue.getDequeuedCount());
+    }
+
+}
@@ -0,0 +1,131 @@
+package edu.uchicago.gerber.mvc.controller;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ReplayTest {
+
+    private static final long SEED = 7;
+    //three keyframes, and some frames after the last of them
+    private static final long FRAMES = 3L * Replay.KEYFRAME_INTERVAL + 57;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private CommandCenter previous;
+
+    @Before
+    public void mute() {
+        SoundLoader.setMuted(true);
+        previous = CommandCenter.bind(null);
+    }
+
+    @After
+    public void unbindWorld() {
+        CommandCenter.bind(previous);
+    }
+
+    //the keys pressed (or released) in a frame: start the game, then turn, thrust and fire on and off
+    private static void script(long frame, ReplayWriter writer, Simulation simulation) {
+        if (frame == 0) press(frame, Simulation.Key.START, true, writer, simulation);
+        if (frame % 50 == 10) press(frame, Simulation.Key.UP, true, writer, simulation);
+        if (frame % 50 == 30) press(frame, Simulation.Key.UP, false, writer, simulation);
+        if (frame % 90 == 20) press(frame, Simulation.Key.LEFT, true, writer, simulation);
+        if (frame % 90 == 45) press(frame, Simulation.Key.LEFT, false, writer, simulation);
+        if (frame % 7 == 3) press(frame, Simulation.Key.FIRE, frame % 14 == 3, writer, simulation);
+    }
+
+    //as Game does: record the key in the frame that it takes effect, and play it
+    private static void press(long frame, Simulation.Key key, boolean pressed, ReplayWriter writer,
+                              Simulation simulation) {
+        writer.input(frame, key, pressed);
+        simulation.input(key, pressed);
+    }
+
+    //records the session, and returns the StateHash of the world at each keyframe, by frame
+    private static Map<Long, Long> record(Path path) throws IOException {
+        CommandCenter world = new CommandCenter(SEED);
+        CommandCenter.bind(world);
+        Simulation simulation = new Simulation(CollisionDetector.create("grid"));
+        ReplayWriter writer = new ReplayWriter(path, SEED);
+        Map<Long, Long> keyframeHashes = new HashMap<>();
+        while (world.getFrame() < FRAMES) {
+            script(world.getFrame(), writer, simulation);
+            simulation.tick();
+            writer.tick(world, simulation.getStateHash());
+            if (world.getFrame() % Replay.KEYFRAME_INTERVAL == 0) {
+                keyframeHashes.put(world.getFrame(), StateHash.of(world));
+            }
+        }
+        writer.close();
+        CommandCenter.bind(null);
+        return keyframeHashes;
+    }
+
+    //plays the recording on from the world's frame to its end, and returns the StateHash of the last frame
+    private static long playToEnd(ReplayReader reader, CommandCenter world) {
+        Simulation simulation = new Simulation(CollisionDetector.create("grid"));
+        while (world.getFrame() < reader.getLastFrame()) {
+            reader.play(world.getFrame(), simulation);
+            simulation.tick();
+        }
+        return simulation.getStateHash();
+    }
+
+    @Test
+    public void recordReadBackAndSeek() throws IOException {
+        Path path = folder.newFile("session.replay").toPath();
+        Map<Long, Long> keyframeHashes = record(path);
+
+        ReplayReader reader = ReplayReader.open(path);
+        assertEquals(SEED, reader.getSeed());
+        assertTrue(reader.isComplete());
+        assertEquals(FRAMES, reader.getLastFrame());
+        assertEquals(3, reader.getNumKeyframes());
+
+        //from frame 0, the recorded keys play the same game
+        CommandCenter.bind(new CommandCenter(reader.getSeed()));
+        assertEquals(reader.getEndStateHash(), playToEnd(reader, CommandCenter.getInstance()));
+
+        //from a keyframe, the restored world is the recorded one, and plays on to the same end
+        long seekTo = 2L * Replay.KEYFRAME_INTERVAL + 5;
+        CommandCenter world = new CommandCenter(reader.getSeed());
+        CommandCenter.bind(world);
+        assertEquals(2L * Replay.KEYFRAME_INTERVAL, reader.seek(seekTo, world));
+        assertEquals(2L * Replay.KEYFRAME_INTERVAL, world.getFrame());
+        assertEquals((long) keyframeHashes.get(world.getFrame()), StateHash.of(world));
+        assertEquals(reader.getEndStateHash(), playToEnd(reader, world));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownRecordIsRejected() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(Replay.MAGIC);
+        Replay.writeVarLong(out, Replay.VERSION);
+        Replay.writeLong(out, SEED);
+        Replay.writeVarLong(out, Replay.KEYFRAME_INTERVAL);
+        //neither an INPUT, a KEYFRAME nor an END tag, followed by a well-formed END record
+        out.write(0x7F);
+        Replay.writeVarLong(out, 0);
+        out.write(Replay.END);
+        Replay.writeVarLong(out, 0);
+        Replay.writeLong(out, 0);
+
+        Path path = folder.newFile("corrupt.replay").toPath();
+        Files.write(path, out.toByteArray());
+        ReplayReader.open(path);
+    }
+
+}
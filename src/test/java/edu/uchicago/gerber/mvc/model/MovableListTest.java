@@ -0,0 +1,269 @@
+package edu.uchicago.gerber.mvc.model;
+
+import edu.uchicago.gerber.mvc.controller.CommandCenter;
+import edu.uchicago.gerber.mvc.controller.FrameSnapshot;
+import edu.uchicago.gerber.mvc.controller.SoundLoader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.*;
+
+import static org.junit.Assert.*;
+
+public class MovableListTest {
+
+    //the smallest Movable: a slot and nothing else
+    private static class Stub implements Movable {
+        private int slot = -1;
+
+        @Override
+        public void move() {
+        }
+
+        @Override
+        public void draw(FrameSnapshot frame) {
+        }
+
+        @Override
+        public Point getCenter() {
+            return new Point();
+        }
+
+        @Override
+        public int getRadius() {
+            return 0;
+        }
+
+        @Override
+        public Team getTeam() {
+            return Team.DEBRIS;
+        }
+
+        @Override
+        public void addToGame(MovableList list) {
+            list.add(this);
+        }
+
+        @Override
+        public boolean removeFromGame(MovableList list) {
+            return list.remove(this);
+        }
+
+        @Override
+        public int getSlot() {
+            return slot;
+        }
+
+        @Override
+        public void setSlot(int slot) {
+            this.slot = slot;
+        }
+    }
+
+    private CommandCenter previous;
+
+    @Before
+    public void bindWorld() {
+        //Asteroids draw their shapes from the rng of the bound world, and wrap around its universe
+        CommandCenter world = new CommandCenter(1);
+        world.setUniverse(CommandCenter.Universe.BIG);
+        previous = CommandCenter.bind(world);
+    }
+
+    @After
+    public void unbindWorld() {
+        CommandCenter.bind(previous);
+    }
+
+    private static void assertSlots(MovableList list) {
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals("slot of element " + i, i, list.get(i).getSlot());
+        }
+    }
+
+    @Test
+    public void removeLast() {
+        MovableList list = new MovableList();
+        Stub a = new Stub(), b = new Stub(), c = new Stub();
+        list.add(a);
+        list.add(b);
+        list.add(c);
+
+        assertTrue(list.remove(c));
+
+        assertEquals(2, list.size());
+        assertSame(a, list.get(0));
+        assertSame(b, list.get(1));
+        assertEquals(-1, c.getSlot());
+        assertFalse(list.contains(c));
+        assertSlots(list);
+    }
+
+    @Test
+    public void removeMiddleMovesLastIntoItsSlot() {
+        MovableList list = new MovableList();
+        Stub a = new Stub(), b = new Stub(), c = new Stub(), d = new Stub();
+        list.add(a);
+        list.add(b);
+        list.add(c);
+        list.add(d);
+
+        assertTrue(list.remove(b));
+
+        assertEquals(3, list.size());
+        assertSame(a, list.get(0));
+        assertSame(d, list.get(1));
+        assertSame(c, list.get(2));
+        assertEquals(-1, b.getSlot());
+        assertEquals(-1, list.indexOf(b));
+        assertEquals(1, list.indexOf(d));
+        assertSlots(list);
+    }
+
+    @Test
+    public void removeMissing() {
+        MovableList list = new MovableList();
+        MovableList other = new MovableList();
+        Stub a = new Stub(), b = new Stub(), never = new Stub();
+        list.add(a);
+        //b is in slot 0 of another list, the same slot as a
+        other.add(b);
+
+        assertFalse(list.remove(never));
+        assertFalse(list.remove(b));
+        assertFalse(list.remove("not a movable"));
+
+        assertEquals(1, list.size());
+        assertSame(a, list.get(0));
+        assertEquals(0, b.getSlot());
+        assertTrue(other.contains(b));
+    }
+
+    @Test
+    public void removeTwice() {
+        MovableList list = new MovableList();
+        Stub a = new Stub(), b = new Stub();
+        list.add(a);
+        list.add(b);
+
+        assertTrue(list.remove(a));
+        assertFalse(list.remove(a));
+
+        assertEquals(1, list.size());
+        assertSame(b, list.get(0));
+        assertSlots(list);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addTwice() {
+        MovableList list = new MovableList();
+        Stub a = new Stub();
+        list.add(a);
+        list.add(a);
+    }
+
+    @Test
+    public void clearResetsSlots() {
+        MovableList list = new MovableList();
+        Stub a = new Stub(), b = new Stub();
+        list.add(a);
+        list.add(b);
+
+        list.clear();
+
+        assertTrue(list.isEmpty());
+        assertEquals(-1, a.getSlot());
+        assertEquals(-1, b.getSlot());
+        list.add(b);
+        assertEquals(0, b.getSlot());
+    }
+
+    @Test
+    public void growKeepsSlots() {
+        MovableList list = new MovableList(MovableList.Storage.ARRAYS);
+        for (int i = 0; i < 100; i++) {
+            list.add(new Stub());
+        }
+        assertEquals(100, list.size());
+        assertSlots(list);
+    }
+
+    @Test
+    public void asteroidRemovedOnlyOnce() {
+        SoundLoader.setMuted(true);
+        CommandCenter world = CommandCenter.getInstance();
+        MovableList list = new MovableList();
+        Asteroid asteroid = new Asteroid(0);
+        list.add(asteroid);
+        long score = world.getScore();
+        int pooled = world.getAsteroidPool().size();
+
+        assertTrue(asteroid.removeFromGame(list));
+        long scored = world.getScore();
+        long spawned = world.getOpsQueue().getEnqueuedCount();
+        assertTrue(scored > score);
+        assertEquals(pooled + 1, world.getAsteroidPool().size());
+
+        //e.g. a second REMOVE from another source: no more children, points or releases
+        assertFalse(asteroid.removeFromGame(list));
+        assertEquals(scored, world.getScore());
+        assertEquals(spawned, world.getOpsQueue().getEnqueuedCount());
+        assertEquals(pooled + 1, world.getAsteroidPool().size());
+    }
+
+    @Test
+    public void arraysRemoveMiddleCopiesLastRow() {
+        MovableList list = new MovableList(MovableList.Storage.ARRAYS);
+        Asteroid[] asteroids = new Asteroid[4];
+        for (int i = 0; i < asteroids.length; i++) {
+            asteroids[i] = new Asteroid(i % 3);
+            asteroids[i].setCenter(100 * i, 10 * i);
+            asteroids[i].setDeltaX(i + 0.5);
+            list.add(asteroids[i]);
+        }
+
+        assertTrue(list.remove(asteroids[1]));
+
+        //the last asteroid took over the removed one's row, and reads the same state from it
+        assertSame(asteroids[3], list.get(1));
+        assertEquals(new Point(300, 30), asteroids[3].getCenter());
+        assertEquals(3.5, asteroids[3].getDeltaX(), 0);
+        assertEquals(asteroids[3].getRadius(), list.get(1).getRadius());
+        //the removed asteroid took its state back from the arrays
+        assertEquals(new Point(100, 10), asteroids[1].getCenter());
+        assertEquals(1.5, asteroids[1].getDeltaX(), 0);
+        asteroids[1].setDeltaX(9);
+        assertEquals(3.5, asteroids[3].getDeltaX(), 0);
+        assertSlots(list);
+    }
+
+    @Test
+    public void arraysMoveLikeObjects() {
+        MovableList objects = new MovableList(MovableList.Storage.OBJECTS);
+        MovableList arrays = new MovableList(MovableList.Storage.ARRAYS);
+        for (int i = 0; i < 20; i++) {
+            Asteroid a = new Asteroid(i % 3), b = new Asteroid(i % 3);
+            b.setCenter(a.getCenter().x, a.getCenter().y);
+            b.setDeltaX(a.getDeltaX());
+            b.setDeltaY(a.getDeltaY());
+            b.setSpin(a.getSpin());
+            objects.add(a);
+            arrays.add(b);
+        }
+        //remove from the middle, so that the arrays have been compacted before they move
+        objects.remove(objects.get(5));
+        arrays.remove(arrays.get(5));
+
+        for (int tick = 0; tick < 50; tick++) {
+            objects.moveAll();
+            arrays.moveAll();
+        }
+
+        for (int i = 0; i < objects.size(); i++) {
+            assertEquals(objects.get(i).getCenter(), arrays.get(i).getCenter());
+            assertEquals(((Sprite) objects.get(i)).getOrientation(), ((Sprite) arrays.get(i)).getOrientation());
+        }
+    }
+
+}